@@ -13,8 +13,8 @@ cd /d "%~dp0"
 REM Check if Java is installed
 java -version >nul 2>&1
 if errorlevel 1 (
-    echo ERROR: Java 17 is not installed or not in PATH
-    echo Please install Java 17 from https://www.oracle.com/java/technologies/downloads/#java17
+    echo ERROR: Java 21 is not installed or not in PATH
+    echo Please install Java 21 from https://www.oracle.com/java/technologies/downloads/#java21
     exit /b 1
 )
 
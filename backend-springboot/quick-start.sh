@@ -12,8 +12,8 @@ cd "$(dirname "$0")"
 
 # Check if Java is installed
 if ! command -v java &> /dev/null; then
-    echo "ERROR: Java 17 is not installed or not in PATH"
-    echo "Please install Java 17 from https://www.oracle.com/java/technologies/downloads/#java17"
+    echo "ERROR: Java 21 is not installed or not in PATH"
+    echo "Please install Java 21 from https://www.oracle.com/java/technologies/downloads/#java21"
     exit 1
 fi
 
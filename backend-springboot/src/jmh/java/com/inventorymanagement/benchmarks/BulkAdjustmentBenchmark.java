@@ -0,0 +1,102 @@
+package com.inventorymanagement.benchmarks;
+
+import com.inventorymanagement.InventoryManagementApplication;
+import com.inventorymanagement.dto.BulkQuantityRequest;
+import com.inventorymanagement.dto.BulkQuantityResult;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.ItemRepository;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.services.LogService;
+import com.inventorymanagement.support.TestMongoBackend;
+import de.bwaldvogel.mongo.MongoServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 100 stock changes on 100 items, as one bulkAdjustQuantity batch and as 100 single calls;
+// scores are adjustments per second. mongoLatencyMs adds a round trip per command through
+// LatencyProxy, which is where the batch's fixed number of commands pays off.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkAdjustmentBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"0", "1"})
+    private long mongoLatencyMs;
+
+    private MongoServer mongo;
+    private LatencyProxy proxy;
+    private ConfigurableApplicationContext context;
+    private LogService logService;
+    private String userId;
+    private final List<String> itemIds = new ArrayList<>();
+    private final List<BulkQuantityRequest.Entry> entries = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws Exception {
+        mongo = new MongoServer(new TestMongoBackend());
+        InetSocketAddress address = mongo.bind();
+        proxy = new LatencyProxy(address, mongoLatencyMs);
+        context = new SpringApplicationBuilder(InventoryManagementApplication.class)
+                .profiles("test")
+                .run("--spring.data.mongodb.uri=mongodb://localhost:" + proxy.getPort() + "/inventory_benchmark",
+                        "--server.port=0", "--management.server.port=-1");
+        logService = context.getBean(LogService.class);
+
+        userId = context.getBean(UserRepository.class)
+                .save(new User("Benchmark User", "benchmark@example.com", "0000000000", "x")).getId();
+        for (int i = 0; i < BATCH; i++) {
+            String itemId = context.getBean(ItemRepository.class)
+                    .save(new Item(userId, "Item " + i, "d", Integer.MAX_VALUE / 2, new BigDecimal("2.50"), 0, "c"))
+                    .getId();
+            itemIds.add(itemId);
+            entries.add(new BulkQuantityRequest.Entry(itemId, -1, "sale"));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        context.close();
+        proxy.close();
+        mongo.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<BulkQuantityResult> bulkAdjust() throws Exception {
+        return logService.adjustQuantities(userId, entries);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int singleCalls() throws Exception {
+        for (String itemId : itemIds) {
+            logService.decreaseQuantity(userId, itemId, 1, "sale");
+        }
+        return itemIds.size();
+    }
+}
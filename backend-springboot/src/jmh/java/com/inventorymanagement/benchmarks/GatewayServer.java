@@ -0,0 +1,119 @@
+package com.inventorymanagement.benchmarks;
+
+import com.inventorymanagement.InventoryManagementApplication;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.ItemRepository;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.security.JwtTokenProvider;
+import com.inventorymanagement.support.TestMongoBackend;
+import de.bwaldvogel.mongo.MongoServer;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.web.server.WebFilter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+// The app in its own JVM for ScannerGatewayBenchmark, so the server and the 10k client sockets
+// each get a process's worth of file descriptors. Args: servlet, servlet-virtual or reactive,
+// then the Tomcat connection limit. Prints "READY <port> <token> <itemId,...>" once it serves,
+// and exits when its parent closes stdin.
+public class GatewayServer {
+
+    static final int ITEMS = 100;
+
+    public static void main(String[] args) throws Exception {
+        String stack = args[0];
+        MongoServer mongo = new MongoServer(new TestMongoBackend());
+        String uri = mongo.bindAndGetConnectionString();
+
+        List<String> profiles = new ArrayList<>(List.of("test"));
+        if (stack.equals("reactive")) {
+            profiles.add("reactive");
+        }
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(InventoryManagementApplication.class,
+                SignedIn.class)
+                .profiles(profiles.toArray(String[]::new))
+                // As arguments, since application.properties would override default properties
+                .run("--spring.data.mongodb.uri=" + uri + "/inventory_gateway",
+                        "--server.port=0",
+                        "--management.server.port=-1",
+                        "--spring.threads.virtual.enabled=" + stack.equals("servlet-virtual"),
+                        "--server.tomcat.max-connections=" + args[1],
+                        "--server.tomcat.max-keep-alive-requests=-1",
+                        // Opening 10k connections takes longer than Tomcat's default idle timeouts
+                        "--server.tomcat.connection-timeout=30m",
+                        "--server.tomcat.keep-alive-timeout=30m");
+
+        String userId = context.getBean(UserRepository.class)
+                .save(new User("Gateway User", "gateway@example.com", "0000000000", "x")).getId();
+        List<String> itemIds = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            itemIds.add(context.getBean(ItemRepository.class)
+                    .save(new Item(userId, "Item " + i, "d", 1000000, new BigDecimal("2.50"), 0, "c")).getId());
+        }
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        System.out.println("READY " + port + " " + context.getBean(JwtTokenProvider.class).generateToken(userId)
+                + " " + String.join(",", itemIds));
+        System.out.flush();
+
+        while (System.in.read() >= 0) {
+            // Held until the benchmark closes the pipe or dies
+        }
+        context.close();
+        mongo.shutdownNow();
+        System.exit(0);
+    }
+
+    // The JWT filters only resolve the user id; /api/** also needs an authentication, which
+    // the tests add the same way
+    @Configuration
+    static class SignedIn {
+
+        @Bean
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+        FilterRegistrationBean<Filter> signedInFilter(JwtTokenProvider tokenProvider) {
+            FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+                String token = ((HttpServletRequest) request).getHeader("authtoken");
+                String userId = token == null ? null : tokenProvider.resolveUserId(token);
+                if (userId != null) {
+                    request.setAttribute(RequestAttributeSecurityContextRepository.DEFAULT_REQUEST_ATTR_NAME,
+                            new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(userId, null, List.of())));
+                }
+                chain.doFilter(request, response);
+            });
+            registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+            return registration;
+        }
+
+        @Bean
+        @Order(-101)
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+        WebFilter signedInWebFilter(JwtTokenProvider tokenProvider) {
+            return (exchange, chain) -> {
+                String token = exchange.getRequest().getHeaders().getFirst("authtoken");
+                String userId = token == null ? null : tokenProvider.resolveUserId(token);
+                if (userId == null) {
+                    return chain.filter(exchange);
+                }
+                return chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                        UsernamePasswordAuthenticationToken.authenticated(userId, null, List.of())));
+            };
+        }
+    }
+}
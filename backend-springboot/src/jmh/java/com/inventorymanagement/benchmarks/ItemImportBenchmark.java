@@ -0,0 +1,134 @@
+package com.inventorymanagement.benchmarks;
+
+import com.inventorymanagement.InventoryManagementApplication;
+import com.inventorymanagement.dto.ImportResult;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.services.ItemImportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// One import of a 100,000-row CSV file per iteration, at a few batch sizes. The score is the
+// time per import; rows per second and the peak heap above the idle application are printed
+// after each one. Mongo runs in a process of its own, so the heap is the app's alone, and the
+// fork's heap is capped to show the import does not need more.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+public class ItemImportBenchmark {
+
+    private static final int ROWS = 100000;
+
+    @Param({"100", "1000", "10000"})
+    private int batchSize;
+
+    private StandaloneMongo.Running mongo;
+    private ConfigurableApplicationContext context;
+    private ItemImportService importService;
+    private String userId;
+    private Path csv;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private Thread sampler;
+    private volatile boolean sampling;
+    private volatile long peakHeap;
+    private long idleHeap;
+    private long started;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mongo = StandaloneMongo.start("2g");
+        context = new SpringApplicationBuilder(InventoryManagementApplication.class)
+                .profiles("test")
+                .run("--spring.data.mongodb.uri=mongodb://localhost:" + mongo.port() + "/inventory_benchmark",
+                        "--server.port=0", "--management.server.port=-1",
+                        "--app.items.import.batch-size=" + batchSize);
+        importService = context.getBean(ItemImportService.class);
+        userId = context.getBean(UserRepository.class)
+                .save(new User("Benchmark User", "benchmark@example.com", "0000000000", "x")).getId();
+
+        csv = Files.createTempFile("items", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+            writer.write("name,description,quantity,price,sold,category\n");
+            for (int i = 0; i < ROWS; i++) {
+                writer.write("Item " + i + ",A description of item " + i + "," + (100 + i % 900) + ",19.99,"
+                        + i % 50 + ",category-" + i % 10 + "\n");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        mongo.stop();
+        Files.deleteIfExists(csv);
+    }
+
+    @Setup(Level.Iteration)
+    public void startSampling() {
+        System.gc();
+        idleHeap = memory.getHeapMemoryUsage().getUsed();
+        peakHeap = idleHeap;
+        sampling = true;
+        sampler = Thread.ofPlatform().daemon(true).start(() -> {
+            while (sampling) {
+                peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        started = System.nanoTime();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopSampling() throws Exception {
+        double seconds = (System.nanoTime() - started) / 1e9;
+        sampling = false;
+        sampler.join();
+        System.out.printf("%n%.0f rows/s, peak heap %d MB above the idle %d MB%n", ROWS / seconds,
+                (peakHeap - idleHeap) >> 20, idleHeap >> 20);
+        context.getBean(MongoTemplate.class).remove(new Query(Criteria.where("userId").is(userId)), Item.class);
+    }
+
+    @Benchmark
+    public ImportResult importCsv() throws Exception {
+        try (InputStream in = Files.newInputStream(csv)) {
+            ImportResult result = importService.importItems(userId, in, ItemImportService.Format.CSV);
+            if (result.getImported() != ROWS) {
+                throw new IllegalStateException("Imported " + result.getImported() + " of " + ROWS);
+            }
+            return result;
+        }
+    }
+}
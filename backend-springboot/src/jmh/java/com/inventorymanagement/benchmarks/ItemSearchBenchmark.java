@@ -0,0 +1,128 @@
+package com.inventorymanagement.benchmarks;
+
+import com.inventorymanagement.InventoryManagementApplication;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.services.ItemSearchIndex;
+import com.inventorymanagement.services.ItemService;
+import com.inventorymanagement.support.TestMongoBackend;
+import de.bwaldvogel.mongo.MongoServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Warm searches over one user's 100,000 items, named from a small catalogue vocabulary plus a
+// part number each. "index" is the ranking alone; "service" adds reading the top 20 back from
+// Mongo, as the endpoint does. The time to build the index on the first search is printed at setup.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ItemSearchBenchmark {
+
+    private static final int ITEMS = 100000;
+    private static final int LIMIT = 20;
+
+    private static final String[] FINISHES = {"galvanized", "stainless", "brass", "copper", "zinc", "black",
+            "chrome", "aluminium", "nylon", "titanium"};
+    private static final String[] KINDS = {"hex", "carriage", "flange", "socket", "wood", "machine", "lag",
+            "shoulder", "eye", "wing"};
+    private static final String[] PARTS = {"bolt", "screw", "nut", "washer", "hinge", "bracket", "anchor",
+            "rivet", "hook", "clamp", "spring", "pin"};
+    private static final String[] CATEGORIES = {"fasteners", "hardware", "fixings", "marine", "automotive"};
+
+    // A word from the vocabulary, a prefix of two, a misspelling, and a part number
+    private static final Map<String, String> QUERIES = Map.of(
+            "exact", "copper hinge",
+            "prefix", "galv brack",
+            "typo", "stainles scerw",
+            "part", "p042137");
+
+    @Param({"exact", "prefix", "typo", "part"})
+    private String query;
+
+    private MongoServer mongo;
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private ItemSearchIndex searchIndex;
+    private String userId;
+    private String text;
+
+    @Setup
+    public void setUp() throws Exception {
+        mongo = new MongoServer(new TestMongoBackend());
+        String uri = mongo.bindAndGetConnectionString();
+        context = new SpringApplicationBuilder(InventoryManagementApplication.class)
+                .profiles("test")
+                .run("--spring.data.mongodb.uri=" + uri + "/inventory_benchmark",
+                        "--server.port=0", "--management.server.port=-1");
+        itemService = context.getBean(ItemService.class);
+        searchIndex = context.getBean(ItemSearchIndex.class);
+        text = QUERIES.get(query);
+
+        userId = context.getBean(UserRepository.class)
+                .save(new User("Benchmark User", "benchmark@example.com", "0000000000", "x")).getId();
+        MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+        Random random = new Random(42);
+        List<Item> batch = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            String name = pick(random, FINISHES) + " " + pick(random, KINDS) + " " + pick(random, PARTS)
+                    + " " + String.format("p%06d", i);
+            String description = "Sold by the box, " + pick(random, FINISHES) + " finish, for "
+                    + pick(random, CATEGORIES) + " use";
+            batch.add(new Item(userId, name, description, random.nextInt(1000), new BigDecimal("0.45"), 0,
+                    pick(random, CATEGORIES)));
+            if (batch.size() == 1000) {
+                mongoTemplate.insert(batch, Item.class);
+                batch.clear();
+            }
+        }
+
+        long start = System.nanoTime();
+        searchIndex.search(userId, text, LIMIT);
+        System.out.printf("%nIndex of %d items built in %d ms%n", ITEMS,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        mongo.shutdownNow();
+    }
+
+    @Benchmark
+    public List<String> index() {
+        return searchIndex.search(userId, text, LIMIT);
+    }
+
+    @Benchmark
+    public List<Item> service() throws Exception {
+        return itemService.searchItems(userId, text, LIMIT);
+    }
+
+    private static String pick(Random random, String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+}
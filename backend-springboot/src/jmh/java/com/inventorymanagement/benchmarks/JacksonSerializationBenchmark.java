@@ -0,0 +1,72 @@
+package com.inventorymanagement.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventorymanagement.config.JacksonConfig;
+import com.inventorymanagement.dto.ApiResponse;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.Log;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Response bodies through the application's ObjectMapper
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JacksonSerializationBenchmark {
+
+    private ObjectMapper mapper;
+    private Item item;
+    private Log log;
+    private ApiResponse itemList;
+
+    @Setup
+    public void setUp() {
+        mapper = new JacksonConfig().objectMapper();
+
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Item next = new Item("65f1c0ffee0000000000beef", "Item " + i, "A description of item " + i,
+                    100 + i, new BigDecimal("19.99"), i, "category-" + (i % 10));
+            next.setId(String.format("65f1c0ffee00000000%06d", i));
+            next.setSoldPrice(new BigDecimal("19.99").multiply(BigDecimal.valueOf(i)));
+            next.setVersion((long) i);
+            items.add(next);
+        }
+        item = items.get(0);
+        log = new Log("65f1c0ffee0000000001beef", "65f1c0ffee0000000000beef", items.get(0).getId(),
+                "Decrease Quantity", 3, "Sold at the counter", LocalDateTime.of(2026, 1, 15, 10, 30));
+        itemList = new ApiResponse("Items retrieved", true, items);
+    }
+
+    @Benchmark
+    public byte[] item() throws Exception {
+        return mapper.writeValueAsBytes(item);
+    }
+
+    @Benchmark
+    public byte[] log() throws Exception {
+        return mapper.writeValueAsBytes(log);
+    }
+
+    @Benchmark
+    public byte[] apiResponseWith100Items() throws Exception {
+        return mapper.writeValueAsBytes(itemList);
+    }
+}
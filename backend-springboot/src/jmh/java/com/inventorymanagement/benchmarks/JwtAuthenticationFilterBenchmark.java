@@ -0,0 +1,61 @@
+package com.inventorymanagement.benchmarks;
+
+import com.inventorymanagement.security.JwtAuthenticationFilter;
+import com.inventorymanagement.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// The per-request filter: a known token, a forged one and none at all
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"valid", "forged", "none"})
+    public String token;
+
+    private JwtAuthenticationFilter filter;
+    private String header;
+
+    @Setup
+    public void setUp() {
+        JwtTokenProvider tokenProvider = JwtTokenProviderBenchmark.newTokenProvider();
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "tokenProvider", tokenProvider);
+
+        String valid = tokenProvider.generateToken("65f1c0ffee0000000000beef");
+        header = switch (token) {
+            case "valid" -> valid;
+            case "forged" -> valid.substring(0, valid.length() - 4) + "AAAA";
+            default -> null;
+        };
+    }
+
+    @Benchmark
+    public Object doFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/item/getItemsByUser");
+        if (header != null) {
+            request.addHeader("authtoken", header);
+        }
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return request.getAttribute("userId");
+    }
+}
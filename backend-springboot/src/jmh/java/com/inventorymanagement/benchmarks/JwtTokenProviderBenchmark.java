@@ -0,0 +1,78 @@
+package com.inventorymanagement.benchmarks;
+
+import com.inventorymanagement.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Signing, full verification, and the cached lookup every authenticated request goes through.
+// perRequestBeforeCaching is what the filter used to do per request, for comparison: build the
+// key and a parser, verify, then build both again and parse the token a second time for its user.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private JwtTokenProvider tokenProvider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = newTokenProvider();
+        token = tokenProvider.generateToken("65f1c0ffee0000000000beef");
+        tokenProvider.resolveUserId(token);
+    }
+
+    static JwtTokenProvider newTokenProvider() {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpirationMs", 3600000L);
+        ReflectionTestUtils.setField(provider, "tokenCacheMaxSize", 10000L);
+        ReflectionTestUtils.setField(provider, "meterRegistry", new SimpleMeterRegistry());
+        provider.init();
+        return provider;
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenProvider.generateToken("65f1c0ffee0000000000beef");
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public String resolveCachedUserId() {
+        return tokenProvider.resolveUserId(token);
+    }
+
+    @Benchmark
+    public String perRequestBeforeCaching() {
+        Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes())).build().parseSignedClaims(token);
+        Claims claims = Jwts.parser().verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                .parseSignedClaims(token).getPayload();
+        return (String) ((Map<?, ?>) claims.get("user")).get("id");
+    }
+}
@@ -0,0 +1,172 @@
+package com.inventorymanagement.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sits between the app and the in-memory Mongo and holds every reply for a fixed time, standing
+// in for the round trip to a real server: the driver only has one command in flight per
+// connection, so the time is added once per command. Also tracks how many commands are in
+// flight at once. One thread per direction per connection, and one to pace the replies: virtual
+// by default, platform for benchmarks that measure the app's own virtual-thread scheduler.
+public class LatencyProxy implements AutoCloseable {
+
+    private final InetSocketAddress target;
+    private final long latencyNanos;
+    private final Thread.Builder threads;
+    private final ServerSocket server;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public LatencyProxy(InetSocketAddress target, long latencyMs) throws IOException {
+        this(target, latencyMs, Thread.ofVirtual());
+    }
+
+    public LatencyProxy(InetSocketAddress target, long latencyMs, Thread.Builder threads) throws IOException {
+        this.target = target;
+        this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(latencyMs);
+        this.threads = threads;
+        this.server = new ServerSocket(0, 1000);
+        threads.start(this::accept);
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    // The most commands in flight at once since the last call
+    public int takeMaxInFlight() {
+        return maxInFlight.getAndSet(inFlight.get());
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket client = server.accept();
+                Socket mongo = new Socket(target.getAddress(), target.getPort());
+                client.setTcpNoDelay(true);
+                mongo.setTcpNoDelay(true);
+                BlockingQueue<Chunk> replies = new LinkedBlockingQueue<>();
+                threads.start(() -> forwardCommands(client, mongo));
+                threads.start(() -> readReplies(mongo, replies));
+                threads.start(() -> sendReplies(replies, client, mongo));
+            } catch (IOException e) {
+                // Closed
+            }
+        }
+    }
+
+    private void forwardCommands(Socket client, Socket mongo) {
+        byte[] buffer = new byte[64 * 1024];
+        Messages commands = new Messages();
+        try (InputStream in = client.getInputStream(); OutputStream out = mongo.getOutputStream()) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                int started = commands.ended(buffer, read);
+                if (started > 0) {
+                    maxInFlight.accumulateAndGet(inFlight.addAndGet(started), Math::max);
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            // Either side went away
+        }
+        closeQuietly(mongo);
+    }
+
+    private void readReplies(Socket mongo, BlockingQueue<Chunk> replies) {
+        byte[] buffer = new byte[64 * 1024];
+        Messages messages = new Messages();
+        try (InputStream in = mongo.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                replies.add(new Chunk(Arrays.copyOf(buffer, read), messages.ended(buffer, read),
+                        System.nanoTime() + latencyNanos));
+            }
+        } catch (IOException e) {
+            // Either side went away
+        }
+        replies.add(new Chunk(null, 0, 0));
+    }
+
+    // Paced on arrival time, so a reply read in several chunks is only delayed once
+    private void sendReplies(BlockingQueue<Chunk> replies, Socket client, Socket mongo) {
+        try (OutputStream out = client.getOutputStream()) {
+            while (true) {
+                Chunk chunk = replies.take();
+                if (chunk.bytes() == null) {
+                    break;
+                }
+                long wait = chunk.due() - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                inFlight.addAndGet(-chunk.replies());
+                out.write(chunk.bytes());
+            }
+        } catch (IOException | InterruptedException e) {
+            // Either side went away
+        }
+        closeQuietly(client);
+        closeQuietly(mongo);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    private record Chunk(byte[] bytes, int replies, long due) {
+    }
+
+    // Finds message boundaries in a byte stream from the little-endian length each message starts with
+    private static class Messages {
+        private final byte[] header = new byte[4];
+        private int headerRead;
+        private long remaining;
+
+        // How many messages end within these bytes
+        int ended(byte[] bytes, int length) {
+            int ended = 0;
+            int i = 0;
+            while (i < length) {
+                if (remaining == 0) {
+                    header[headerRead++] = bytes[i++];
+                    if (headerRead == 4) {
+                        headerRead = 0;
+                        remaining = (header[0] & 0xff | (header[1] & 0xff) << 8 | (header[2] & 0xff) << 16
+                                | (header[3] & 0xff) << 24) - 4L;
+                        if (remaining <= 0) {
+                            remaining = 0;
+                            ended++;
+                        }
+                    }
+                } else {
+                    int step = (int) Math.min(remaining, length - i);
+                    i += step;
+                    remaining -= step;
+                    if (remaining == 0) {
+                        ended++;
+                    }
+                }
+            }
+            return ended;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.inventorymanagement.benchmarks;
+
+import com.inventorymanagement.InventoryManagementApplication;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.Log;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.ItemRepository;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.services.LogService;
+import com.inventorymanagement.support.TestMongoBackend;
+import de.bwaldvogel.mongo.MongoServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// The whole stock-decrease path, from the service through the driver, against the in-memory
+// Mongo the tests use. Absolute numbers are dominated by that stand-in; compare runs, not servers.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogServiceBenchmark {
+
+    private MongoServer mongo;
+    private ConfigurableApplicationContext context;
+    private LogService logService;
+    private String userId;
+    private String itemId;
+
+    @Setup
+    public void setUp() {
+        mongo = new MongoServer(new TestMongoBackend());
+        String uri = mongo.bindAndGetConnectionString();
+        context = new SpringApplicationBuilder(InventoryManagementApplication.class)
+                .profiles("test")
+                .properties("spring.data.mongodb.uri=" + uri + "/inventory_benchmark", "server.port=0")
+                .run();
+        logService = context.getBean(LogService.class);
+
+        userId = context.getBean(UserRepository.class)
+                .save(new User("Benchmark User", "benchmark@example.com", "0000000000", "x")).getId();
+        itemId = context.getBean(ItemRepository.class)
+                .save(new Item(userId, "Widget", "d", Integer.MAX_VALUE / 2, new BigDecimal("2.50"), 0, "c"))
+                .getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        mongo.shutdownNow();
+    }
+
+    @Benchmark
+    public Log decreaseQuantity() throws Exception {
+        return logService.decreaseQuantity(userId, itemId, 1, "sale");
+    }
+}
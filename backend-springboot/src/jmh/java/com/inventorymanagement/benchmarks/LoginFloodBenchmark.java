@@ -0,0 +1,120 @@
+package com.inventorymanagement.benchmarks;
+
+import com.inventorymanagement.InventoryManagementApplication;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.repositories.ItemRepository;
+import com.inventorymanagement.services.ItemService;
+import com.inventorymanagement.services.UserService;
+import com.inventorymanagement.support.TestMongoBackend;
+import de.bwaldvogel.mongo.MongoServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Inventory reads (getItem, one Mongo read each) while FLOOD_THREADS keep sending logins with
+// a wrong password, each a real BCrypt compare. "bounded" is the default hashing pool (half the
+// cores); "unbounded" gives the pool a thread per flooding request, as when BCrypt ran on the
+// request threads; "none" has no flood. Compare the inventory p99 across the three. Logins go
+// straight to UserService: a flood spread over many addresses and emails gets past the rate
+// limits, and the hashing pool is what is left.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(4)
+@Fork(1)
+public class LoginFloodBenchmark {
+
+    private static final int FLOOD_THREADS = 16;
+
+    @Param({"none", "bounded", "unbounded"})
+    private String flood;
+
+    private MongoServer mongo;
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private String userId;
+    private String itemId;
+    private final List<Thread> flooders = new ArrayList<>();
+    private volatile boolean flooding = true;
+
+    @Setup
+    public void setUp() throws Exception {
+        mongo = new MongoServer(new TestMongoBackend());
+        String uri = mongo.bindAndGetConnectionString();
+        List<String> args = new ArrayList<>(List.of("--spring.data.mongodb.uri=" + uri + "/inventory_benchmark",
+                "--server.port=0", "--management.server.port=-1"));
+        if (flood.equals("unbounded")) {
+            args.add("--app.password.hash-threads=" + FLOOD_THREADS);
+        }
+        context = new SpringApplicationBuilder(InventoryManagementApplication.class)
+                .profiles("test")
+                .run(args.toArray(String[]::new));
+        itemService = context.getBean(ItemService.class);
+
+        UserService userService = context.getBean(UserService.class);
+        userId = userService.registerUser("Benchmark User", "benchmark@example.com", "0000000000", "correct horse").getId();
+        itemId = context.getBean(ItemRepository.class)
+                .save(new Item(userId, "Widget", "d", 10, new BigDecimal("2.50"), 0, "c")).getId();
+
+        if (flood.equals("none")) {
+            return;
+        }
+        for (int i = 0; i < FLOOD_THREADS; i++) {
+            flooders.add(Thread.ofPlatform().daemon(true).start(() -> {
+                while (flooding) {
+                    try {
+                        userService.loginUser("benchmark@example.com", "wrong password");
+                    } catch (RejectedExecutionException e) {
+                        // Answered with a 429; the next request follows after a round trip
+                        sleepQuietly();
+                    } catch (Exception e) {
+                        // Invalid Password
+                    }
+                }
+            }));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        flooding = false;
+        for (Thread flooder : flooders) {
+            flooder.join();
+        }
+        context.close();
+        mongo.shutdownNow();
+    }
+
+    @Benchmark
+    public Item getItem() throws Exception {
+        return itemService.getItem(userId, itemId);
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
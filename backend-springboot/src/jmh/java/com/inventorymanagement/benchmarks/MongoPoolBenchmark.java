@@ -0,0 +1,139 @@
+package com.inventorymanagement.benchmarks;
+
+import com.inventorymanagement.InventoryManagementApplication;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.Log;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.ItemRepository;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.services.LogService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataAccessException;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stock changes from THREADS request threads at a few app.mongo.pool.max-size values, against
+// Mongo in its own process behind LatencyProxy, so each command holds its connection for a
+// round trip. A change is several commands (item, summary, log bucket, version). Below THREADS
+// connections the threads queue for the pool; the score is the time per change, and each
+// iteration prints the mean wait for a connection from mongodb.driver.pool.checkout and how many
+// changes failed after app.mongo.pool.max-wait-ms without one.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(MongoPoolBenchmark.THREADS)
+@Fork(1)
+public class MongoPoolBenchmark {
+
+    static final int THREADS = 64;
+    private static final int ITEMS = 100;
+
+    @Param({"8", "16", "32", "64"})
+    private int poolMaxSize;
+
+    @Param("20")
+    private long mongoLatencyMs;
+
+    private StandaloneMongo.Running mongo;
+    private LatencyProxy proxy;
+    private ConfigurableApplicationContext context;
+    private LogService logService;
+    private MeterRegistry meterRegistry;
+    private String userId;
+    private final String[] itemIds = new String[ITEMS];
+    private final AtomicLong failures = new AtomicLong();
+    private double waitedMs;
+    private long checkouts;
+    private long failedCheckouts;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mongo = StandaloneMongo.start("1g");
+        proxy = new LatencyProxy(new InetSocketAddress("localhost", mongo.port()), mongoLatencyMs);
+        context = new SpringApplicationBuilder(InventoryManagementApplication.class)
+                .profiles("test")
+                .run("--spring.data.mongodb.uri=mongodb://localhost:" + proxy.getPort() + "/inventory_benchmark",
+                        "--server.port=0", "--management.server.port=-1",
+                        "--app.mongo.pool.max-size=" + poolMaxSize,
+                        "--app.mongo.pool.min-size=" + Math.min(5, poolMaxSize));
+        logService = context.getBean(LogService.class);
+        meterRegistry = context.getBean(MeterRegistry.class);
+
+        userId = context.getBean(UserRepository.class)
+                .save(new User("Benchmark User", "benchmark@example.com", "0000000000", "x")).getId();
+        for (int i = 0; i < ITEMS; i++) {
+            itemIds[i] = context.getBean(ItemRepository.class)
+                    .save(new Item(userId, "Item " + i, "d", 0, new BigDecimal("2.50"), 0, "c")).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        context.close();
+        proxy.close();
+        mongo.stop();
+    }
+
+    @Setup(Level.Iteration)
+    public void snapshot() {
+        failures.set(0);
+        waitedMs = checkoutMillis();
+        checkouts = checkoutCount("acquired");
+        failedCheckouts = checkoutCount("failed");
+        proxy.takeMaxInFlight();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long acquired = checkoutCount("acquired") - checkouts;
+        System.out.printf("%npool %d: %.2f ms mean wait for a connection over %d checkouts, %d checkouts "
+                        + "and %d changes failed, %d Mongo commands in flight at most%n", poolMaxSize,
+                acquired == 0 ? 0 : (checkoutMillis() - waitedMs) / acquired, acquired,
+                checkoutCount("failed") - failedCheckouts, failures.get(), proxy.takeMaxInFlight());
+    }
+
+    @Benchmark
+    public Log increaseQuantity() throws Exception {
+        try {
+            return logService.increaseQuantity(userId, itemIds[ThreadLocalRandom.current().nextInt(ITEMS)], 1,
+                    "restock");
+        } catch (DataAccessException e) {
+            // No connection within max-wait-ms
+            failures.incrementAndGet();
+            return null;
+        }
+    }
+
+    private double checkoutMillis() {
+        return meterRegistry.find("mongodb.driver.pool.checkout").tag("outcome", "acquired").timers().stream()
+                .mapToDouble(timer -> timer.totalTime(TimeUnit.MILLISECONDS)).sum();
+    }
+
+    private long checkoutCount(String outcome) {
+        return meterRegistry.find("mongodb.driver.pool.checkout").tag("outcome", outcome).timers().stream()
+                .mapToLong(Timer::count).sum();
+    }
+}
@@ -0,0 +1,84 @@
+package com.inventorymanagement.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventorymanagement.config.JacksonConfig;
+import com.inventorymanagement.dto.ApiResponse;
+import com.inventorymanagement.models.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// A 10,000-item list response as JSON and as CBOR, through the mappers JacksonConfig gives the
+// two converters, with and without the gzip that server.compression adds. Scores are the CPU
+// time per response; the body sizes are printed at setup.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    private static final int ITEMS = 10000;
+
+    @Param({"json", "cbor"})
+    private String format;
+
+    private ObjectMapper mapper;
+    private ApiResponse itemList;
+
+    @Setup
+    public void setUp() throws Exception {
+        JacksonConfig config = new JacksonConfig();
+        mapper = format.equals("cbor") ? config.cborHttpMessageConverter().getObjectMapper() : config.objectMapper();
+
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            Item next = new Item("65f1c0ffee0000000000beef", "Item " + i, "A description of item " + i,
+                    100 + i, new BigDecimal("19.99"), i, "category-" + (i % 10));
+            next.setId(String.format("65f1c0ffee00000000%06d", i));
+            next.setSoldPrice(new BigDecimal("19.99").multiply(BigDecimal.valueOf(i)));
+            items.add(next);
+        }
+        itemList = new ApiResponse("Items retrieved", true, items);
+
+        byte[] body = encode();
+        System.out.printf("%n%s body for %d items: %d bytes, %d gzipped%n", format, ITEMS, body.length,
+                gzip(body).length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        return mapper.writeValueAsBytes(itemList);
+    }
+
+    @Benchmark
+    public byte[] encodeAndGzip() throws Exception {
+        return gzip(mapper.writeValueAsBytes(itemList));
+    }
+
+    // Deflate's default level, as Tomcat's compression uses
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
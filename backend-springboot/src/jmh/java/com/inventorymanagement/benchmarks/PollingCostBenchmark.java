@@ -0,0 +1,206 @@
+package com.inventorymanagement.benchmarks;
+
+import com.inventorymanagement.InventoryManagementApplication;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.ItemRepository;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.security.JwtTokenProvider;
+import com.inventorymanagement.services.LogService;
+import com.inventorymanagement.support.TestMongoBackend;
+import de.bwaldvogel.mongo.MongoServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// A client polling for changes that have not happened, over a keep-alive socket to the servlet
+// stack with gzip accepted, as a browser sends it: "full" asks without a validator and gets the
+// whole 200 each time, "revalidate" sends If-None-Match with the last ETag and gets a 304. The
+// user has ITEMS items, and one of them LOGS moves for getLogs. Scores are requests per second;
+// each iteration prints the bytes received and the CPU of Tomcat's request threads per request.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PollingCostBenchmark {
+
+    private static final int ITEMS = 1000;
+    private static final int LOGS = 1000;
+
+    @Param({"getItemsByUser", "getLogs"})
+    private String endpoint;
+
+    @Param({"full", "revalidate"})
+    private String polling;
+
+    private MongoServer mongo;
+    private ConfigurableApplicationContext context;
+    private Socket socket;
+    private InputStream in;
+    private OutputStream out;
+    private final byte[] buffer = new byte[64 * 1024];
+    private byte[] request;
+    private String expectedStatus;
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private Map<Long, Long> cpuAtStart;
+    private long requests;
+    private long bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mongo = new MongoServer(new TestMongoBackend());
+        context = new SpringApplicationBuilder(InventoryManagementApplication.class, GatewayServer.SignedIn.class)
+                .profiles("test")
+                .run("--spring.data.mongodb.uri=" + mongo.bindAndGetConnectionString() + "/inventory_polling",
+                        "--server.port=0", "--management.server.port=-1",
+                        "--server.tomcat.max-keep-alive-requests=-1");
+
+        String userId = context.getBean(UserRepository.class)
+                .save(new User("Polling User", "polling@example.com", "0000000000", "x")).getId();
+        String itemId = null;
+        for (int i = 0; i < ITEMS; i++) {
+            itemId = context.getBean(ItemRepository.class)
+                    .save(new Item(userId, "Item " + i, "A description of item " + i, 1000, new BigDecimal("2.50"),
+                            0, "category-" + i % 10)).getId();
+        }
+        LogService logService = context.getBean(LogService.class);
+        for (int i = 0; i < LOGS; i++) {
+            logService.increaseQuantity(userId, itemId, 1, "restock");
+        }
+        String token = context.getBean(JwtTokenProvider.class).generateToken(userId);
+
+        socket = new Socket("localhost", ((WebServerApplicationContext) context).getWebServer().getPort());
+        socket.setTcpNoDelay(true);
+        in = socket.getInputStream();
+        out = socket.getOutputStream();
+
+        String path = endpoint.equals("getLogs") ? "/api/item/getLogs/" + itemId : "/api/item/getItemsByUser";
+        String headers = "GET " + path + " HTTP/1.1\r\nHost: localhost\r\nAccept: application/json\r\n"
+                + "Accept-Encoding: gzip\r\nauthtoken: " + token + "\r\n";
+        request = (headers + "\r\n").getBytes(StandardCharsets.US_ASCII);
+        // Also warms the item cache, so both modes start from the same state
+        String etag = header(exchange(), "etag");
+        if (polling.equals("revalidate")) {
+            request = (headers + "If-None-Match: " + etag + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            expectedStatus = "HTTP/1.1 304";
+        } else {
+            expectedStatus = "HTTP/1.1 200";
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        socket.close();
+        context.close();
+        mongo.shutdownNow();
+    }
+
+    @Setup(Level.Iteration)
+    public void startCounting() {
+        requests = 0;
+        bytes = 0;
+        cpuAtStart = requestThreadCpu();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long cpuNanos = 0;
+        for (Map.Entry<Long, Long> thread : requestThreadCpu().entrySet()) {
+            cpuNanos += thread.getValue() - cpuAtStart.getOrDefault(thread.getKey(), 0L);
+        }
+        System.out.printf("%n%s, %s: %d bytes and %.1f us of request-thread CPU per request%n", endpoint, polling,
+                bytes / Math.max(1, requests), cpuNanos / 1000.0 / Math.max(1, requests));
+    }
+
+    @Benchmark
+    public int poll() throws IOException {
+        String response = exchange();
+        if (!response.startsWith(expectedStatus)) {
+            throw new IllegalStateException("Expected " + expectedStatus + ", got "
+                    + response.substring(0, response.indexOf("\r\n")));
+        }
+        requests++;
+        bytes += response.length();
+        return response.length();
+    }
+
+    // Returns the whole response, one char per byte
+    private String exchange() throws IOException {
+        out.write(request);
+        StringBuilder received = new StringBuilder();
+        while (!complete(received)) {
+            int read = in.read(buffer);
+            if (read < 0) {
+                throw new IOException("Connection closed");
+            }
+            received.append(new String(buffer, 0, read, StandardCharsets.ISO_8859_1));
+        }
+        return received.toString();
+    }
+
+    // One response in flight, so its end is the end of what was read
+    private static boolean complete(StringBuilder received) {
+        int headerEnd = received.indexOf("\r\n\r\n");
+        if (headerEnd < 0) {
+            return false;
+        }
+        String headers = received.substring(0, headerEnd + 4).toLowerCase(Locale.ROOT);
+        if (headers.startsWith("http/1.1 304")) {
+            return true;
+        }
+        String length = header(headers, "content-length");
+        if (length != null) {
+            return received.length() >= headerEnd + 4 + Integer.parseInt(length);
+        }
+        return received.length() > headerEnd + 4 && received.toString().endsWith("\r\n0\r\n\r\n");
+    }
+
+    private static String header(String response, String name) {
+        for (String line : response.substring(0, response.indexOf("\r\n\r\n")).split("\r\n")) {
+            if (line.toLowerCase(Locale.ROOT).startsWith(name + ":")) {
+                return line.substring(name.length() + 1).trim();
+            }
+        }
+        return null;
+    }
+
+    // CPU time so far of each of Tomcat's request threads, by thread id
+    private Map<Long, Long> requestThreadCpu() {
+        Map<Long, Long> cpu = new HashMap<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("http-nio-") && thread.getName().contains("-exec-")) {
+                cpu.put(thread.threadId(), threadBean.getThreadCpuTime(thread.threadId()));
+            }
+        }
+        return cpu;
+    }
+}
@@ -0,0 +1,283 @@
+package com.inventorymanagement.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// A scanner gateway's traffic against each stack: 10k keep-alive connections open at once, and
+// each measured operation is one burst of requests sent together on them, timed until the last
+// response. Reads go out on every connection; quantity changes on WRITES_PER_BURST of them, as
+// the in-memory Mongo stand-in takes ~7 ms per change and would otherwise be all that is measured.
+// The server runs in its own JVM (GatewayServer); each process needs ~10.5k file descriptors.
+// Per iteration the teardown prints the latency percentiles, failures and the server's RSS.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScannerGatewayBenchmark {
+
+    private static final int WRITES_PER_BURST = 500;
+    private static final long BURST_TIMEOUT_MS = 120000;
+
+    @Param({"servlet", "servlet-virtual", "reactive"})
+    private String stack;
+
+    @Param({"getItem", "increaseQuantity"})
+    private String request;
+
+    @Param("10000")
+    private int connections;
+
+    private Process server;
+    private Selector selector;
+    private final List<Connection> open = new ArrayList<>();
+    private String[] itemIds;
+    private String token;
+    private int nextWriter;
+    private long[] latencies;
+    private int completed;
+    private int failed;
+
+    @Setup(Level.Trial)
+    public void startServer() throws Exception {
+        server = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx1g", "-cp", System.getProperty("java.class.path"),
+                GatewayServer.class.getName(), stack, String.valueOf(connections + 100))
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        CompletableFuture<String> ready = new CompletableFuture<>();
+        Thread output = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(server.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("READY ")) {
+                        ready.complete(line);
+                    } else {
+                        System.out.println(line);
+                    }
+                }
+            } catch (IOException e) {
+                // Server gone
+            }
+            ready.completeExceptionally(new IllegalStateException("Gateway server exited"));
+        });
+        output.setDaemon(true);
+        output.start();
+
+        String[] fields = ready.get(3, TimeUnit.MINUTES).split(" ");
+        int port = Integer.parseInt(fields[1]);
+        token = fields[2];
+        itemIds = fields[3].split(",");
+
+        selector = Selector.open();
+        InetSocketAddress address = new InetSocketAddress("localhost", port);
+        // In batches, so the handshakes never overrun the server's accept backlog
+        for (int opened = 0; opened < connections; opened += 500) {
+            List<SocketChannel> batch = new ArrayList<>();
+            for (int i = opened; i < Math.min(connections, opened + 500); i++) {
+                SocketChannel channel = SocketChannel.open(address);
+                channel.configureBlocking(false);
+                batch.add(channel);
+            }
+            for (SocketChannel channel : batch) {
+                Connection connection = new Connection(channel, open.size());
+                channel.register(selector, SelectionKey.OP_READ, connection);
+                open.add(connection);
+            }
+        }
+        System.out.printf("%n%s: %d connections open, server RSS %d MB%n", stack, open.size(), serverRssMb());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws Exception {
+        System.out.printf("%n%s: server RSS %d MB after the run%n", stack, serverRssMb());
+        for (Connection connection : open) {
+            connection.channel.close();
+        }
+        selector.close();
+        server.getOutputStream().close();
+        if (!server.waitFor(30, TimeUnit.SECONDS)) {
+            server.destroyForcibly();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounts() {
+        latencies = new long[connections];
+        completed = 0;
+        failed = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long[] sorted = Arrays.copyOf(latencies, completed);
+        Arrays.sort(sorted);
+        System.out.printf("%n%s %s: %d ok, %d failed, p50 %d ms, p99 %d ms, max %d ms%n", stack, request,
+                completed, failed, percentile(sorted, 50), percentile(sorted, 99), percentile(sorted, 100));
+    }
+
+    @Benchmark
+    public int burst() throws Exception {
+        List<Connection> senders = request.equals("getItem") ? open : writers();
+        int pending = 0;
+        for (Connection connection : senders) {
+            try {
+                connection.send(request(connection));
+                pending++;
+            } catch (IOException e) {
+                connection.sentAt = 0;
+                failed++;
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BURST_TIMEOUT_MS);
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        while (pending > 0 && System.nanoTime() < deadline) {
+            selector.select(100);
+            for (SelectionKey key : selector.selectedKeys()) {
+                Connection connection = (Connection) key.attachment();
+                buffer.clear();
+                int read;
+                try {
+                    read = connection.channel.read(buffer);
+                } catch (IOException e) {
+                    read = -1;
+                }
+                if (read < 0) {
+                    key.cancel();
+                    if (connection.sentAt != 0) {
+                        connection.sentAt = 0;
+                        failed++;
+                        pending--;
+                    }
+                    continue;
+                }
+                connection.received.append(new String(buffer.array(), 0, read, StandardCharsets.ISO_8859_1));
+                if (connection.sentAt != 0 && connection.responseComplete()) {
+                    if (connection.received.indexOf("HTTP/1.1 200") == 0) {
+                        latencies[completed++] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connection.sentAt);
+                    } else {
+                        failed++;
+                    }
+                    connection.sentAt = 0;
+                    connection.received.setLength(0);
+                    pending--;
+                }
+            }
+            selector.selectedKeys().clear();
+        }
+        failed += pending;
+        for (Connection connection : senders) {
+            connection.sentAt = 0;
+            connection.received.setLength(0);
+        }
+        return completed;
+    }
+
+    private List<Connection> writers() {
+        List<Connection> writers = new ArrayList<>(WRITES_PER_BURST);
+        for (int i = 0; i < WRITES_PER_BURST; i++) {
+            writers.add(open.get(nextWriter));
+            nextWriter = (nextWriter + 1) % open.size();
+        }
+        return writers;
+    }
+
+    private byte[] request(Connection connection) {
+        String itemId = itemIds[connection.index % itemIds.length];
+        String head;
+        if (request.equals("getItem")) {
+            head = "GET /api/item/getItem/" + itemId + " HTTP/1.1\r\n";
+            return (head + "Host: localhost\r\nauthtoken: " + token + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        }
+        String body = "{\"quantity\":1,\"description\":\"scan\"}";
+        head = "POST /api/log/increaseQuantity/" + itemId + " HTTP/1.1\r\n";
+        return (head + "Host: localhost\r\nauthtoken: " + token + "\r\nContent-Type: application/json\r\n"
+                + "Content-Length: " + body.length() + "\r\n\r\n" + body).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private long serverRssMb() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", String.valueOf(server.pid()), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) / 1024;
+                }
+            }
+        } catch (IOException e) {
+            // Not Linux
+        }
+        return -1;
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return -1;
+        }
+        return sorted[Math.max(0, (int) Math.ceil(sorted.length * percent / 100.0) - 1)];
+    }
+
+    private static class Connection {
+        private final SocketChannel channel;
+        private final int index;
+        private final StringBuilder received = new StringBuilder();
+        private long sentAt;
+
+        Connection(SocketChannel channel, int index) {
+            this.channel = channel;
+            this.index = index;
+        }
+
+        void send(byte[] request) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(request);
+            sentAt = System.nanoTime();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        // One response in flight per connection, so its end is the end of the buffer
+        boolean responseComplete() {
+            int headerEnd = received.indexOf("\r\n\r\n");
+            if (headerEnd < 0) {
+                return false;
+            }
+            String headers = received.substring(0, headerEnd).toLowerCase();
+            int length = headers.indexOf("content-length:");
+            if (length >= 0) {
+                int end = headers.indexOf("\r\n", length);
+                String value = headers.substring(length + 15, end < 0 ? headers.length() : end).trim();
+                return received.length() >= headerEnd + 4 + Integer.parseInt(value);
+            }
+            return received.toString().endsWith("\r\n0\r\n\r\n");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.inventorymanagement.benchmarks;
+
+import com.inventorymanagement.support.TestMongoBackend;
+import de.bwaldvogel.mongo.MongoServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// The in-memory Mongo in a JVM of its own, for benchmarks that measure the app's heap and must
+// not count the stored documents. Prints "READY <port>" and exits when its parent closes stdin.
+public class StandaloneMongo {
+
+    public static void main(String[] args) throws Exception {
+        MongoServer mongo = new MongoServer(new TestMongoBackend());
+        System.out.println("READY " + mongo.bind().getPort());
+        System.out.flush();
+
+        while (System.in.read() >= 0) {
+            // Held until the benchmark closes the pipe or dies
+        }
+        mongo.shutdownNow();
+        System.exit(0);
+    }
+
+    // Starts one and returns once it listens
+    static Running start(String maxHeap) throws IOException {
+        Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx" + maxHeap, "-cp", System.getProperty("java.class.path"), StandaloneMongo.class.getName())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("READY ")) {
+                return new Running(process, Integer.parseInt(line.substring(6).trim()));
+            }
+        }
+        throw new IllegalStateException("Mongo process exited");
+    }
+
+    record Running(Process process, int port) {
+
+        void stop() throws InterruptedException {
+            process.destroy();
+            process.waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+}
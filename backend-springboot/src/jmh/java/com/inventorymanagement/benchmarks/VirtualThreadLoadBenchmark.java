@@ -0,0 +1,257 @@
+package com.inventorymanagement.benchmarks;
+
+import com.inventorymanagement.InventoryManagementApplication;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.ItemRepository;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.security.JwtTokenProvider;
+import com.inventorymanagement.support.TestMongoBackend;
+import de.bwaldvogel.mongo.MongoServer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Platform against virtual request threads on the servlet stack, with every getItem waiting on a
+// slow Mongo (LatencyProxy holds each reply for mongoLatencyMs; a getItem makes a few commands).
+// Closed loop: each of the `concurrency` keep-alive clients sends its next request as soon as the
+// last one is answered. The score to read is "responses" per second. Each iteration prints p50/p99
+// and whether the concurrency was sustained: no failures and p99 within SUSTAINED_P99_MS. The
+// highest sustained concurrency per mode is its max sustained concurrency. Mongo's pool is raised
+// above every concurrency tried, so the request threads are the only cap besides the CPU.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class VirtualThreadLoadBenchmark {
+
+    private static final long SUSTAINED_P99_MS = 500;
+    private static final int MONGO_POOL = 5000;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"10", "25", "50", "100", "200", "400"})
+    private int concurrency;
+
+    @Param("50")
+    private long mongoLatencyMs;
+
+    private MongoServer mongo;
+    private LatencyProxy proxy;
+    private ConfigurableApplicationContext context;
+    private InetSocketAddress address;
+    private Selector selector;
+    private final List<Connection> open = new ArrayList<>();
+    private String[] itemIds;
+    private String token;
+    private long[] latencies;
+    private int recorded;
+    private int failed;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long responses;
+        public long failures;
+
+        // JMH leaves clearing the counters between iterations to the state
+        @Setup(Level.Iteration)
+        public void clear() {
+            responses = 0;
+            failures = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mongo = new MongoServer(new TestMongoBackend());
+        // On platform threads, so the proxy never waits on the scheduler being measured
+        proxy = new LatencyProxy(mongo.bind(), mongoLatencyMs, Thread.ofPlatform().daemon());
+        context = new SpringApplicationBuilder(InventoryManagementApplication.class, GatewayServer.SignedIn.class)
+                .profiles("test")
+                .run("--spring.data.mongodb.uri=mongodb://localhost:" + proxy.getPort() + "/inventory_threads",
+                        "--server.port=0", "--management.server.port=-1",
+                        "--spring.threads.virtual.enabled=" + threads.equals("virtual"),
+                        "--server.tomcat.max-keep-alive-requests=-1",
+                        "--app.mongo.pool.max-size=" + MONGO_POOL,
+                        "--app.mongo.pool.max-connecting=64",
+                        "--app.mongo.pool.max-wait-ms=30000");
+
+        String userId = context.getBean(UserRepository.class)
+                .save(new User("Thread User", "threads@example.com", "0000000000", "x")).getId();
+        itemIds = new String[GatewayServer.ITEMS];
+        for (int i = 0; i < itemIds.length; i++) {
+            itemIds[i] = context.getBean(ItemRepository.class)
+                    .save(new Item(userId, "Item " + i, "d", 1000, new BigDecimal("2.50"), 0, "c")).getId();
+        }
+        token = context.getBean(JwtTokenProvider.class).generateToken(userId);
+
+        selector = Selector.open();
+        address = new InetSocketAddress("localhost", ((WebServerApplicationContext) context).getWebServer().getPort());
+        for (int i = 0; i < concurrency; i++) {
+            Connection connection = connect(i);
+            open.add(connection);
+            connection.send(request(connection));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        for (Connection connection : open) {
+            connection.channel.close();
+        }
+        selector.close();
+        context.close();
+        proxy.close();
+        mongo.shutdownNow();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetLatencies() {
+        latencies = new long[1 << 20];
+        recorded = 0;
+        failed = 0;
+        proxy.takeMaxInFlight();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        long[] sorted = Arrays.copyOf(latencies, recorded);
+        Arrays.sort(sorted);
+        long p99 = percentile(sorted, 99);
+        boolean sustained = failed == 0 && p99 >= 0 && p99 <= SUSTAINED_P99_MS;
+        System.out.printf("%n%s threads, %d concurrent: %d ok, %d failed, p50 %d ms, p99 %d ms, "
+                        + "%d Mongo commands in flight at most, %s%n", threads, concurrency, recorded, failed,
+                percentile(sorted, 50), p99, proxy.takeMaxInFlight(), sustained ? "sustained" : "not sustained");
+    }
+
+    @Benchmark
+    public void getItem(Counters counters) throws Exception {
+        selector.select(100);
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        for (SelectionKey key : selector.selectedKeys()) {
+            Connection connection = (Connection) key.attachment();
+            buffer.clear();
+            int read;
+            try {
+                read = connection.channel.read(buffer);
+            } catch (IOException e) {
+                read = -1;
+            }
+            if (read < 0) {
+                // Closed by the server: counted, and replaced so the concurrency stays the same
+                key.cancel();
+                connection.channel.close();
+                counters.failures++;
+                failed++;
+                Connection replacement = connect(connection.index);
+                open.set(connection.index, replacement);
+                replacement.send(request(replacement));
+                continue;
+            }
+            connection.received.append(new String(buffer.array(), 0, read, StandardCharsets.ISO_8859_1));
+            if (!connection.responseComplete()) {
+                continue;
+            }
+            if (connection.received.indexOf("HTTP/1.1 200") == 0) {
+                counters.responses++;
+                if (recorded < latencies.length) {
+                    latencies[recorded++] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connection.sentAt);
+                }
+            } else {
+                counters.failures++;
+                failed++;
+            }
+            connection.received.setLength(0);
+            connection.send(request(connection));
+        }
+        selector.selectedKeys().clear();
+    }
+
+    private Connection connect(int index) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.configureBlocking(false);
+        Connection connection = new Connection(channel, index);
+        channel.register(selector, SelectionKey.OP_READ, connection);
+        return connection;
+    }
+
+    private byte[] request(Connection connection) {
+        String itemId = itemIds[connection.index % itemIds.length];
+        return ("GET /api/item/getItem/" + itemId + " HTTP/1.1\r\nHost: localhost\r\nauthtoken: " + token
+                + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return -1;
+        }
+        return sorted[Math.max(0, (int) Math.ceil(sorted.length * percent / 100.0) - 1)];
+    }
+
+    private static class Connection {
+        private final SocketChannel channel;
+        private final int index;
+        private final StringBuilder received = new StringBuilder();
+        private long sentAt;
+
+        Connection(SocketChannel channel, int index) {
+            this.channel = channel;
+            this.index = index;
+        }
+
+        void send(byte[] request) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(request);
+            sentAt = System.nanoTime();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        // One response in flight per connection, so its end is the end of the buffer
+        boolean responseComplete() {
+            int headerEnd = received.indexOf("\r\n\r\n");
+            if (headerEnd < 0) {
+                return false;
+            }
+            String headers = received.substring(0, headerEnd).toLowerCase();
+            int length = headers.indexOf("content-length:");
+            if (length >= 0) {
+                int end = headers.indexOf("\r\n", length);
+                String value = headers.substring(length + 15, end < 0 ? headers.length() : end).trim();
+                return received.length() >= headerEnd + 4 + Integer.parseInt(value);
+            }
+            return received.toString().endsWith("\r\n0\r\n\r\n");
+        }
+    }
+}
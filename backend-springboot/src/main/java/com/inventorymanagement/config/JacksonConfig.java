@@ -3,9 +3,11 @@ package com.inventorymanagement.config;
 import org.springframework.stereotype.Component;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 
 @Configuration
 public class JacksonConfig {
@@ -17,4 +19,15 @@ public class JacksonConfig {
         mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         return mapper;
     }
+
+    // Served when the client sends Accept: application/cbor; JSON stays the default. Same field
+    // names and values as the JSON output, so clients only swap the decoder. The mapper is
+    // reached through the converter rather than registered as a second ObjectMapper bean.
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        CBORMapper mapper = new CBORMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return new MappingJackson2CborHttpMessageConverter(mapper);
+    }
 }
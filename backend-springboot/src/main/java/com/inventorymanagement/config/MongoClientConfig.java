@@ -0,0 +1,134 @@
+package com.inventorymanagement.config;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.WriteConcern;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.mongo.MongoConnectionDetails;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Explicit pool, timeout and write-concern settings for the Mongo client, instead of the driver's
+// defaults (no minimum pool, a two-minute wait for a connection, no socket timeout). Any option
+// also given in the connection string keeps the connection string's value.
+//
+// Boot already publishes mongodb.driver.pool.size, .checkedout and .waitqueuesize; this adds
+// mongodb.driver.pool.checkout, the time spent waiting for a connection, so pool exhaustion
+// shows up as latency rather than only as a queue length.
+@Configuration
+public class MongoClientConfig {
+
+    @Autowired
+    private MongoConnectionDetails connectionDetails;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.mongo.pool.min-size:5}")
+    private int minPoolSize;
+
+    @Value("${app.mongo.pool.max-size:100}")
+    private int maxPoolSize;
+
+    // How long a request waits for a free connection before failing
+    @Value("${app.mongo.pool.max-wait-ms:2000}")
+    private long maxWaitMs;
+
+    // Connections being opened at once; caps the connect storm after a failover
+    @Value("${app.mongo.pool.max-connecting:2}")
+    private int maxConnecting;
+
+    @Value("${app.mongo.pool.max-idle-ms:600000}")
+    private long maxIdleMs;
+
+    @Value("${app.mongo.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    // Must outlast the slowest single batch; exports stream in many batches and are not bound by it
+    @Value("${app.mongo.socket-timeout-ms:30000}")
+    private int socketTimeoutMs;
+
+    @Value("${app.mongo.server-selection-timeout-ms:5000}")
+    private long serverSelectionTimeoutMs;
+
+    // Any WriteConcern constant name: MAJORITY, W1, JOURNALED, ...
+    @Value("${app.mongo.write-concern:MAJORITY}")
+    private String writeConcern;
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoClientTuning() {
+        ConnectionString uri = connectionDetails.getConnectionString();
+        WriteConcern concern = WriteConcern.valueOf(writeConcern);
+        if (concern == null) {
+            throw new IllegalArgumentException("Unknown app.mongo.write-concern " + writeConcern);
+        }
+
+        return builder -> {
+            builder.applyToConnectionPoolSettings(pool -> {
+                if (uri.getMinConnectionPoolSize() == null) {
+                    pool.minSize(minPoolSize);
+                }
+                if (uri.getMaxConnectionPoolSize() == null) {
+                    pool.maxSize(maxPoolSize);
+                }
+                if (uri.getMaxWaitTime() == null) {
+                    pool.maxWaitTime(maxWaitMs, TimeUnit.MILLISECONDS);
+                }
+                if (uri.getMaxConnecting() == null) {
+                    pool.maxConnecting(maxConnecting);
+                }
+                if (uri.getMaxConnectionIdleTime() == null) {
+                    pool.maxConnectionIdleTime(maxIdleMs, TimeUnit.MILLISECONDS);
+                }
+                pool.addConnectionPoolListener(new CheckoutTimer());
+            });
+            builder.applyToSocketSettings(socket -> {
+                if (uri.getConnectTimeout() == null) {
+                    socket.connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS);
+                }
+                if (uri.getSocketTimeout() == null) {
+                    socket.readTimeout(socketTimeoutMs, TimeUnit.MILLISECONDS);
+                }
+            });
+            builder.applyToClusterSettings(cluster -> {
+                if (uri.getServerSelectionTimeout() == null) {
+                    cluster.serverSelectionTimeout(serverSelectionTimeoutMs, TimeUnit.MILLISECONDS);
+                }
+            });
+            if (uri.getWriteConcern() == null) {
+                builder.writeConcern(concern);
+            }
+        };
+    }
+
+    private class CheckoutTimer implements ConnectionPoolListener {
+
+        @Override
+        public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+            timer("acquired", "none").record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+            timer("failed", event.getReason().name().toLowerCase(Locale.ROOT))
+                    .record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        }
+
+        private Timer timer(String outcome, String reason) {
+            return Timer.builder("mongodb.driver.pool.checkout")
+                    .tag("outcome", outcome)
+                    .tag("reason", reason)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.inventorymanagement.config;
+
+import com.inventorymanagement.models.InventorySummary;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.Log;
+import com.inventorymanagement.models.LogBucket;
+import com.inventorymanagement.models.OutboxMail;
+import com.inventorymanagement.models.RateLimitWindow;
+import com.inventorymanagement.models.RefreshToken;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.LogBucketRepositoryCustom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Creates the indexes declared on the models before the app starts serving, then asserts that
+// the indexes each repository query was designed against are present, so an index dropped or
+// renamed by hand, or an annotation removed, stops startup instead of turning a query into a scan.
+// This only checks index presence against the paths listed here; it does not look at the queries
+// the repositories send. QueryIndexCoverageTest checks those.
+@Configuration
+@DependsOn("mongoMigrationConfig")
+public class MongoIndexConfig implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexConfig.class);
+
+    private static final List<Class<?>> INDEXED_MODELS = List.of(Item.class, Log.class, LogBucket.class,
+            User.class, InventorySummary.class, OutboxMail.class, RefreshToken.class, RateLimitWindow.class);
+
+    // Leading index keys each repository query needs, in index order, by collection
+    private static final Map<String, List<List<String>>> QUERY_PATHS = Map.of(
+            "items", List.of(
+                    List.of("userId"),                  // findByUserId, streamByUserId
+                    List.of("userId", "category"),      // findByUserIdAndCategory
+                    List.of("userId", "_id")),          // findPageByUserId
+            "logs", List.of(
+                    List.of("itemId", "userId"),        // streamLegacyForItem
+                    List.of("userId")),                 // streamByUserId
+            "log_buckets", List.of(
+                    List.of("itemId", "userId", "day"), // append, streamForItem
+                    List.of("userId"),                  // streamForUser
+                    List.of("day")),                    // archiveBefore
+            LogBucketRepositoryCustom.ARCHIVE_COLLECTION, List.of(
+                    List.of("itemId", "userId", "day"), // streamForItem
+                    List.of("userId")),                 // streamForUser
+            "users", List.of(
+                    List.of("email")),                  // findByEmail, existsByEmail
+            "mail_outbox", List.of(
+                    List.of("status", "nextAttemptAt")),  // claimNext
+            "refresh_tokens", List.of(
+                    List.of("userId")),                 // deleteByUserId
+            "rate_limits", List.of(
+                    List.of("_id")));                   // increment
+
+    // Created by LogBucketService only when archiving is on
+    private static final Set<String> OPTIONAL_COLLECTIONS = Set.of(LogBucketRepositoryCustom.ARCHIVE_COLLECTION);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    @Value("${app.mongo.verify-indexes:true}")
+    private boolean verifyIndexes;
+
+    @Override
+    public void afterPropertiesSet() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        for (Class<?> model : INDEXED_MODELS) {
+            IndexOperations indexOps = mongoTemplate.indexOps(model);
+            resolver.resolveIndexFor(model).forEach(indexOps::ensureIndex);
+        }
+
+        if (verifyIndexes) {
+            QUERY_PATHS.forEach(this::verify);
+        }
+    }
+
+    private void verify(String collection, List<List<String>> paths) {
+        if (OPTIONAL_COLLECTIONS.contains(collection) && !mongoTemplate.collectionExists(collection)) {
+            return;
+        }
+        List<IndexInfo> indexes = mongoTemplate.indexOps(collection).getIndexInfo();
+        for (List<String> path : paths) {
+            boolean supported = indexes.stream().anyMatch(index -> hasPrefix(index, path));
+            if (!supported) {
+                throw new IllegalStateException("No index on " + collection + " supports a query on " + path);
+            }
+        }
+        logger.info("Verified indexes for {}", collection);
+    }
+
+    private boolean hasPrefix(IndexInfo index, List<String> path) {
+        List<IndexField> fields = index.getIndexFields();
+        if (fields.size() < path.size()) {
+            return false;
+        }
+        for (int i = 0; i < path.size(); i++) {
+            if (!fields.get(i).getKey().equals(path.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
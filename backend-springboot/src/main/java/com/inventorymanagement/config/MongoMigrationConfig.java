@@ -0,0 +1,59 @@
+package com.inventorymanagement.config;
+
+import com.inventorymanagement.repositories.ItemRepository;
+import com.inventorymanagement.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+// Brings documents written by older versions into the current shape before the app starts serving
+// and before MongoIndexConfig builds indexes the old data would violate. Every step is idempotent,
+// so replicas starting together just repeat each other's work.
+@Configuration
+public class MongoMigrationConfig implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoMigrationConfig.class);
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.mongo.migration.batch-size:1000}")
+    private int batchSize;
+
+    @Override
+    public void afterPropertiesSet() {
+        convertItemPrices();
+        renameDuplicateEmails();
+    }
+
+    // Prices used to be stored as strings; stock updates still read those through $toDecimal
+    // so a replica on the old version can keep writing during a rolling deploy
+    private void convertItemPrices() {
+        Object last = itemRepository.convertStringPrices(null, batchSize);
+        if (last == null) {
+            return;
+        }
+        while (last != null) {
+            last = itemRepository.convertStringPrices(last, batchSize);
+        }
+        logger.info("Converted item prices stored as strings to Decimal128");
+    }
+
+    // Registration only checked for an existing email before saving, so two sign-ups racing could
+    // both succeed; the unique email index cannot be built until those are told apart
+    private void renameDuplicateEmails() {
+        List<String> renamed = userRepository.renameDuplicateEmails();
+        if (!renamed.isEmpty()) {
+            logger.warn("Moved {} accounts that shared an email with an older account to placeholder addresses: {}",
+                    renamed.size(), renamed);
+        }
+    }
+}
@@ -1,9 +1,17 @@
 package com.inventorymanagement.config;
 
+import com.inventorymanagement.security.BoundedPasswordEncoder;
 import com.inventorymanagement.security.JwtAuthenticationFilter;
+import com.inventorymanagement.security.TimedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.cors.CorsConfiguration;
@@ -16,16 +24,62 @@ import java.util.Arrays;
 @Configuration
 public class SecurityConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
+
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Value("${app.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${app.password.target-hash-ms:0}")
+    private long targetHashMs;
+
+    @Value("${app.password.max-strength:14}")
+    private int maxBcryptStrength;
+
+    @Value("${app.password.hash-threads:0}")
+    private int hashThreads;
+
+    @Value("${app.password.queue-size:64}")
+    private int hashQueueSize;
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10);
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        int strength = targetHashMs > 0 ? calibrateStrength() : bcryptStrength;
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        logger.info("Hashing passwords with BCrypt strength {} on {} threads", strength, threads);
+
+        PasswordEncoder timed = new TimedPasswordEncoder(new BCryptPasswordEncoder(strength), meterRegistry);
+        return new BoundedPasswordEncoder(timed, threads, hashQueueSize, meterRegistry);
+    }
+
+    // Each strength step doubles the work, so one measured hash is enough to pick the highest
+    // strength that still fits the target on this machine. Never goes below bcrypt-strength.
+    private int calibrateStrength() {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(bcryptStrength);
+        probe.encode("calibration");
+        long start = System.nanoTime();
+        probe.encode("calibration");
+        double measuredMs = Math.max((System.nanoTime() - start) / 1_000_000.0, 0.01);
+
+        int strength = bcryptStrength;
+        while (strength < maxBcryptStrength && measuredMs * 2 <= targetHashMs) {
+            strength++;
+            measuredMs *= 2;
+        }
+        return strength;
     }
 
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", corsConfiguration());
+        return source;
+    }
+
+    // Also used by ReactiveSecurityConfig so both stacks allow the same origins
+    static CorsConfiguration corsConfiguration() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList(
                 "http://localhost:5173",
@@ -34,10 +88,13 @@ public class SecurityConfig {
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("Content-Type", "Authtoken"));
         configuration.setAllowCredentials(true);
+        return configuration;
+    }
 
-        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
-        source.registerCorsConfiguration("/**", configuration);
-        return source;
+    // Actuator endpoints other than health are only served from their own management port, which
+    // the API port never routes to; on a shared port they are refused. Also used by ReactiveSecurityConfig.
+    static boolean actuatorOnOwnPort(Environment environment) {
+        return ManagementPortType.get(environment) == ManagementPortType.DIFFERENT;
     }
 
     @Bean
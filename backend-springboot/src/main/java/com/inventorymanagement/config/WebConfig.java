@@ -3,12 +3,37 @@ package com.inventorymanagement.config;
 import com.inventorymanagement.security.JwtAuthenticationFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.concurrent.Callable;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    // A handler that needs longer than the default async timeout sets this request attribute (ms)
+    // before returning its StreamingResponseBody or Callable; everything else keeps the default
+    public static final String ASYNC_TIMEOUT_ATTRIBUTE = WebConfig.class.getName() + ".asyncTimeout";
+
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            // Runs before the async request starts, while its timeout can still be changed
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                Object timeout = request.getAttribute(ASYNC_TIMEOUT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+                if (timeout instanceof Long ms && request instanceof AsyncWebRequest asyncRequest) {
+                    asyncRequest.setTimeout(ms);
+                }
+            }
+        });
+    }
 }
@@ -3,21 +3,35 @@ package com.inventorymanagement.controllers;
 import com.inventorymanagement.dto.ForgotPasswordRequest;
 import com.inventorymanagement.dto.ResetPasswordRequest;
 import com.inventorymanagement.dto.ApiResponse;
+import com.inventorymanagement.dto.AuthResponse;
+import com.inventorymanagement.dto.RefreshTokenRequest;
+import com.inventorymanagement.security.JwtTokenProvider;
+import com.inventorymanagement.services.RefreshTokenService;
 import com.inventorymanagement.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/api/auth")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class AuthController {
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
     @PostMapping("/forgot-password")
     public ResponseEntity<?> forgotPassword(@Valid @RequestBody ForgotPasswordRequest request) {
         try {
@@ -29,12 +43,41 @@ public class AuthController {
         }
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshTokenRequest request) {
+        try {
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+            String authtoken = tokenProvider.generateToken(rotation.getUserId());
+            return ResponseEntity.ok(new AuthResponse(authtoken, true, "Token refreshed",
+                    rotation.getRefreshToken()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(e.getMessage(), false));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(new ApiResponse(e.getMessage(), false));
+        }
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody RefreshTokenRequest request) {
+        try {
+            refreshTokenService.revoke(request.getRefreshToken());
+            return ResponseEntity.ok(new ApiResponse("Logged out successfully", true));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse(e.getMessage(), false));
+        }
+    }
+
     @PostMapping("/reset-password/{token}")
     public ResponseEntity<?> resetPassword(@PathVariable String token, 
                                           @Valid @RequestBody ResetPasswordRequest request) {
         try {
             userService.resetPassword(token, request.getNewPassword());
             return ResponseEntity.ok(new ApiResponse("Password reset successfully", true));
+        } catch (RejectedExecutionException e) {
+            return UserController.tooManyRequests(1, e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(new ApiResponse(e.getMessage(), false));
@@ -0,0 +1,64 @@
+package com.inventorymanagement.controllers;
+
+import com.inventorymanagement.services.InventoryVersions;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.function.BiFunction;
+
+// ETag and Last-Modified handling shared by the servlet and WebFlux read endpoints. The tag is
+// derived from the user's stored inventory version and the request target, so a matching request
+// is answered without reading the items or logs. The Accept header is part of the resource, and
+// responses vary by it, since it picks between JSON and CBOR.
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    static String resource(HttpServletRequest request) {
+        return request.getRequestURI() + "?" + request.getQueryString() + "|"
+                + request.getHeader(HttpHeaders.ACCEPT);
+    }
+
+    static String resource(ServerHttpRequest request) {
+        return request.getURI().getRawPath() + "?" + request.getURI().getRawQuery() + "|"
+                + request.getHeaders().getFirst(HttpHeaders.ACCEPT);
+    }
+
+    static ResponseEntity<?> notModified(String etag, InventoryVersions.Version version) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .lastModified(version.getModifiedAt())
+                .varyBy(HttpHeaders.ACCEPT)
+                .build();
+    }
+
+    static ResponseEntity.BodyBuilder ok(String etag, InventoryVersions.Version version) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(version.getModifiedAt())
+                .varyBy(HttpHeaders.ACCEPT);
+    }
+
+    // The version lookup includes the user check; only a request whose tag no longer matches reaches render
+    static Mono<ResponseEntity<?>> whenModified(ServerWebExchange exchange, Mono<InventoryVersions.Version> current,
+            BiFunction<String, InventoryVersions.Version, Mono<ResponseEntity<?>>> render) {
+        return current.flatMap(version -> {
+            String etag = version.etag(resource(exchange.getRequest()));
+            if (unchanged(exchange, etag, version)) {
+                return Mono.just(notModified(etag, version));
+            }
+            return render.apply(etag, version);
+        });
+    }
+
+    static boolean unchanged(ServerWebExchange exchange, String etag, InventoryVersions.Version version) {
+        return exchange.checkNotModified(etag, Instant.ofEpochMilli(version.getModifiedAt()));
+    }
+}
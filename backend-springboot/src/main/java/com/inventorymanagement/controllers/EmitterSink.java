@@ -0,0 +1,40 @@
+package com.inventorymanagement.controllers;
+
+import com.inventorymanagement.dto.InventoryDelta;
+import com.inventorymanagement.services.InventoryEventStream;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+
+// Writes a change stream to a servlet SseEmitter, one SSE event per change
+class EmitterSink implements InventoryEventStream.Sink {
+
+    private final SseEmitter emitter;
+
+    EmitterSink(SseEmitter emitter) {
+        this.emitter = emitter;
+    }
+
+    @Override
+    public void send(List<InventoryDelta> deltas) throws IOException {
+        for (InventoryDelta delta : deltas) {
+            emitter.send(SseEmitter.event().name(delta.getType()).data(delta, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    @Override
+    public void heartbeat() throws IOException {
+        emitter.send(SseEmitter.event().comment(""));
+    }
+
+    @Override
+    public void close() {
+        try {
+            emitter.complete();
+        } catch (RuntimeException e) {
+            // Already completed by the container
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.inventorymanagement.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventorymanagement.config.WebConfig;
+import com.inventorymanagement.dto.ApiResponse;
+import com.inventorymanagement.services.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/export")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CBOR_SEQ = MediaType.parseMediaType("application/cbor-seq");
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.export.timeout-ms:1800000}")
+    private long exportTimeoutMs;
+
+    @GetMapping("/inventory")
+    public ResponseEntity<StreamingResponseBody> exportInventory(@RequestParam(defaultValue = "false") boolean gzip,
+                                                                 HttpServletRequest request) {
+        try {
+            String userId = (String) request.getAttribute("userId");
+            
+            if (userId == null) {
+                return error(HttpStatus.UNAUTHORIZED, "Please try using valid token");
+            }
+
+            exportService.checkUser(userId);
+
+            // NDJSON unless the client asks for a CBOR sequence
+            boolean cbor = MediaType.parseMediaTypes(request.getHeader(HttpHeaders.ACCEPT)).stream()
+                    .anyMatch(type -> type.equalsTypeAndSubtype(CBOR_SEQ));
+
+            StreamingResponseBody body = out -> {
+                if (!gzip) {
+                    exportService.exportInventory(userId, out, cbor);
+                    return;
+                }
+                // Closing frees the Deflater's native memory; the response stream is the container's to close
+                try (GZIPOutputStream compressed = new GZIPOutputStream(StreamUtils.nonClosing(out), 8192)) {
+                    exportService.exportInventory(userId, compressed, cbor);
+                }
+            };
+
+            // Exports can run far longer than the container's default async timeout
+            request.setAttribute(WebConfig.ASYNC_TIMEOUT_ATTRIBUTE, exportTimeoutMs);
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(cbor ? CBOR_SEQ : NDJSON)
+                    .varyBy(HttpHeaders.ACCEPT);
+            if (gzip) {
+                response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            return response.body(body);
+        } catch (Exception e) {
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+        }
+    }
+
+    // The handler's return type must name StreamingResponseBody for MVC to stream it, so errors
+    // are written through one as well
+    private ResponseEntity<StreamingResponseBody> error(HttpStatus status, String message) {
+        ApiResponse body = new ApiResponse(message, false);
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, body));
+    }
+}
@@ -0,0 +1,50 @@
+package com.inventorymanagement.controllers;
+
+import com.inventorymanagement.dto.InventoryDelta;
+import com.inventorymanagement.services.InventoryEventStream;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.FluxSink;
+
+import java.util.List;
+
+// Writes a change stream to a FluxSink, only while the connection has demand; until then
+// changes stay coalesced in the subscription instead of queueing in Reactor. The subscription
+// is taken before the response is written, so the FluxSink is attached once the body is subscribed.
+class FluxEventSink implements InventoryEventStream.Sink {
+
+    private volatile FluxSink<ServerSentEvent<InventoryDelta>> sink;
+
+    void attach(FluxSink<ServerSentEvent<InventoryDelta>> sink) {
+        this.sink = sink;
+    }
+
+    boolean attached() {
+        return sink != null;
+    }
+
+    @Override
+    public boolean ready() {
+        FluxSink<ServerSentEvent<InventoryDelta>> sink = this.sink;
+        return sink != null && !sink.isCancelled() && sink.requestedFromDownstream() > 0;
+    }
+
+    @Override
+    public void send(List<InventoryDelta> deltas) {
+        for (InventoryDelta delta : deltas) {
+            sink.next(ServerSentEvent.builder(delta).event(delta.getType()).build());
+        }
+    }
+
+    @Override
+    public void heartbeat() {
+        sink.next(ServerSentEvent.<InventoryDelta>builder().comment("").build());
+    }
+
+    @Override
+    public void close() {
+        FluxSink<ServerSentEvent<InventoryDelta>> sink = this.sink;
+        if (sink != null) {
+            sink.complete();
+        }
+    }
+}
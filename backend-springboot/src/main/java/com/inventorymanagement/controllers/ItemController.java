@@ -1,14 +1,26 @@
 package com.inventorymanagement.controllers;
 
 import com.inventorymanagement.dto.ApiResponse;
+import com.inventorymanagement.dto.ImportResult;
+import com.inventorymanagement.dto.ItemPage;
 import com.inventorymanagement.dto.ItemRequest;
+import com.inventorymanagement.dto.LogPage;
+import com.inventorymanagement.models.InventorySummary;
 import com.inventorymanagement.models.Item;
+import com.inventorymanagement.services.InventoryEventStream;
+import com.inventorymanagement.services.InventorySummaryService;
+import com.inventorymanagement.services.InventoryVersions;
+import com.inventorymanagement.services.ItemImportService;
 import com.inventorymanagement.services.ItemService;
 import com.inventorymanagement.services.LogService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -18,6 +30,7 @@ import java.util.Map;
 
 @RestController
 @RequestMapping("/api/item")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ItemController {
 
     @Autowired
@@ -26,6 +39,18 @@ public class ItemController {
     @Autowired
     private LogService logService;
 
+    @Autowired
+    private InventorySummaryService summaryService;
+
+    @Autowired
+    private InventoryVersions inventoryVersions;
+
+    @Autowired
+    private InventoryEventStream eventStream;
+
+    @Autowired
+    private ItemImportService itemImportService;
+
     @PostMapping("/addItem")
     public ResponseEntity<?> addItem(@Valid @RequestBody ItemRequest request, 
                                     HttpServletRequest httpRequest) {
@@ -65,6 +90,34 @@ public class ItemController {
         }
     }
 
+    @PostMapping(value = "/importItems", consumes = { "text/csv", "application/x-ndjson" })
+    public ResponseEntity<?> importItems(HttpServletRequest request) {
+        try {
+            String userId = (String) request.getAttribute("userId");
+            
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse("Please try using valid token", false));
+            }
+
+            ItemImportService.Format format = request.getContentType().startsWith("text/csv")
+                    ? ItemImportService.Format.CSV
+                    : ItemImportService.Format.NDJSON;
+            ImportResult result = itemImportService.importItems(userId, request.getInputStream(), format);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("imported", result.getImported());
+            response.put("failed", result.getFailed());
+            response.put("errors", result.getErrors());
+            response.put("success", result.getFailed() == 0);
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse(e.getMessage(), false));
+        }
+    }
+
     @GetMapping("/getItemsByUser")
     public ResponseEntity<?> getItemsByUser(HttpServletRequest request) {
         try {
@@ -75,13 +128,103 @@ public class ItemController {
                     .body(new ApiResponse("Please try using valid token", false));
             }
 
+            InventoryVersions.Version version = inventoryVersions.current(userId);
+            String etag = version.etag(ConditionalResponses.resource(request));
+            if (new ServletWebRequest(request).checkNotModified(etag, version.getModifiedAt())) {
+                return ConditionalResponses.notModified(etag, version);
+            }
+
             List<Item> items = itemService.getItemsByUser(userId);
             
             Map<String, Object> response = new HashMap<>();
             response.put("items", items);
             response.put("success", true);
             
+            return ConditionalResponses.ok(etag, version).body(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse(e.getMessage(), false));
+        }
+    }
+
+    // Server-sent events for every change to the user's items; see InventoryDelta for the event types
+    @GetMapping("/streamChanges")
+    public ResponseEntity<SseEmitter> streamChanges(HttpServletRequest request) {
+        String userId = (String) request.getAttribute("userId");
+
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        SseEmitter emitter = new SseEmitter(eventStream.getTimeoutMs());
+        InventoryEventStream.Subscription subscription;
+        try {
+            subscription = eventStream.subscribe(userId, new EmitterSink(emitter));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+
+        return ResponseEntity.ok(emitter);
+    }
+
+    @GetMapping("/getItemsByUserPage")
+    public ResponseEntity<?> getItemsByUserPage(@RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer limit,
+                                                @RequestParam(required = false) String sort,
+                                                @RequestParam(required = false) String order,
+                                                @RequestParam(required = false) List<String> fields,
+                                                HttpServletRequest request) {
+        try {
+            String userId = (String) request.getAttribute("userId");
+            
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse("Please try using valid token", false));
+            }
+
+            ItemPage page = itemService.getItemsPage(userId, cursor, limit, sort, order, fields);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("items", page.getItems());
+            response.put("nextCursor", page.getNextCursor());
+            response.put("hasMore", page.isHasMore());
+            response.put("success", true);
+            
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(e.getMessage(), false));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse(e.getMessage(), false));
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchItems(@RequestParam(required = false) String q,
+                                         @RequestParam(required = false) Integer limit,
+                                         HttpServletRequest request) {
+        try {
+            String userId = (String) request.getAttribute("userId");
+            
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse("Please try using valid token", false));
+            }
+
+            List<Item> items = itemService.searchItems(userId, q, limit);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("items", items);
+            response.put("success", true);
+            
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(e.getMessage(), false));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ApiResponse(e.getMessage(), false));
@@ -99,12 +242,41 @@ public class ItemController {
                     .body(new ApiResponse("Please try using valid token", false));
             }
 
+            InventoryVersions.Version version = inventoryVersions.current(userId);
+            String etag = version.etag(ConditionalResponses.resource(request));
+            if (new ServletWebRequest(request).checkNotModified(etag, version.getModifiedAt())) {
+                return ConditionalResponses.notModified(etag, version);
+            }
+
             List<Item> items = itemService.getItemsByUserCategory(userId, category);
             
             Map<String, Object> response = new HashMap<>();
             response.put("items", items);
             response.put("success", true);
             
+            return ConditionalResponses.ok(etag, version).body(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse(e.getMessage(), false));
+        }
+    }
+
+    @GetMapping("/getSummary")
+    public ResponseEntity<?> getSummary(HttpServletRequest request) {
+        try {
+            String userId = (String) request.getAttribute("userId");
+            
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse("Please try using valid token", false));
+            }
+
+            InventorySummary summary = summaryService.getSummary(userId);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("summary", summary);
+            response.put("success", true);
+            
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -123,13 +295,24 @@ public class ItemController {
                     .body(new ApiResponse("Please try using valid token", false));
             }
 
+            // The item is read before the conditional check: only the user's own items are covered
+            // by the version, so only they may be answered with a 304
+            InventoryVersions.Version version = inventoryVersions.current(userId);
             Item item = itemService.getItem(userId, id);
             
             Map<String, Object> response = new HashMap<>();
             response.put("item", item);
             response.put("success", true);
             
-            return ResponseEntity.ok(response);
+            // Another user's item is not covered by this user's version, so it gets no validator
+            if (!userId.equals(item.getUserId())) {
+                return ResponseEntity.ok(response);
+            }
+            String etag = version.etag(ConditionalResponses.resource(request));
+            if (new ServletWebRequest(request).checkNotModified(etag, version.getModifiedAt())) {
+                return ConditionalResponses.notModified(etag, version);
+            }
+            return ConditionalResponses.ok(etag, version).body(response);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ApiResponse(e.getMessage(), false));
@@ -137,7 +320,11 @@ public class ItemController {
     }
 
     @GetMapping("/getLogs/{id}")
-    public ResponseEntity<?> getLogs(@PathVariable String id, 
+    public ResponseEntity<?> getLogs(@PathVariable String id,
+                                    @RequestParam(required = false) String from,
+                                    @RequestParam(required = false) String to,
+                                    @RequestParam(required = false) String cursor,
+                                    @RequestParam(required = false) Integer limit,
                                     HttpServletRequest request) {
         try {
             String userId = (String) request.getAttribute("userId");
@@ -147,13 +334,24 @@ public class ItemController {
                     .body(new ApiResponse("Please try using valid token", false));
             }
 
-            var logs = logService.getLogs(userId, id);
+            InventoryVersions.Version version = inventoryVersions.current(userId);
+            String etag = version.etag(ConditionalResponses.resource(request));
+            if (new ServletWebRequest(request).checkNotModified(etag, version.getModifiedAt())) {
+                return ConditionalResponses.notModified(etag, version);
+            }
+
+            LogPage page = logService.getLogs(userId, id, from, to, cursor, limit);
             
             Map<String, Object> response = new HashMap<>();
-            response.put("logs", logs);
+            response.put("logs", page.getLogs());
+            response.put("nextCursor", page.getNextCursor());
+            response.put("hasMore", page.isHasMore());
             response.put("success", true);
             
-            return ResponseEntity.ok(response);
+            return ConditionalResponses.ok(etag, version).body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(e.getMessage(), false));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ApiResponse(e.getMessage(), false));
@@ -177,6 +375,9 @@ public class ItemController {
                     request.getSold(), request.getCategory());
             
             return ResponseEntity.ok(new ApiResponse("Item updated successfully", true, updatedItem));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ApiResponse(e.getMessage(), false));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ApiResponse(e.getMessage(), false));
@@ -197,6 +398,9 @@ public class ItemController {
             itemService.deleteItem(userId, id);
             
             return ResponseEntity.ok(new ApiResponse("Item deleted successfully", true));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ApiResponse(e.getMessage(), false));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ApiResponse(e.getMessage(), false));
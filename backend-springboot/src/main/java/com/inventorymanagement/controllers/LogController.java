@@ -1,10 +1,14 @@
 package com.inventorymanagement.controllers;
 
 import com.inventorymanagement.dto.ApiResponse;
+import com.inventorymanagement.dto.BulkQuantityRequest;
+import com.inventorymanagement.dto.BulkQuantityResult;
 import com.inventorymanagement.dto.QuantityRequest;
 import com.inventorymanagement.models.Log;
 import com.inventorymanagement.services.LogService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -12,10 +16,12 @@ import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/log")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class LogController {
 
     @Autowired
@@ -87,6 +93,39 @@ public class LogController {
             response.put("success", true);
             
             return ResponseEntity.ok(response);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ApiResponse(e.getMessage(), false));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse(e.getMessage(), false));
+        }
+    }
+
+    @PostMapping("/bulkAdjustQuantity")
+    public ResponseEntity<?> bulkAdjustQuantity(@RequestBody BulkQuantityRequest request,
+                                               HttpServletRequest httpRequest) {
+        try {
+            String userId = (String) httpRequest.getAttribute("userId");
+            
+            if (userId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse("Please try using valid token", false));
+            }
+
+            List<BulkQuantityResult> results = logService.adjustQuantities(userId, request.getEntries());
+            long failed = results.stream().filter(result -> !result.isSuccess()).count();
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("results", results);
+            response.put("succeeded", results.size() - failed);
+            response.put("failed", failed);
+            response.put("success", failed == 0);
+            
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(e.getMessage(), false));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ApiResponse(e.getMessage(), false));
@@ -0,0 +1,315 @@
+package com.inventorymanagement.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventorymanagement.dto.ApiResponse;
+import com.inventorymanagement.dto.ItemRequest;
+import com.inventorymanagement.dto.InventoryDelta;
+import com.inventorymanagement.services.InventoryEventStream;
+import com.inventorymanagement.services.InventoryVersions;
+import com.inventorymanagement.services.ItemImportService;
+import com.inventorymanagement.services.ReactiveItemService;
+import com.inventorymanagement.services.ReactiveLogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import jakarta.validation.Valid;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// WebFlux twin of ItemController, same paths and response shapes
+@RestController
+@RequestMapping("/api/item")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveItemController {
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    private static final Duration UNATTACHED_STREAM_GRACE = Duration.ofSeconds(30);
+
+    @Autowired
+    private ReactiveItemService itemService;
+
+    @Autowired
+    private ReactiveLogService logService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InventoryVersions inventoryVersions;
+
+    @Autowired
+    private InventoryEventStream eventStream;
+
+    @PostMapping("/addItem")
+    public Mono<ResponseEntity<?>> addItem(@Valid @RequestBody ItemRequest request,
+                                           ServerWebExchange exchange) {
+        String userId = exchange.getAttribute("userId");
+
+        if (userId == null) {
+            return ReactiveResponses.unauthorized();
+        }
+
+        // Validate input
+        if (request.getName() == null || request.getName().isEmpty()) {
+            return ReactiveResponses.status(HttpStatus.FORBIDDEN, "Name is required");
+        }
+        if (request.getPrice() == null) {
+            return ReactiveResponses.status(HttpStatus.FORBIDDEN, "Price is required");
+        }
+        if (request.getCategory() == null || request.getCategory().isEmpty()) {
+            return ReactiveResponses.status(HttpStatus.FORBIDDEN, "Category is required");
+        }
+        if (request.getQuantity() == null) {
+            return ReactiveResponses.status(HttpStatus.FORBIDDEN, "Quantity is required");
+        }
+
+        return itemService.addItem(userId, request.getName(), request.getDescription(),
+                        request.getQuantity(), request.getPrice(), request.getSold(), request.getCategory())
+                .<ResponseEntity<?>>map(item -> ResponseEntity.ok(new ApiResponse("Item successfully added", true, item)))
+                .onErrorResume(ReactiveResponses::error);
+    }
+
+    @PostMapping(value = "/importItems", consumes = { "text/csv", "application/x-ndjson" })
+    public Mono<ResponseEntity<?>> importItems(ServerWebExchange exchange) {
+        String userId = exchange.getAttribute("userId");
+
+        if (userId == null) {
+            return ReactiveResponses.unauthorized();
+        }
+
+        ItemImportService.Format format = TEXT_CSV.isCompatibleWith(exchange.getRequest().getHeaders().getContentType())
+                ? ItemImportService.Format.CSV
+                : ItemImportService.Format.NDJSON;
+        return itemService.importItems(userId, exchange.getRequest().getBody(), format)
+                .<ResponseEntity<?>>map(result -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("imported", result.getImported());
+                    response.put("failed", result.getFailed());
+                    response.put("errors", result.getErrors());
+                    response.put("success", result.getFailed() == 0);
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(ReactiveResponses::error);
+    }
+
+    @GetMapping("/getItemsByUser")
+    public Mono<ResponseEntity<?>> getItemsByUser(ServerWebExchange exchange) {
+        String userId = exchange.getAttribute("userId");
+
+        if (userId == null) {
+            return ReactiveResponses.unauthorized();
+        }
+
+        return ConditionalResponses.whenModified(exchange, inventoryVersions.currentAsync(userId), (etag, version) ->
+                itemService.getItemsByUser(userId)
+                        .<ResponseEntity<?>>map(items -> ReactiveResponses.streamed(ConditionalResponses.ok(etag, version),
+                                "items", items, objectMapper, exchange)))
+                .onErrorResume(ReactiveResponses::error);
+    }
+
+    // Server-sent events for every change to the user's items; see InventoryDelta for the event types
+    @GetMapping("/streamChanges")
+    public Mono<ResponseEntity<?>> streamChanges(ServerWebExchange exchange) {
+        String userId = exchange.getAttribute("userId");
+
+        if (userId == null) {
+            return ReactiveResponses.unauthorized();
+        }
+
+        // Subscribed before the response starts, so a user over the limit gets a 429 rather than a
+        // stream that fails once it is open; changes wait in the subscription until the Flux attaches
+        FluxEventSink eventSink = new FluxEventSink();
+        InventoryEventStream.Subscription subscription;
+        try {
+            subscription = eventStream.subscribe(userId, eventSink);
+        } catch (IllegalStateException e) {
+            return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build());
+        }
+        // Released if the body is never subscribed, e.g. the client left before the headers went out
+        Mono.delay(UNATTACHED_STREAM_GRACE).filter(tick -> !eventSink.attached())
+                .subscribe(tick -> subscription.cancel());
+        Flux<ServerSentEvent<InventoryDelta>> events = Flux.create(sink -> {
+            eventSink.attach(sink);
+            sink.onRequest(n -> subscription.wake());
+            sink.onDispose(subscription::cancel);
+        });
+        return Mono.just(ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(events.take(Duration.ofMillis(eventStream.getTimeoutMs()))));
+    }
+
+    @GetMapping("/getItemsByUserPage")
+    public Mono<ResponseEntity<?>> getItemsByUserPage(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer limit,
+                                                      @RequestParam(required = false) String sort,
+                                                      @RequestParam(required = false) String order,
+                                                      @RequestParam(required = false) List<String> fields,
+                                                      ServerWebExchange exchange) {
+        String userId = exchange.getAttribute("userId");
+
+        if (userId == null) {
+            return ReactiveResponses.unauthorized();
+        }
+
+        return itemService.getItemsPage(userId, cursor, limit, sort, order, fields)
+                .<ResponseEntity<?>>map(page -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("items", page.getItems());
+                    response.put("nextCursor", page.getNextCursor());
+                    response.put("hasMore", page.isHasMore());
+                    response.put("success", true);
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(ReactiveResponses::badRequestOrError);
+    }
+
+    @GetMapping("/search")
+    public Mono<ResponseEntity<?>> searchItems(@RequestParam(required = false) String q,
+                                               @RequestParam(required = false) Integer limit,
+                                               ServerWebExchange exchange) {
+        String userId = exchange.getAttribute("userId");
+
+        if (userId == null) {
+            return ReactiveResponses.unauthorized();
+        }
+
+        return itemService.searchItems(userId, q, limit)
+                .<ResponseEntity<?>>map(items -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("items", items);
+                    response.put("success", true);
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(ReactiveResponses::badRequestOrError);
+    }
+
+    @GetMapping("/getItemsByUserCategory/{category}")
+    public Mono<ResponseEntity<?>> getItemsByUserCategory(@PathVariable String category,
+                                                          ServerWebExchange exchange) {
+        String userId = exchange.getAttribute("userId");
+
+        if (userId == null) {
+            return ReactiveResponses.unauthorized();
+        }
+
+        return ConditionalResponses.whenModified(exchange, inventoryVersions.currentAsync(userId), (etag, version) ->
+                itemService.getItemsByUserCategory(userId, category)
+                        .<ResponseEntity<?>>map(items -> ReactiveResponses.streamed(ConditionalResponses.ok(etag, version),
+                                "items", items, objectMapper, exchange)))
+                .onErrorResume(ReactiveResponses::error);
+    }
+
+    @GetMapping("/getSummary")
+    public Mono<ResponseEntity<?>> getSummary(ServerWebExchange exchange) {
+        String userId = exchange.getAttribute("userId");
+
+        if (userId == null) {
+            return ReactiveResponses.unauthorized();
+        }
+
+        return itemService.getSummary(userId)
+                .<ResponseEntity<?>>map(summary -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("summary", summary);
+                    response.put("success", true);
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(ReactiveResponses::error);
+    }
+
+    @GetMapping("/getItem/{id}")
+    public Mono<ResponseEntity<?>> getItem(@PathVariable String id,
+                                           ServerWebExchange exchange) {
+        String userId = exchange.getAttribute("userId");
+
+        if (userId == null) {
+            return ReactiveResponses.unauthorized();
+        }
+
+        // As on the servlet stack, the item is read before the conditional check
+        return inventoryVersions.currentAsync(userId).flatMap(version ->
+                itemService.getItem(userId, id)
+                        .<ResponseEntity<?>>map(item -> {
+                            Map<String, Object> response = new HashMap<>();
+                            response.put("item", item);
+                            response.put("success", true);
+                            // Another user's item is not covered by this user's version, so it gets no validator
+                            if (!userId.equals(item.getUserId())) {
+                                return ResponseEntity.ok(response);
+                            }
+                            String etag = version.etag(ConditionalResponses.resource(exchange.getRequest()));
+                            if (ConditionalResponses.unchanged(exchange, etag, version)) {
+                                return ConditionalResponses.notModified(etag, version);
+                            }
+                            return ConditionalResponses.ok(etag, version).body(response);
+                        }))
+                .onErrorResume(ReactiveResponses::error);
+    }
+
+    @GetMapping("/getLogs/{id}")
+    public Mono<ResponseEntity<?>> getLogs(@PathVariable String id,
+                                           @RequestParam(required = false) String from,
+                                           @RequestParam(required = false) String to,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) Integer limit,
+                                           ServerWebExchange exchange) {
+        String userId = exchange.getAttribute("userId");
+
+        if (userId == null) {
+            return ReactiveResponses.unauthorized();
+        }
+
+        return ConditionalResponses.whenModified(exchange, inventoryVersions.currentAsync(userId), (etag, version) ->
+                logService.getLogs(userId, id, from, to, cursor, limit)
+                        .<ResponseEntity<?>>map(page -> {
+                            Map<String, Object> response = new HashMap<>();
+                            response.put("logs", page.getLogs());
+                            response.put("nextCursor", page.getNextCursor());
+                            response.put("hasMore", page.isHasMore());
+                            response.put("success", true);
+                            return ConditionalResponses.ok(etag, version).body(response);
+                        }))
+                .onErrorResume(ReactiveResponses::badRequestOrError);
+    }
+
+    @PutMapping("/updateItem/{id}")
+    public Mono<ResponseEntity<?>> updateItem(@PathVariable String id,
+                                              @RequestBody ItemRequest request,
+                                              ServerWebExchange exchange) {
+        String userId = exchange.getAttribute("userId");
+
+        if (userId == null) {
+            return ReactiveResponses.unauthorized();
+        }
+
+        return itemService.updateItem(userId, id, request.getName(), request.getDescription(),
+                        request.getQuantity(), request.getPrice(), request.getSold(), request.getCategory())
+                .<ResponseEntity<?>>map(item -> ResponseEntity.ok(new ApiResponse("Item updated successfully", true, item)))
+                .onErrorResume(ReactiveResponses::conflictOrError);
+    }
+
+    @DeleteMapping("/deleteItem/{id}")
+    public Mono<ResponseEntity<?>> deleteItem(@PathVariable String id,
+                                              ServerWebExchange exchange) {
+        String userId = exchange.getAttribute("userId");
+
+        if (userId == null) {
+            return ReactiveResponses.unauthorized();
+        }
+
+        return itemService.deleteItem(userId, id)
+                .then(Mono.<ResponseEntity<?>>fromSupplier(() ->
+                        ResponseEntity.ok(new ApiResponse("Item deleted successfully", true))))
+                .onErrorResume(ReactiveResponses::conflictOrError);
+    }
+}
@@ -0,0 +1,105 @@
+package com.inventorymanagement.controllers;
+
+import com.inventorymanagement.dto.BulkQuantityRequest;
+import com.inventorymanagement.dto.QuantityRequest;
+import com.inventorymanagement.services.ReactiveLogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import jakarta.validation.Valid;
+import java.util.HashMap;
+import java.util.Map;
+
+// WebFlux twin of LogController, same paths and response shapes
+@RestController
+@RequestMapping("/api/log")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLogController {
+
+    @Autowired
+    private ReactiveLogService logService;
+
+    @PostMapping("/increaseQuantity/{id}")
+    public Mono<ResponseEntity<?>> increaseQuantity(@PathVariable String id,
+                                                    @Valid @RequestBody QuantityRequest request,
+                                                    ServerWebExchange exchange) {
+        String userId = exchange.getAttribute("userId");
+
+        if (userId == null) {
+            return ReactiveResponses.unauthorized();
+        }
+
+        // Validate input
+        if (request.getQuantity() == null) {
+            return ReactiveResponses.status(HttpStatus.FORBIDDEN, "Please enter a valid number");
+        }
+        if (request.getDescription() == null || request.getDescription().isEmpty()) {
+            return ReactiveResponses.status(HttpStatus.FORBIDDEN, "Description must be a string");
+        }
+
+        return logService.increaseQuantity(userId, id, request.getQuantity(), request.getDescription())
+                .<ResponseEntity<?>>map(log -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("log", log);
+                    response.put("success", true);
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(ReactiveResponses::error);
+    }
+
+    @PostMapping("/decreaseQuantity/{id}")
+    public Mono<ResponseEntity<?>> decreaseQuantity(@PathVariable String id,
+                                                    @Valid @RequestBody QuantityRequest request,
+                                                    ServerWebExchange exchange) {
+        String userId = exchange.getAttribute("userId");
+
+        if (userId == null) {
+            return ReactiveResponses.unauthorized();
+        }
+
+        // Validate input
+        if (request.getQuantity() == null) {
+            return ReactiveResponses.status(HttpStatus.FORBIDDEN, "Please enter a valid number");
+        }
+        if (request.getDescription() == null || request.getDescription().isEmpty()) {
+            return ReactiveResponses.status(HttpStatus.FORBIDDEN, "Description must be a string");
+        }
+
+        return logService.decreaseQuantity(userId, id, request.getQuantity(), request.getDescription())
+                .<ResponseEntity<?>>map(log -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("log", log);
+                    response.put("success", true);
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(ReactiveResponses::error);
+    }
+
+    @PostMapping("/bulkAdjustQuantity")
+    public Mono<ResponseEntity<?>> bulkAdjustQuantity(@RequestBody BulkQuantityRequest request,
+                                                      ServerWebExchange exchange) {
+        String userId = exchange.getAttribute("userId");
+
+        if (userId == null) {
+            return ReactiveResponses.unauthorized();
+        }
+
+        return logService.adjustQuantities(userId, request.getEntries())
+                .<ResponseEntity<?>>map(results -> {
+                    long failed = results.stream().filter(result -> !result.isSuccess()).count();
+
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("results", results);
+                    response.put("succeeded", results.size() - failed);
+                    response.put("failed", failed);
+                    response.put("success", failed == 0);
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(ReactiveResponses::badRequestOrError);
+    }
+}
@@ -0,0 +1,99 @@
+package com.inventorymanagement.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventorymanagement.dto.ApiResponse;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+// Shared by the WebFlux controllers so their responses keep the shape of the servlet ones
+final class ReactiveResponses {
+
+    private static final byte[] ARRAY_CLOSE = "]}".getBytes(StandardCharsets.UTF_8);
+
+    private ReactiveResponses() {
+    }
+
+    static Mono<ResponseEntity<?>> status(HttpStatus status, String message) {
+        return Mono.just(ResponseEntity.status(status).body(new ApiResponse(message, false)));
+    }
+
+    static Mono<ResponseEntity<?>> unauthorized() {
+        return status(HttpStatus.UNAUTHORIZED, "Please try using valid token");
+    }
+
+    static Mono<ResponseEntity<?>> error(Throwable e) {
+        return status(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
+    }
+
+    static Mono<ResponseEntity<?>> badRequestOrError(Throwable e) {
+        if (e instanceof IllegalArgumentException) {
+            return status(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return error(e);
+    }
+
+    static Mono<ResponseEntity<?>> conflictOrError(Throwable e) {
+        if (e instanceof OptimisticLockingFailureException) {
+            return status(HttpStatus.CONFLICT, e.getMessage());
+        }
+        return error(e);
+    }
+
+    // Writes {"success":true,"<field>":[...]} as the elements arrive instead of collecting them first.
+    // Anything that can fail with a proper error response must be checked before this is called.
+    // A client that prefers CBOR gets the same document collected and encoded by the CBOR codec.
+    static ResponseEntity<?> streamed(ResponseEntity.BodyBuilder response, String field, Flux<?> elements,
+                                      ObjectMapper mapper, ServerWebExchange exchange) {
+        if (prefersCbor(exchange.getRequest())) {
+            return response.contentType(MediaType.APPLICATION_CBOR).body(elements.collectList()
+                    .map(list -> Map.of("success", true, field, list)));
+        }
+
+        DataBufferFactory buffers = exchange.getResponse().bufferFactory();
+        byte[] open = ("{\"success\":true,\"" + field + "\":[").getBytes(StandardCharsets.UTF_8);
+        Flux<DataBuffer> body = elements.index().map(element -> {
+            byte[] json;
+            try {
+                json = mapper.writeValueAsBytes(element.getT2());
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+            DataBuffer buffer = buffers.allocateBuffer(json.length + 1);
+            if (element.getT1() > 0) {
+                buffer.write((byte) ',');
+            }
+            return buffer.write(json);
+        });
+        Flux<DataBuffer> document = Flux.concat(
+                Mono.fromSupplier(() -> buffers.wrap(open)),
+                body,
+                Mono.fromSupplier(() -> buffers.wrap(ARRAY_CLOSE)));
+        return response.contentType(MediaType.APPLICATION_JSON).body(document);
+    }
+
+    // The highest-quality Accept entry wins; JSON, including */*, wins ties
+    private static boolean prefersCbor(ServerHttpRequest request) {
+        MediaType preferred = null;
+        for (MediaType type : request.getHeaders().getAccept()) {
+            boolean candidate = type.isCompatibleWith(MediaType.APPLICATION_JSON)
+                    || type.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR);
+            if (candidate && (preferred == null || type.getQualityValue() > preferred.getQualityValue())) {
+                preferred = type;
+            }
+        }
+        return preferred != null && preferred.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR);
+    }
+}
@@ -3,8 +3,12 @@ package com.inventorymanagement.controllers;
 import com.inventorymanagement.dto.*;
 import com.inventorymanagement.models.User;
 import com.inventorymanagement.security.JwtTokenProvider;
+import com.inventorymanagement.security.LoginRateLimiter;
+import com.inventorymanagement.services.RefreshTokenService;
 import com.inventorymanagement.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -12,8 +16,11 @@ import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/api/user")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserController {
 
     @Autowired
@@ -22,6 +29,12 @@ public class UserController {
     @Autowired
     private JwtTokenProvider tokenProvider;
 
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     @PostMapping("/registerUser")
     public ResponseEntity<?> registerUser(@Valid @RequestBody UserRegisterRequest request) {
         try {
@@ -47,9 +60,12 @@ public class UserController {
                                                  request.getPhoneNo(), request.getPassword());
             
             String authtoken = tokenProvider.generateToken(user.getId());
-            AuthResponse response = new AuthResponse(authtoken, true, "User registered successfully");
+            AuthResponse response = new AuthResponse(authtoken, true, "User registered successfully",
+                    refreshTokenService.issue(user.getId()));
             
             return ResponseEntity.ok(response);
+        } catch (RejectedExecutionException e) {
+            return tooManyRequests(1, e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN)
                 .body(new ApiResponse(e.getMessage(), false));
@@ -57,7 +73,8 @@ public class UserController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody UserLoginRequest request) {
+    public ResponseEntity<?> login(@Valid @RequestBody UserLoginRequest request,
+                                   HttpServletRequest httpRequest) {
         try {
             // Validate input
             if (request.getEmail() == null || request.getEmail().isEmpty()) {
@@ -69,17 +86,32 @@ public class UserController {
                     .body(new ApiResponse("Password is required", false));
             }
 
+            long retryAfter = loginRateLimiter.acquire(httpRequest.getRemoteAddr(), request.getEmail());
+            if (retryAfter > 0) {
+                return tooManyRequests(retryAfter, "Too many login attempts, please try again later");
+            }
+
             User user = userService.loginUser(request.getEmail(), request.getPassword());
             String authtoken = tokenProvider.generateToken(user.getId());
-            AuthResponse response = new AuthResponse(authtoken, true, "Login successful");
+            AuthResponse response = new AuthResponse(authtoken, true, "Login successful",
+                    refreshTokenService.issue(user.getId()));
             
             return ResponseEntity.ok(response);
+        } catch (RejectedExecutionException e) {
+            return tooManyRequests(1, e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(new ApiResponse(e.getMessage(), false));
         }
     }
 
+    // Hashing is CPU bound, so callers are told to back off rather than queue behind it
+    static ResponseEntity<?> tooManyRequests(long retryAfterSeconds, String message) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+            .body(new ApiResponse(message, false));
+    }
+
     @PutMapping("/updateUser")
     public ResponseEntity<?> updateUser(@RequestBody UserUpdateRequest request, 
                                        HttpServletRequest httpRequest) {
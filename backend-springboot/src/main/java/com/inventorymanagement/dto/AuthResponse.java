@@ -11,4 +11,5 @@ public class AuthResponse {
     private String authtoken;
     private boolean success;
     private String message;
+    private String refreshToken;
 }
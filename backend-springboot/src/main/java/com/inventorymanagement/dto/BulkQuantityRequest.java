@@ -0,0 +1,24 @@
+package com.inventorymanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkQuantityRequest {
+    private List<Entry> entries;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String itemId;
+        // Positive to add stock, negative to remove it
+        private Integer delta;
+        private String description;
+    }
+}
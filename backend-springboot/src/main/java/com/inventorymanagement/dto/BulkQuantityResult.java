@@ -0,0 +1,15 @@
+package com.inventorymanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkQuantityResult {
+    private int index;
+    private String itemId;
+    private boolean success;
+    private String message;
+}
@@ -0,0 +1,51 @@
+package com.inventorymanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.inventorymanagement.models.Item;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One change pushed to a change stream subscriber; the type is also the SSE event name.
+//   stock   - quantity and sold after an increase or decrease
+//   item    - the full item after it was added or edited
+//   deleted - the item is gone
+//   changed - the item changed in a way not described here; fetch it again
+//   resync  - changes were dropped for a slow subscriber; fetch the whole list again
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class InventoryDelta {
+    public static final String STOCK = "stock";
+    public static final String ITEM = "item";
+    public static final String DELETED = "deleted";
+    public static final String CHANGED = "changed";
+    public static final String RESYNC = "resync";
+
+    private String type;
+    private String itemId;
+    private Integer quantity;
+    private Integer sold;
+    private Item item;
+
+    public static InventoryDelta stock(Item item) {
+        return new InventoryDelta(STOCK, item.getId(), item.getQuantity(), item.getSold(), null);
+    }
+
+    public static InventoryDelta item(Item item) {
+        return new InventoryDelta(ITEM, item.getId(), null, null, item);
+    }
+
+    public static InventoryDelta deleted(String itemId) {
+        return new InventoryDelta(DELETED, itemId, null, null, null);
+    }
+
+    public static InventoryDelta changed(String itemId) {
+        return new InventoryDelta(CHANGED, itemId, null, null, null);
+    }
+
+    public static InventoryDelta resync() {
+        return new InventoryDelta(RESYNC, null, null, null, null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.inventorymanagement.dto;
+
+import com.inventorymanagement.models.Item;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemPage {
+    private List<Item> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
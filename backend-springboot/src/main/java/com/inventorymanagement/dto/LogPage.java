@@ -0,0 +1,17 @@
+package com.inventorymanagement.dto;
+
+import com.inventorymanagement.models.Log;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogPage {
+    private List<Log> logs;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,43 @@
+package com.inventorymanagement.events;
+
+import com.inventorymanagement.models.Item;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// Published once a write that changes a user's items is in Mongo. Listeners run on the
+// writing thread, so they must be quick and must not let exceptions escape.
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class InventoryChangedEvent {
+
+    public enum Kind { SAVED, DELETED, STOCK }
+
+    private final String userId;
+    private final Kind kind;
+    private final List<String> itemIds;
+    // Post-images for SAVED, and for STOCK when the write returned one; empty otherwise
+    private final List<Item> items;
+    // Written by another instance and picked up from the change stream
+    private final boolean remote;
+
+    // Items added or edited through the item endpoints or an import
+    public static InventoryChangedEvent saved(String userId, List<Item> items) {
+        return new InventoryChangedEvent(userId, Kind.SAVED, items.stream().map(Item::getId).toList(), items, false);
+    }
+
+    public static InventoryChangedEvent deleted(String userId, List<String> itemIds) {
+        return new InventoryChangedEvent(userId, Kind.DELETED, itemIds, List.of(), false);
+    }
+
+    // Only quantity, sold and soldPrice changed
+    public static InventoryChangedEvent stock(String userId, List<String> itemIds, List<Item> items) {
+        return new InventoryChangedEvent(userId, Kind.STOCK, itemIds, items, false);
+    }
+
+    public static InventoryChangedEvent remote(String userId, Kind kind, List<String> itemIds, List<Item> items) {
+        return new InventoryChangedEvent(userId, kind, itemIds, items, true);
+    }
+}
@@ -0,0 +1,12 @@
+package com.inventorymanagement.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published once a mail is in the outbox, so a dispatcher on this instance can send it right away
+@Getter
+@AllArgsConstructor
+public class MailQueuedEvent {
+
+    private final String mailId;
+}
@@ -0,0 +1,44 @@
+package com.inventorymanagement.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Document(collection = "inventory_summaries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventorySummary {
+
+    // One document per user, keyed by the user id
+    @Id
+    private String userId;
+    private Long totalProducts;
+    private Long totalUnits;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal stockValue;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal salesValue;
+    private LocalDateTime updatedAt;
+    // Bumped by every delta; a rebuild only replaces the totals if it is unchanged since the rebuild began
+    @JsonIgnore
+    private Long version;
+    // Deltas arrived while there was no summary, so the totals must be rebuilt before use
+    @JsonIgnore
+    private Boolean stale;
+    @JsonIgnore
+    private LocalDateTime rebuiltAt;
+
+    public static InventorySummary empty(String userId) {
+        return new InventorySummary(userId, 0L, 0L, BigDecimal.ZERO, BigDecimal.ZERO, LocalDateTime.now(),
+                null, null, null);
+    }
+}
@@ -0,0 +1,23 @@
+package com.inventorymanagement.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Version of one user's items and logs, moved forward by every write to them. The epoch is
+// drawn when the document is created, so a user whose document was removed never repeats a tag.
+@Document(collection = "inventory_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryVersion {
+
+    @Id
+    private String userId;
+    private String epoch;
+    private long version;
+    // Epoch milliseconds of the write that set the version
+    private long modifiedAt;
+}
@@ -1,15 +1,25 @@
 package com.inventorymanagement.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Document(collection = "items")
+@CompoundIndexes({
+    @CompoundIndex(name = "userId_category", def = "{'userId': 1, 'category': 1}"),
+    @CompoundIndex(name = "userId_id", def = "{'userId': 1, '_id': 1}")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,11 +31,18 @@ public class Item {
     private String name;
     private String description;
     private Integer quantity;
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal price;
     private Integer sold;
     private String category;
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal soldPrice;
     private LocalDateTime date;
+    // Bumped by every write; whole-document saves and deletes only apply to the version they read.
+    // Internal to the server: clients revalidate with the list ETags instead
+    @Version
+    @JsonIgnore
+    private Long version;
 
     public Item(String userId, String name, String description, Integer quantity, 
                 BigDecimal price, Integer sold, String category) {
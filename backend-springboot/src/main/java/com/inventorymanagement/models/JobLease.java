@@ -0,0 +1,23 @@
+package com.inventorymanagement.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Which instance may run a scheduled job until when. The _id is the job name, so taking the
+// lease is a single conditional upsert on the primary key.
+@Document(collection = "job_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLease {
+
+    @Id
+    private String job;
+    private String owner;
+    private LocalDateTime lockedUntil;
+}
@@ -4,11 +4,17 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 @Document(collection = "logs")
+@CompoundIndexes({
+    @CompoundIndex(name = "itemId_userId_date", def = "{'itemId': 1, 'userId': 1, 'date': 1}"),
+    @CompoundIndex(name = "userId_date", def = "{'userId': 1, 'date': 1}")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
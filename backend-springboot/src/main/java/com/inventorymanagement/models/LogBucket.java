@@ -0,0 +1,62 @@
+package com.inventorymanagement.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// One document per item per day holding that day's stock moves. A busy day spills into
+// further buckets once "count" reaches the configured cap, so documents stay well under 16MB.
+@Document(collection = "log_buckets")
+@CompoundIndexes({
+    @CompoundIndex(name = "itemId_userId_day", def = "{'itemId': 1, 'userId': 1, 'day': 1}"),
+    @CompoundIndex(name = "userId_day", def = "{'userId': 1, 'day': 1}")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogBucket {
+
+    @Id
+    private String id;
+    private String userId;
+    private String itemId;
+    @Indexed
+    private LocalDate day;
+    private Integer count;
+    private List<Move> moves = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Move {
+        private String id;
+        private String action;
+        private Integer quantity;
+        private String description;
+        private LocalDateTime date;
+
+        public static Move of(Log log) {
+            return new Move(log.getId(), log.getAction(), log.getQuantity(), log.getDescription(), log.getDate());
+        }
+    }
+
+    // Moves in the shape the API has always returned
+    public List<Log> toLogs() {
+        List<Log> logs = new ArrayList<>(moves.size());
+        for (Move move : moves) {
+            logs.add(new Log(move.getId(), userId, itemId, move.getAction(), move.getQuantity(),
+                    move.getDescription(), move.getDate()));
+        }
+        return logs;
+    }
+}
@@ -0,0 +1,51 @@
+package com.inventorymanagement.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "mail_outbox")
+@CompoundIndex(name = "status_nextAttemptAt", def = "{'status': 1, 'nextAttemptAt': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMail {
+
+    public static final String PENDING = "PENDING";
+    public static final String SENDING = "SENDING";
+    public static final String SENT = "SENT";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    private String id;
+    private String to;
+    private String subject;
+    // Cleared once the mail is sent or given up on
+    private String htmlContent;
+    private String status;
+    private Integer attempts;
+    private LocalDateTime nextAttemptAt;
+    // A worker owns the mail until this time; after that another worker may pick it up again
+    private LocalDateTime lockedUntil;
+    private String lastError;
+    private LocalDateTime createdAt;
+    // Mongo deletes sent mail a week after it went out
+    @Indexed(expireAfter = "7d")
+    private LocalDateTime sentAt;
+
+    public OutboxMail(String to, String subject, String htmlContent) {
+        this.to = to;
+        this.subject = subject;
+        this.htmlContent = htmlContent;
+        this.status = PENDING;
+        this.attempts = 0;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+}
@@ -0,0 +1,25 @@
+package com.inventorymanagement.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Attempts counted for one key in one fixed window, shared by every instance. The _id is
+// "<key>@<window number>", so counting is a single upsert on the primary key.
+@Document(collection = "rate_limits")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitWindow {
+
+    @Id
+    private String id;
+    private Integer count;
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime expiresAt;
+}
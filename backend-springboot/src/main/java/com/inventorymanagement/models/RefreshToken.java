@@ -0,0 +1,27 @@
+package com.inventorymanagement.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Only the SHA-256 of the token is stored, as the _id, so a refresh is a single primary-key lookup
+// and a leaked collection cannot be replayed. Mongo removes tokens once they expire.
+@Document(collection = "refresh_tokens")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+
+    @Id
+    private String id;
+    @Indexed
+    private String userId;
+    private LocalDateTime createdAt;
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,9 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.InventorySummary;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InventorySummaryRepository extends MongoRepository<InventorySummary, String>, InventorySummaryRepositoryCustom {
+}
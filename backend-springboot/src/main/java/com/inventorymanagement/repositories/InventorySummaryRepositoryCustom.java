@@ -0,0 +1,31 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.InventorySummary;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface InventorySummaryRepositoryCustom {
+    // Returns false when the user has no usable summary; it is then marked stale and rebuilt on first read
+    boolean applyDelta(String userId, long products, long units, BigDecimal stockValue, BigDecimal salesValue);
+
+    // Marks the summary stale, creating it if needed, and moves its version so a rebuild already
+    // running does not store its totals
+    void markStale(String userId);
+
+    // Totals recomputed from the items collection, for one user or for everyone when userId is null
+    List<InventorySummary> computeFromItems(String userId);
+
+    // Every summary's version, keyed by user id; null for summaries written before versioning
+    Map<String, Long> findVersions();
+
+    // Stores recomputed totals only if the summary still has expectedVersion (null: none, or
+    // unversioned); false when a delta got in first
+    boolean replaceIfUnchanged(InventorySummary computed, Long expectedVersion, LocalDateTime rebuiltAt);
+
+    // The same for many users in one unordered bulkWrite; returns the user ids that were not replaced
+    List<String> replaceAllIfUnchanged(List<InventorySummary> computed, Map<String, Long> expectedVersions,
+                                       LocalDateTime rebuiltAt);
+}
@@ -0,0 +1,156 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.InventorySummary;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class InventorySummaryRepositoryCustomImpl implements InventorySummaryRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean applyDelta(String userId, long products, long units, BigDecimal stockValue, BigDecimal salesValue) {
+        Update update = new Update()
+                .inc("totalProducts", products)
+                .inc("totalUnits", units)
+                .inc("stockValue", new Decimal128(stockValue))
+                .inc("salesValue", new Decimal128(salesValue))
+                .inc("version", 1)
+                .set("updatedAt", LocalDateTime.now());
+
+        Query usable = new Query(Criteria.where("_id").is(userId).and("stale").ne(true));
+        if (mongoTemplate.updateFirst(usable, update, InventorySummary.class).getMatchedCount() > 0) {
+            return true;
+        }
+
+        // Remember that a change was missed
+        markStale(userId);
+        return false;
+    }
+
+    @Override
+    public void markStale(String userId) {
+        Update stale = new Update()
+                .inc("version", 1)
+                .set("stale", true)
+                .set("updatedAt", LocalDateTime.now());
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(userId)), stale, InventorySummary.class);
+    }
+
+    @Override
+    public List<InventorySummary> computeFromItems(String userId) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (userId != null) {
+            stages.add(context -> new Document("$match", new Document("userId", userId)));
+        }
+        stages.add(context -> totalsStage());
+        stages.add(context -> new Document("$set", new Document("updatedAt", "$$NOW")));
+
+        return mongoTemplate.aggregate(Aggregation.newAggregation(stages), "items", InventorySummary.class)
+                .getMappedResults();
+    }
+
+    @Override
+    public Map<String, Long> findVersions() {
+        Query query = new Query();
+        query.fields().include("version");
+
+        Map<String, Long> versions = new HashMap<>();
+        for (InventorySummary summary : mongoTemplate.find(query, InventorySummary.class)) {
+            versions.put(summary.getUserId(), summary.getVersion());
+        }
+        return versions;
+    }
+
+    @Override
+    public boolean replaceIfUnchanged(InventorySummary computed, Long expectedVersion, LocalDateTime rebuiltAt) {
+        try {
+            UpdateResult result = mongoTemplate.upsert(unchanged(computed.getUserId(), expectedVersion),
+                    replacement(computed, expectedVersion, rebuiltAt), InventorySummary.class);
+            return result.getMatchedCount() > 0 || result.getUpsertedId() != null;
+        } catch (DuplicateKeyException e) {
+            // The summary was created since it was read
+            return false;
+        }
+    }
+
+    @Override
+    public List<String> replaceAllIfUnchanged(List<InventorySummary> computed, Map<String, Long> expectedVersions,
+                                              LocalDateTime rebuiltAt) {
+        if (computed.isEmpty()) {
+            return List.of();
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InventorySummary.class);
+        List<String> userIds = new ArrayList<>(computed.size());
+        for (InventorySummary summary : computed) {
+            Long expected = expectedVersions.get(summary.getUserId());
+            bulk.upsert(unchanged(summary.getUserId(), expected), replacement(summary, expected, rebuiltAt));
+            userIds.add(summary.getUserId());
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            // Duplicate keys from summaries created since they were read; found below like any other miss
+        }
+
+        // Bulk results do not say which filters matched, but every replaced summary carries this run's rebuiltAt
+        Query missed = new Query(Criteria.where("_id").in(userIds).and("rebuiltAt").ne(rebuiltAt));
+        missed.fields().include("_id");
+        return mongoTemplate.find(missed, InventorySummary.class).stream()
+                .map(InventorySummary::getUserId)
+                .toList();
+    }
+
+    // A missing version only matches summaries written before versioning; a missing summary is inserted
+    private Query unchanged(String userId, Long expectedVersion) {
+        Criteria criteria = Criteria.where("_id").is(userId);
+        return new Query(expectedVersion == null
+                ? criteria.and("version").exists(false)
+                : criteria.and("version").is(expectedVersion));
+    }
+
+    private Update replacement(InventorySummary computed, Long expectedVersion, LocalDateTime rebuiltAt) {
+        return new Update()
+                .set("totalProducts", computed.getTotalProducts())
+                .set("totalUnits", computed.getTotalUnits())
+                .set("stockValue", new Decimal128(computed.getStockValue()))
+                .set("salesValue", new Decimal128(computed.getSalesValue()))
+                .set("updatedAt", LocalDateTime.now())
+                .set("rebuiltAt", rebuiltAt)
+                .set("version", expectedVersion == null ? 0L : expectedVersion)
+                .unset("stale");
+    }
+
+    // Same definitions as the dashboard: units on hand, value of stock, value of everything sold
+    private Document totalsStage() {
+        Document price = new Document("$toDecimal", new Document("$ifNull", List.of("$price", 0)));
+        Document quantity = new Document("$ifNull", List.of("$quantity", 0));
+        Document sold = new Document("$ifNull", List.of("$sold", 0));
+
+        return new Document("$group", new Document("_id", "$userId")
+                .append("totalProducts", new Document("$sum", 1))
+                .append("totalUnits", new Document("$sum", quantity))
+                .append("stockValue", new Document("$sum", new Document("$multiply", List.of(price, quantity))))
+                .append("salesValue", new Document("$sum", new Document("$multiply", List.of(price, sold)))));
+    }
+}
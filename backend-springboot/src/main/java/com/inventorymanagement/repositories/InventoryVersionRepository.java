@@ -0,0 +1,9 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.InventoryVersion;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InventoryVersionRepository extends MongoRepository<InventoryVersion, String>, InventoryVersionRepositoryCustom {
+}
@@ -0,0 +1,11 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.InventoryVersion;
+
+public interface InventoryVersionRepositoryCustom {
+    // Moves the user's version forward by one, creating it if missing
+    void advance(String userId, long modifiedAt);
+
+    // The user's version, created at zero the first time it is asked for
+    InventoryVersion findOrCreate(String userId, long now);
+}
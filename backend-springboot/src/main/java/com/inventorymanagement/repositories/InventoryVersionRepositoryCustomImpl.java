@@ -0,0 +1,49 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.InventoryVersion;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+public class InventoryVersionRepositoryCustomImpl implements InventoryVersionRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void advance(String userId, long modifiedAt) {
+        Update update = new Update()
+                .inc("version", 1)
+                .set("modifiedAt", modifiedAt)
+                .setOnInsert("epoch", new ObjectId().toHexString());
+        mongoTemplate.upsert(byUser(userId), update, InventoryVersion.class);
+    }
+
+    @Override
+    public InventoryVersion findOrCreate(String userId, long now) {
+        InventoryVersion stored = mongoTemplate.findOne(byUser(userId), InventoryVersion.class);
+        if (stored != null) {
+            return stored;
+        }
+        Update update = new Update()
+                .setOnInsert("epoch", new ObjectId().toHexString())
+                .setOnInsert("version", 0L)
+                .setOnInsert("modifiedAt", now);
+        try {
+            return mongoTemplate.findAndModify(byUser(userId), update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), InventoryVersion.class);
+        } catch (DuplicateKeyException e) {
+            // Created by a concurrent request
+            return mongoTemplate.findOne(byUser(userId), InventoryVersion.class);
+        }
+    }
+
+    private static Query byUser(String userId) {
+        return new Query(Criteria.where("_id").is(userId));
+    }
+}
@@ -1,13 +1,25 @@
 package com.inventorymanagement.repositories;
 
 import com.inventorymanagement.models.Item;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ItemRepository extends MongoRepository<Item, String> {
+public interface ItemRepository extends MongoRepository<Item, String>, ItemRepositoryCustom {
     List<Item> findByUserId(String userId);
     List<Item> findByUserIdAndCategory(String userId, String category);
+
+    // Cursor-backed; callers must close the stream
+    @Meta(cursorBatchSize = 500)
+    Stream<Item> streamByUserId(String userId);
+
+    // Only the fields the search index tokenizes
+    @Meta(cursorBatchSize = 1000)
+    @Query(value = "{ 'userId': ?0 }", fields = "{ 'name': 1, 'description': 1, 'category': 1 }")
+    Stream<Item> streamSearchFieldsByUserId(String userId);
 }
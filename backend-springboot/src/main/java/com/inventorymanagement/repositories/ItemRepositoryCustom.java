@@ -0,0 +1,33 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.Item;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ItemRepositoryCustom {
+    StockChange increaseQuantity(String itemId, int quantity);
+    StockChange decreaseQuantity(String itemId, int quantity);
+
+    // A user's whole item list, from a secondary when SecondaryReads is on, never older than the
+    // user's version on the primary when called
+    List<Item> findAllForListing(String userId);
+
+    // Gives an item stored before versioning its first version so it can be saved conditionally
+    void initializeVersion(String itemId);
+
+    // Rewrites price and soldPrice stored as strings (before they were Decimal128) one page at a time,
+    // in _id order after afterId; returns the last _id examined, or null when nothing is left
+    Object convertStringPrices(Object afterId, int batchSize);
+
+    // Unordered insert of a batch; returns the indexes within the batch that failed, with the reason
+    Map<Integer, String> insertUnordered(List<Item> items);
+
+    // One unordered bulkWrite for the whole batch; returns how many items matched
+    int applyStockAdjustments(String userId, List<StockAdjustment> adjustments);
+
+    // Keyset page ordered by sortField then _id; afterId == null starts from the beginning
+    List<Item> findPageByUserId(String userId, String sortField, boolean ascending,
+                                Object afterValue, String afterId, int limit, Collection<String> fields);
+}
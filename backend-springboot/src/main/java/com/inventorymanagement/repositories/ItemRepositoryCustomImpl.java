@@ -0,0 +1,271 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.Item;
+import org.bson.Document;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
+
+    // Pipeline updates set the version themselves so items written before versioning start counting from 0
+    private static final AggregationExpression NEXT_VERSION = context ->
+            new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L));
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SecondaryReads secondaryReads;
+
+    @Value("${app.items.write.max-attempts:5}")
+    private int maxWriteAttempts;
+
+    @Override
+    public List<Item> findAllForListing(String userId) {
+        Query query = secondaryReads.apply(new Query(Criteria.where("userId").is(userId)));
+        return secondaryReads.read(userId, template -> template.find(query, Item.class));
+    }
+
+    // Each stock change is a single findAndModify so concurrent scans on one item never lose updates
+    @Override
+    public StockChange increaseQuantity(String itemId, int quantity) {
+        Query query = new Query(Criteria.where("_id").is(itemId));
+        Update update = new Update().inc("quantity", quantity).inc("version", 1);
+
+        Item item = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Item.class);
+        if (item == null) {
+            return null;
+        }
+        return new StockChange(item, quantity);
+    }
+
+    @Override
+    public StockChange decreaseQuantity(String itemId, int quantity) {
+        // Usual case: enough on hand, so exactly the requested amount moves
+        Item item = moveToSold(Criteria.where("_id").is(itemId).and("quantity").gte(quantity), quantity);
+        if (item != null) {
+            return new StockChange(item, quantity);
+        }
+
+        // Never sell more than is on hand: move what is there, provided nothing changed it since the read.
+        // Nothing is written until an attempt matches, so giving up leaves the item as it was.
+        for (int attempt = 1; ; attempt++) {
+            Item current = mongoTemplate.findById(itemId, Item.class);
+            if (current == null) {
+                return null;
+            }
+            int onHand = current.getQuantity() == null ? 0 : Math.max(current.getQuantity(), 0);
+            int moved = Math.min(quantity, onHand);
+            item = moveToSold(Criteria.where("_id").is(itemId).and("quantity").is(current.getQuantity()), moved);
+            if (item != null) {
+                return new StockChange(item, moved);
+            }
+            if (attempt >= maxWriteAttempts) {
+                throw new OptimisticLockingFailureException("Item is being changed by another request, please try again");
+            }
+        }
+    }
+
+    // soldPrice is recomputed from the stored price; returns the post-image, or null if nothing matched
+    private Item moveToSold(Criteria criteria, int moved) {
+        Document sold = new Document("$add", List.of("$sold", moved));
+        Document set = new Document("quantity", new Document("$subtract", List.of("$quantity", moved)))
+                .append("sold", sold)
+                .append("soldPrice", new Document("$multiply",
+                        List.of(new Document("$toDecimal", "$price"), sold)));
+        AggregationOperation stage = context -> new Document("$set", set);
+        AggregationUpdate update = AggregationUpdate.from(List.of(stage)).set("version").toValue(NEXT_VERSION);
+
+        return mongoTemplate.findAndModify(new Query(criteria), update,
+                FindAndModifyOptions.options().returnNew(true), Item.class);
+    }
+
+    @Override
+    public void initializeVersion(String itemId) {
+        Query query = new Query(Criteria.where("_id").is(itemId).and("version").exists(false));
+        mongoTemplate.updateFirst(query, new Update().set("version", 0L), Item.class);
+    }
+
+    @Override
+    public Object convertStringPrices(Object afterId, int batchSize) {
+        String collection = mongoTemplate.getCollectionName(Item.class);
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("price").type(JsonSchemaObject.Type.STRING),
+                Criteria.where("soldPrice").type(JsonSchemaObject.Type.STRING)));
+        if (afterId != null) {
+            query.addCriteria(Criteria.where("_id").gt(afterId));
+        }
+        query.with(Sort.by("_id")).limit(batchSize);
+        query.fields().include("price", "soldPrice");
+
+        List<Document> found = mongoTemplate.find(query, Document.class, collection);
+        if (found.isEmpty()) {
+            return null;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        boolean any = false;
+        for (Document document : found) {
+            for (String field : List.of("price", "soldPrice")) {
+                if (!(document.get(field) instanceof String value)) {
+                    continue;
+                }
+                BigDecimal decimal;
+                try {
+                    decimal = new BigDecimal(value.trim());
+                } catch (NumberFormatException e) {
+                    // Left as it is; $toDecimal would reject it too
+                    continue;
+                }
+                // Only if it still holds the string that was read, so a concurrent write is never overwritten
+                Query unchanged = new Query(Criteria.where("_id").is(document.get("_id")).and(field).is(value));
+                bulk.updateOne(unchanged, new Update().set(field, new Decimal128(decimal)));
+                any = true;
+            }
+        }
+        if (any) {
+            bulk.execute();
+        }
+        return found.get(found.size() - 1).get("_id");
+    }
+
+    @Override
+    public Map<Integer, String> insertUnordered(List<Item> items) {
+        Map<Integer, String> failures = new HashMap<>();
+        if (items.isEmpty()) {
+            return failures;
+        }
+
+        // Bulk inserts skip the template's version initialization
+        for (Item item : items) {
+            if (item.getVersion() == null) {
+                item.setVersion(0L);
+            }
+        }
+
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Item.class)
+                    .insert(items)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failures.put(error.getIndex(), error.getMessage());
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public int applyStockAdjustments(String userId, List<StockAdjustment> adjustments) {
+        if (adjustments.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Item.class);
+        for (StockAdjustment adjustment : adjustments) {
+            Query query = new Query(Criteria.where("_id").is(adjustment.getItemId()).and("userId").is(userId));
+            bulk.updateOne(query, AggregationUpdate.from(adjustmentStages(adjustment)));
+        }
+        return bulk.execute().getMatchedCount();
+    }
+
+    // Callers only fold in lines that fit (StockAdjustment.fits), so the totals are ints
+    private List<AggregationOperation> adjustmentStages(StockAdjustment adjustment) {
+        Object quantity = new Document("$add", List.of("$quantity", Math.toIntExact(adjustment.getOffset())));
+        if (adjustment.getFloor() != null) {
+            quantity = new Document("$max", List.of(quantity, Math.toIntExact(adjustment.getFloor())));
+        }
+        Document soldDelta = new Document("$subtract",
+                List.of(new Document("$add", List.of("$quantity", Math.toIntExact(adjustment.getIncreased()))), quantity));
+
+        // Bulk updates do not bump the version on their own
+        Document set = new Document("quantity", quantity)
+                .append("sold", new Document("$add", List.of("$sold", soldDelta)))
+                .append("version", NEXT_VERSION.toDocument(Aggregation.DEFAULT_CONTEXT));
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(context -> new Document("$set", set));
+        if (adjustment.isDecreased()) {
+            // Runs after the first stage, so it sees the new sold count
+            stages.add(context -> new Document("$set", new Document("soldPrice",
+                    new Document("$multiply", List.of(new Document("$toDecimal", "$price"), "$sold")))));
+        }
+        return stages;
+    }
+
+    @Override
+    public List<Item> findPageByUserId(String userId, String sortField, boolean ascending,
+                                       Object afterValue, String afterId, int limit, Collection<String> fields) {
+        Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+        boolean byId = "_id".equals(sortField);
+
+        Query query = new Query(Criteria.where("userId").is(userId));
+        if (afterId != null) {
+            query.addCriteria(byId ? idAfter(afterId, ascending) : keyAfter(sortField, afterValue, afterId, ascending));
+        }
+
+        if (byId) {
+            query.with(Sort.by(direction, "_id"));
+        } else {
+            query.with(Sort.by(direction, sortField).and(Sort.by(direction, "_id")));
+        }
+        query.limit(limit);
+
+        if (fields != null && !fields.isEmpty()) {
+            fields.forEach(field -> query.fields().include(field));
+            if (!byId) {
+                query.fields().include(sortField);
+            }
+        }
+
+        return mongoTemplate.find(query, Item.class);
+    }
+
+    private Criteria idAfter(String afterId, boolean ascending) {
+        ObjectId id = new ObjectId(afterId);
+        return ascending ? Criteria.where("_id").gt(id) : Criteria.where("_id").lt(id);
+    }
+
+    // (key, _id) strictly after the cursor; missing values sort before everything else
+    private Criteria keyAfter(String sortField, Object afterValue, String afterId, boolean ascending) {
+        Criteria sameKeyLaterId = new Criteria().andOperator(
+                Criteria.where(sortField).is(afterValue), idAfter(afterId, ascending));
+
+        if (afterValue == null) {
+            return ascending
+                    ? new Criteria().orOperator(sameKeyLaterId, Criteria.where(sortField).ne(null))
+                    : sameKeyLaterId;
+        }
+
+        Criteria laterKey = ascending
+                ? Criteria.where(sortField).gt(afterValue)
+                : new Criteria().orOperator(Criteria.where(sortField).lt(afterValue),
+                        Criteria.where(sortField).is(null));
+        return new Criteria().orOperator(laterKey, sameKeyLaterId);
+    }
+}
@@ -0,0 +1,9 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.JobLease;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobLeaseRepository extends MongoRepository<JobLease, String>, JobLeaseRepositoryCustom {
+}
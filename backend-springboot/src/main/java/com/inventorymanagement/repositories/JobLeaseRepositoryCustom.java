@@ -0,0 +1,8 @@
+package com.inventorymanagement.repositories;
+
+import java.time.LocalDateTime;
+
+public interface JobLeaseRepositoryCustom {
+    // Takes or extends the lease when it is free, expired or already the owner's; false if another owner holds it
+    boolean tryAcquire(String job, String owner, LocalDateTime now, LocalDateTime until);
+}
@@ -0,0 +1,34 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.JobLease;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+
+public class JobLeaseRepositoryCustomImpl implements JobLeaseRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean tryAcquire(String job, String owner, LocalDateTime now, LocalDateTime until) {
+        Query query = new Query(Criteria.where("_id").is(job).orOperator(
+                Criteria.where("lockedUntil").lt(now),
+                Criteria.where("owner").is(owner)));
+        Update update = new Update().set("owner", owner).set("lockedUntil", until);
+
+        // A lease held by someone else does not match, so the upsert collides with its _id
+        try {
+            mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().upsert(true), JobLease.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.Log;
+import com.inventorymanagement.models.LogBucket;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface LogBucketRepositoryCustom {
+
+    String ARCHIVE_COLLECTION = "log_buckets_archive";
+
+    void append(List<Log> logs, int maxMoves);
+
+    // Buckets ordered by day; either bound may be null. Read from a secondary when SecondaryReads is on,
+    // never older than the user's version on the primary when called
+    Stream<LogBucket> streamForItem(String itemId, String userId, LocalDate fromDay, LocalDate toDay, boolean archived);
+
+    Stream<LogBucket> streamForUser(String userId, boolean archived);
+
+    // Rows still in the old one-document-per-move collection, ordered by date; either bound may be null.
+    // Read from a secondary when SecondaryReads is on
+    Stream<Log> streamLegacyForItem(String itemId, String userId, LocalDateTime from, LocalDateTime to);
+
+    int migrateLegacy(int batchSize);
+
+    // Returns how many buckets left the hot collection
+    int archiveBefore(LocalDate cutoff, int batchSize);
+
+    void ensureArchive(String compressor, int retainDays);
+}
@@ -0,0 +1,193 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.Log;
+import com.inventorymanagement.models.LogBucket;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.CreateCollectionOptions;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class LogBucketRepositoryCustomImpl implements LogBucketRepositoryCustom {
+
+    private static final int NAMESPACE_EXISTS = 48;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SecondaryReads secondaryReads;
+
+    // Moves for the same item and day go out as one upsert. The match skips full buckets, so a
+    // busy day opens a new bucket; two writers racing on an empty day may open one each, which
+    // reads handle like any other pair of buckets for that day.
+    @Override
+    public void append(List<Log> logs, int maxMoves) {
+        Map<String, List<Log>> byBucket = new LinkedHashMap<>();
+        for (Log log : logs) {
+            byBucket.computeIfAbsent(log.getItemId() + "|" + log.getDate().toLocalDate(),
+                    key -> new ArrayList<>()).add(log);
+        }
+
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LogBucket.class);
+        for (List<Log> group : byBucket.values()) {
+            Log first = group.get(0);
+            Query query = new Query(Criteria.where("itemId").is(first.getItemId())
+                    .and("userId").is(first.getUserId())
+                    .and("day").is(first.getDate().toLocalDate())
+                    .and("count").lt(maxMoves));
+            Update update = new Update()
+                    .push("moves").each(group.stream().map(LogBucket.Move::of).toArray())
+                    .inc("count", group.size());
+            bulkOps.upsert(query, update);
+        }
+        bulkOps.execute();
+    }
+
+    @Override
+    public Stream<LogBucket> streamForItem(String itemId, String userId, LocalDate fromDay, LocalDate toDay,
+                                           boolean archived) {
+        Criteria criteria = Criteria.where("itemId").is(itemId).and("userId").is(userId);
+        if (fromDay != null || toDay != null) {
+            Criteria day = criteria.and("day");
+            if (fromDay != null) {
+                day.gte(fromDay);
+            }
+            if (toDay != null) {
+                day.lte(toDay);
+            }
+        }
+        Query query = secondaryReads.apply(new Query(criteria).with(Sort.by("day", "_id")));
+        return secondaryReads.stream(userId,
+                template -> template.stream(query, LogBucket.class, collection(archived)));
+    }
+
+    @Override
+    public Stream<LogBucket> streamForUser(String userId, boolean archived) {
+        Query query = new Query(Criteria.where("userId").is(userId)).cursorBatchSize(100);
+        return mongoTemplate.stream(query, LogBucket.class, collection(archived));
+    }
+
+    @Override
+    public Stream<Log> streamLegacyForItem(String itemId, String userId, LocalDateTime from, LocalDateTime to) {
+        Criteria criteria = Criteria.where("itemId").is(itemId).and("userId").is(userId);
+        if (from != null || to != null) {
+            Criteria date = criteria.and("date");
+            if (from != null) {
+                date.gte(from);
+            }
+            if (to != null) {
+                date.lt(to);
+            }
+        }
+        Query query = secondaryReads.apply(new Query(criteria).with(Sort.by("date", "_id")));
+        return secondaryReads.stream(userId, template -> template.stream(query, Log.class));
+    }
+
+    // Legacy rows land in a bucket whose id is derived from item and day, and $addToSet keeps a
+    // re-run after a crash between the upsert and the delete from adding the same move twice.
+    // Such a re-run does bump "count" again, which only makes that bucket close a little early.
+    @Override
+    public int migrateLegacy(int batchSize) {
+        List<Log> batch = mongoTemplate.find(new Query().with(Sort.by("_id")).limit(batchSize), Log.class);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<Log>> byBucket = new LinkedHashMap<>();
+        for (Log log : batch) {
+            LocalDate day = log.getDate().toLocalDate();
+            byBucket.computeIfAbsent("legacy-" + log.getItemId() + "-" + day, key -> new ArrayList<>()).add(log);
+        }
+
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LogBucket.class);
+        byBucket.forEach((bucketId, group) -> {
+            Log first = group.get(0);
+            Update update = new Update()
+                    .setOnInsert("userId", first.getUserId())
+                    .setOnInsert("itemId", first.getItemId())
+                    .setOnInsert("day", first.getDate().toLocalDate())
+                    .addToSet("moves").each(group.stream().map(LogBucket.Move::of).toArray())
+                    .inc("count", group.size());
+            bulkOps.upsert(new Query(Criteria.where("_id").is(bucketId)), update);
+        });
+        bulkOps.execute();
+
+        List<String> ids = batch.stream().map(Log::getId).toList();
+        mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), Log.class);
+        return batch.size();
+    }
+
+    // Copies a batch into the archive before deleting it, so a bucket is briefly in both places
+    // and never in neither; readers drop the duplicate moves. Every write to a bucket bumps
+    // "count", so a bucket is only removed if its count is still the one that was copied; one
+    // that changed in between stays in place and is copied again on the next pass.
+    @Override
+    public int archiveBefore(LocalDate cutoff, int batchSize) {
+        Query query = new Query(Criteria.where("day").lt(cutoff)).with(Sort.by("day")).limit(batchSize);
+        List<LogBucket> batch = mongoTemplate.find(query, LogBucket.class);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations copies = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LogBucket.class,
+                ARCHIVE_COLLECTION);
+        BulkOperations removals = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LogBucket.class);
+        for (LogBucket bucket : batch) {
+            copies.replaceOne(new Query(Criteria.where("_id").is(bucket.getId())), bucket,
+                    FindAndReplaceOptions.options().upsert());
+            removals.remove(new Query(Criteria.where("_id").is(bucket.getId()).and("count").is(bucket.getCount())));
+        }
+        copies.execute();
+        return removals.execute().getDeletedCount();
+    }
+
+    // The archive is created with block compression, trading CPU on rare reads for disk
+    @Override
+    public void ensureArchive(String compressor, int retainDays) {
+        if (!mongoTemplate.collectionExists(ARCHIVE_COLLECTION)) {
+            try {
+                mongoTemplate.getDb().createCollection(ARCHIVE_COLLECTION, new CreateCollectionOptions()
+                        .storageEngineOptions(new Document("wiredTiger",
+                                new Document("configString", "block_compressor=" + compressor))));
+            } catch (MongoCommandException e) {
+                // Another instance created it first
+                if (e.getErrorCode() != NAMESPACE_EXISTS) {
+                    throw e;
+                }
+            }
+        }
+
+        IndexOperations indexOps = mongoTemplate.indexOps(ARCHIVE_COLLECTION);
+        indexOps.ensureIndex(new Index().on("itemId", Sort.Direction.ASC).on("userId", Sort.Direction.ASC)
+                .on("day", Sort.Direction.ASC).named("itemId_userId_day"));
+        indexOps.ensureIndex(new Index().on("userId", Sort.Direction.ASC).on("day", Sort.Direction.ASC)
+                .named("userId_day"));
+        if (retainDays > 0) {
+            // Mongo drops archived buckets on its own once they are retainDays old
+            indexOps.ensureIndex(new Index().on("day", Sort.Direction.ASC)
+                    .expire(Duration.ofDays(retainDays)).named("day_ttl"));
+        }
+    }
+
+    private String collection(boolean archived) {
+        return archived ? ARCHIVE_COLLECTION : mongoTemplate.getCollectionName(LogBucket.class);
+    }
+}
@@ -1,12 +1,21 @@
 package com.inventorymanagement.repositories;
 
 import com.inventorymanagement.models.Log;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
+import java.util.stream.Stream;
 
+// The old one-document-per-move collection; new moves go to LogBucketRepository
 @Repository
 public interface LogRepository extends MongoRepository<Log, String> {
-    List<Log> findByItemIdAndUserId(String itemId, String userId);
+    // Cursor-backed; callers must close the stream
+    @Meta(cursorBatchSize = 1000)
+    Stream<Log> streamByUserId(String userId);
+
+    // Stops at the first row, where count() would walk the whole collection
+    @Query(value = "{}", exists = true)
+    boolean existsAny();
 }
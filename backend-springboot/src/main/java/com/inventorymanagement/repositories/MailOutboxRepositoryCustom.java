@@ -0,0 +1,18 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.OutboxMail;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+public interface MailOutboxRepositoryCustom {
+    // Atomically takes one due mail (or one whose lease expired) and leases it to the caller
+    OutboxMail claimNext(Duration lease);
+
+    // Both only apply while the claim that returned the mail still holds its lease, so a worker that
+    // overran it cannot overwrite the state set by the worker that claimed the mail next.
+    // They return false when the lease was lost.
+    boolean markSent(OutboxMail claimed);
+
+    boolean markFailed(OutboxMail claimed, String error, LocalDateTime retryAt);
+}
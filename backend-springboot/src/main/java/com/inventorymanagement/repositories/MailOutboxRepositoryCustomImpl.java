@@ -0,0 +1,68 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.OutboxMail;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+public class MailOutboxRepositoryCustomImpl implements MailOutboxRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public OutboxMail claimNext(Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("status").is(OutboxMail.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(OutboxMail.SENDING).and("lockedUntil").lt(now)))
+                .with(Sort.by("nextAttemptAt"));
+        Update update = new Update()
+                .set("status", OutboxMail.SENDING)
+                .set("lockedUntil", now.plus(lease))
+                .inc("attempts", 1);
+
+        return mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), OutboxMail.class);
+    }
+
+    // The body of a sent mail is dropped: it may carry a password reset link
+    @Override
+    public boolean markSent(OutboxMail claimed) {
+        Update update = new Update()
+                .set("status", OutboxMail.SENT)
+                .set("sentAt", LocalDateTime.now())
+                .unset("lockedUntil")
+                .unset("lastError")
+                .unset("htmlContent");
+        return mongoTemplate.updateFirst(leased(claimed), update, OutboxMail.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean markFailed(OutboxMail claimed, String error, LocalDateTime retryAt) {
+        Update update = new Update()
+                .set("status", retryAt != null ? OutboxMail.PENDING : OutboxMail.FAILED)
+                .set("lastError", error)
+                .unset("lockedUntil");
+        if (retryAt != null) {
+            update.set("nextAttemptAt", retryAt);
+        } else {
+            update.unset("htmlContent");
+        }
+        return mongoTemplate.updateFirst(leased(claimed), update, OutboxMail.class).getModifiedCount() > 0;
+    }
+
+    // Every claim sets a new lockedUntil, so it identifies the claim that is still current
+    private Query leased(OutboxMail claimed) {
+        return new Query(Criteria.where("_id").is(claimed.getId())
+                .and("status").is(OutboxMail.SENDING)
+                .and("lockedUntil").is(claimed.getLockedUntil()));
+    }
+}
@@ -0,0 +1,9 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.RateLimitWindow;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RateLimitWindowRepository extends MongoRepository<RateLimitWindow, String>, RateLimitWindowRepositoryCustom {
+}
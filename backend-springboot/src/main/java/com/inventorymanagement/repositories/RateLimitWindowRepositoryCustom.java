@@ -0,0 +1,8 @@
+package com.inventorymanagement.repositories;
+
+import java.time.LocalDateTime;
+
+public interface RateLimitWindowRepositoryCustom {
+    // Counts one attempt, creating the window on first use; returns the count including this one
+    int increment(String id, LocalDateTime expiresAt);
+}
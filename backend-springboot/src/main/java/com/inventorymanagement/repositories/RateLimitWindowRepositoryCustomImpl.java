@@ -0,0 +1,29 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.RateLimitWindow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+
+public class RateLimitWindowRepositoryCustomImpl implements RateLimitWindowRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public int increment(String id, LocalDateTime expiresAt) {
+        Query query = new Query(Criteria.where("_id").is(id));
+        Update update = new Update()
+                .inc("count", 1)
+                .setOnInsert("expiresAt", expiresAt);
+
+        RateLimitWindow window = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), RateLimitWindow.class);
+        return window == null ? 1 : window.getCount();
+    }
+}
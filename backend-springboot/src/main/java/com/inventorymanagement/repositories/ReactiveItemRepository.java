@@ -0,0 +1,12 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.Item;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveItemRepository extends ReactiveMongoRepository<Item, String> {
+    Flux<Item> findByUserId(String userId);
+    Flux<Item> findByUserIdAndCategory(String userId, String category);
+}
@@ -0,0 +1,15 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.RefreshToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface RefreshTokenRepository extends MongoRepository<RefreshToken, String> {
+    // findAndRemove: of two concurrent refreshes with the same token only one gets it back
+    RefreshToken deleteByIdAndExpiresAtAfter(String id, LocalDateTime now);
+
+    long deleteByUserId(String userId);
+}
@@ -0,0 +1,106 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.InventoryVersion;
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoClient;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Read preference for the large listings that can tolerate some lag: the full item list behind
+// getItemsByUser and the history behind getLogs. With app.mongo.secondary-reads on they go to a
+// secondary no more than max-staleness-seconds behind the primary, falling back to the primary
+// when none qualifies; everything else, and every write, stays on the primary.
+//
+// Those listings carry an ETag built from the user's version on the primary, so a secondary must
+// not answer them with data older than that version. Each runs in a causally consistent session
+// that first reads the version from the primary; the driver then holds the secondary read until
+// that node has applied the version and every write before it.
+@Component
+public class SecondaryReads {
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.mongo.secondary-reads:false}")
+    private boolean enabled;
+
+    // MongoDB refuses anything below 90 seconds
+    @Value("${app.mongo.max-staleness-seconds:90}")
+    private long maxStalenessSeconds;
+
+    private ReadPreference readPreference;
+
+    @PostConstruct
+    public void init() {
+        if (enabled && maxStalenessSeconds < 90) {
+            throw new IllegalStateException("app.mongo.max-staleness-seconds must be at least 90");
+        }
+        readPreference = enabled
+                ? ReadPreference.secondaryPreferred(maxStalenessSeconds, TimeUnit.SECONDS)
+                : ReadPreference.primary();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Query apply(Query query) {
+        return enabled ? query.withReadPreference(readPreference) : query;
+    }
+
+    // Runs reads of the user's data, given a template to run them with, no older than the user's
+    // version on the primary as of this call
+    public <T> T read(String userId, Function<MongoTemplate, T> reads) {
+        if (!secondaryPossible()) {
+            return reads.apply(mongoTemplate);
+        }
+        try (ClientSession session = caughtUpSession(userId)) {
+            return reads.apply(mongoTemplate.withSession(session));
+        }
+    }
+
+    // As read, for a stream: the session stays open until the stream is closed
+    public <T> Stream<T> stream(String userId, Function<MongoTemplate, Stream<T>> reads) {
+        if (!secondaryPossible()) {
+            return reads.apply(mongoTemplate);
+        }
+        ClientSession session = caughtUpSession(userId);
+        try {
+            return reads.apply(mongoTemplate.withSession(session)).onClose(session::close);
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+
+    // A standalone server has neither secondaries nor sessions, so reads there go straight through
+    private boolean secondaryPossible() {
+        return enabled && mongoClient.getClusterDescription().getLogicalSessionTimeoutMinutes() != null;
+    }
+
+    private ClientSession caughtUpSession(String userId) {
+        ClientSession session = mongoClient.startSession(ClientSessionOptions.builder()
+                .causallyConsistent(true)
+                .build());
+        try {
+            mongoTemplate.withSession(session).findById(userId, InventoryVersion.class);
+            return session;
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+}
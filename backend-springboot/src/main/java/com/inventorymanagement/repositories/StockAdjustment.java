@@ -0,0 +1,61 @@
+package com.inventorymanagement.repositories;
+
+import lombok.Getter;
+
+// A run of increases and decreases on one item folded into a single update.
+// Decreases are capped at the stock on hand, so the result is max(quantity + offset, floor).
+@Getter
+public class StockAdjustment {
+    private final String itemId;
+    private long offset;
+    // null until the first decrease; no floor applies before that
+    private Long floor;
+    private long increased;
+    private boolean decreased;
+
+    public StockAdjustment(String itemId) {
+        this.itemId = itemId;
+    }
+
+    // Positive adds stock, negative removes it
+    public void add(int delta) {
+        if (delta > 0) {
+            increase(delta);
+        } else {
+            decrease(-(long) delta);
+        }
+    }
+
+    // False when folding in delta would take a total past the int range the update pipeline works
+    // in; the floor never exceeds increased, so offset and increased are the ones to check
+    public boolean fits(int delta) {
+        long offsetAfter = offset + delta;
+        long increasedAfter = increased + Math.max(delta, 0);
+        return offsetAfter >= Integer.MIN_VALUE && offsetAfter <= Integer.MAX_VALUE
+                && increasedAfter <= Integer.MAX_VALUE;
+    }
+
+    public void increase(long quantity) {
+        offset += quantity;
+        increased += quantity;
+        if (floor != null) {
+            floor += quantity;
+        }
+    }
+
+    public void decrease(long quantity) {
+        offset -= quantity;
+        floor = Math.max(floor == null ? 0 : floor - quantity, 0);
+        decreased = true;
+    }
+
+    public long quantityAfter(long quantityBefore) {
+        long quantity = quantityBefore + offset;
+        return floor == null ? quantity : Math.max(quantity, floor);
+    }
+
+    // Every unit that left stock without being added back was sold
+    public long soldDelta(long quantityBefore) {
+        return quantityBefore + increased - quantityAfter(quantityBefore);
+    }
+}
@@ -0,0 +1,14 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.Item;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class StockChange {
+    // Item as it is after the change was applied
+    private Item item;
+    // Units actually moved; a decrease is capped at the stock on hand
+    private int applied;
+}
@@ -2,12 +2,17 @@ package com.inventorymanagement.repositories;
 
 import com.inventorymanagement.models.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    // Only replaces the hash that was checked, so a password reset in between is never undone
+    @Update("{ '$set': { 'password': ?2 } }")
+    long findAndSetPasswordByIdAndPassword(String id, String currentHash, String newHash);
 }
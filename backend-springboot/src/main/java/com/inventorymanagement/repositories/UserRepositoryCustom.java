@@ -0,0 +1,9 @@
+package com.inventorymanagement.repositories;
+
+import java.util.List;
+
+public interface UserRepositoryCustom {
+    // Keeps the oldest account on each shared email and moves the others to a unique placeholder address;
+    // returns the ids of the accounts that were moved
+    List<String> renameDuplicateEmails();
+}
@@ -0,0 +1,44 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.models.User;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<String> renameDuplicateEmails() {
+        Aggregation duplicates = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("email").ne(null)),
+                Aggregation.group("email").push("_id").as("ids").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1)));
+
+        List<String> renamed = new ArrayList<>();
+        for (Document group : mongoTemplate.aggregate(duplicates, User.class, Document.class)) {
+            String email = group.getString("_id");
+            List<ObjectId> ids = new ArrayList<>(group.getList("ids", ObjectId.class));
+            ids.sort(null);
+            // Ids grow with creation time, so the first one registered keeps the address
+            for (ObjectId id : ids.subList(1, ids.size())) {
+                Query query = new Query(Criteria.where("_id").is(id).and("email").is(email));
+                Update update = new Update().set("email", "duplicate-" + id.toHexString() + "-" + email);
+                if (mongoTemplate.updateFirst(query, update, User.class).getModifiedCount() > 0) {
+                    renamed.add(id.toHexString());
+                }
+            }
+        }
+        return renamed;
+    }
+}
@@ -23,9 +23,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String token = getTokenFromRequest(request);
             
-            if (token != null && tokenProvider.validateToken(token)) {
-                String userId = tokenProvider.getUserIdFromToken(token);
-                request.setAttribute("userId", userId);
+            if (token != null) {
+                String userId = tokenProvider.resolveUserId(token);
+                if (userId != null) {
+                    request.setAttribute("userId", userId);
+                }
             }
         } catch (Exception ex) {
             logger.info("Could not set user authentication in security context", ex);
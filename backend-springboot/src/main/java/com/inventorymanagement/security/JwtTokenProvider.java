@@ -1,14 +1,24 @@
 package com.inventorymanagement.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenProvider {
@@ -16,49 +26,123 @@ public class JwtTokenProvider {
     @Value("${jwt.secret:your_jwt_secret_key_here_make_it_very_long_and_secure}")
     private String jwtSecret;
 
-    @Value("${jwt.expiration:3600000}")
+    @Value("${jwt.expiration:900000}")
     private long jwtExpirationMs;
 
+    @Value("${jwt.cache.max-size:10000}")
+    private long tokenCacheMaxSize;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer verifyTimer;
+
+    // Key and parser are immutable and thread-safe, so they are built once
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Tokens that already passed signature verification, kept until they expire
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        verifyTimer = Timer.builder("jwt.verify")
+                .description("HMAC verification and parsing of a JWT")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(tokenCacheMaxSize)
+                .recordStats()
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+                        long remainingMs = verified.expiresAt - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken verified,
+                                                  long currentTime, long currentDuration) {
+                        return expireAfterCreate(token, verified, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken verified,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified-tokens");
+    }
+
     public String generateToken(String userId) {
-        SecretKey key = getSigningKey();
         return Jwts.builder()
                 .claim("user", new UserIdClaim(userId))
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(key, SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
     public String generatePasswordResetToken(String userId) {
-        SecretKey key = getSigningKey();
         return Jwts.builder()
                 .claim("id", userId)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + 600000)) // 10 minutes
-                .signWith(key, SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
     public boolean validateToken(String token) {
+        return parseClaims(token) != null;
+    }
+
+    // Verifies the token once and returns its claims, or null if it is invalid or expired
+    public Claims parseClaims(String token) {
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
-            getSigningKey();
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            return parser.parseSignedClaims(token).getPayload();
         } catch (Exception e) {
-            return false;
+            return null;
+        } finally {
+            sample.stop(verifyTimer);
+        }
+    }
+
+    // Single entry point for request authentication: verifies at most once per token lifetime
+    public String resolveUserId(String token) {
+        VerifiedToken cached = verifiedTokens.getIfPresent(token);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            return cached.userId;
         }
+
+        Claims claims = parseClaims(token);
+        if (claims == null) {
+            return null;
+        }
+
+        String userId = getUserIdFromClaims(claims);
+        if (userId != null && claims.getExpiration() != null) {
+            verifiedTokens.put(token, new VerifiedToken(userId, claims.getExpiration().getTime()));
+        }
+        return userId;
     }
 
     public String getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        
+        return getUserIdFromClaims(parser.parseSignedClaims(token).getPayload());
+    }
+
+    public String getUserIdFromPasswordResetToken(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        return claims.get("id", String.class);
+    }
+
+    private String getUserIdFromClaims(Claims claims) {
         Object userObj = claims.get("user");
         if (userObj instanceof java.util.Map) {
             @SuppressWarnings("unchecked")
@@ -68,17 +152,14 @@ public class JwtTokenProvider {
         return null;
     }
 
-    public String getUserIdFromPasswordResetToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return claims.get("id", String.class);
-    }
+    private static class VerifiedToken {
+        private final String userId;
+        private final long expiresAt;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        private VerifiedToken(String userId, long expiresAt) {
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
     }
 
     // Inner class to match the JWT structure
@@ -0,0 +1,64 @@
+package com.inventorymanagement.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Token buckets in this instance's memory. Idle buckets are dropped once they would be full again anyway.
+@Component
+@ConditionalOnProperty(name = "app.login.rate.store", havingValue = "local", matchIfMissing = true)
+public class LocalRateLimitStore implements RateLimitStore {
+
+    @Value("${app.login.rate.window-seconds:60}")
+    private long idleSeconds;
+
+    @Value("${app.login.rate.max-keys:100000}")
+    private long maxKeys;
+
+    private Cache<String, Bucket> buckets;
+
+    @PostConstruct
+    public void init() {
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofSeconds(idleSeconds))
+                .build();
+    }
+
+    @Override
+    public long acquire(String key, int limit, long windowSeconds) {
+        return buckets.get(key, k -> new Bucket(limit, windowSeconds)).take();
+    }
+
+    // Starts full and refills capacity tokens per window, one at a time
+    private static final class Bucket {
+        private final int capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(int capacity, long windowSeconds) {
+            this.capacity = capacity;
+            this.tokensPerNano = capacity / (double) Duration.ofSeconds(windowSeconds).toNanos();
+            this.tokens = capacity;
+            this.refilledAt = System.nanoTime();
+        }
+
+        synchronized long take() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            double nanosUntilToken = (1 - tokens) / tokensPerNano;
+            return Math.max(1, (long) Math.ceil(nanosUntilToken / 1_000_000_000.0));
+        }
+    }
+}
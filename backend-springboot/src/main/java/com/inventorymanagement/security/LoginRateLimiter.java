@@ -0,0 +1,40 @@
+package com.inventorymanagement.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+// Limits per client address and per email, checked before a login costs a BCrypt compare
+@Component
+public class LoginRateLimiter {
+
+    @Autowired
+    private RateLimitStore store;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.login.rate.per-ip:30}")
+    private int perIp;
+
+    @Value("${app.login.rate.per-email:10}")
+    private int perEmail;
+
+    @Value("${app.login.rate.window-seconds:60}")
+    private long windowSeconds;
+
+    // Returns 0 when the attempt may go ahead, otherwise how many seconds to wait
+    public long acquire(String clientAddress, String email) {
+        long wait = store.acquire("ip:" + clientAddress, perIp, windowSeconds);
+        if (wait == 0) {
+            wait = store.acquire("email:" + email.trim().toLowerCase(Locale.ROOT), perEmail, windowSeconds);
+        }
+        if (wait > 0) {
+            meterRegistry.counter("login.rate.limited").increment();
+        }
+        return wait;
+    }
+}
@@ -0,0 +1,32 @@
+package com.inventorymanagement.security;
+
+import com.inventorymanagement.repositories.RateLimitWindowRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+// Fixed windows counted in Mongo, so every instance sees the same totals. One upsert per
+// attempt; finished windows are removed by a TTL index one window after they close.
+@Component
+@ConditionalOnProperty(name = "app.login.rate.store", havingValue = "mongo")
+public class MongoRateLimitStore implements RateLimitStore {
+
+    @Autowired
+    private RateLimitWindowRepository windowRepository;
+
+    @Override
+    public long acquire(String key, int limit, long windowSeconds) {
+        long nowSeconds = Instant.now().getEpochSecond();
+        long window = nowSeconds / windowSeconds;
+        long windowEnd = (window + 1) * windowSeconds;
+
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(Instant.ofEpochSecond(windowEnd + windowSeconds),
+                ZoneId.systemDefault());
+        int count = windowRepository.increment(key + "@" + window, expiresAt);
+        return count <= limit ? 0 : Math.max(1, windowEnd - nowSeconds);
+    }
+}
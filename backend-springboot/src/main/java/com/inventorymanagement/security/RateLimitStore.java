@@ -0,0 +1,10 @@
+package com.inventorymanagement.security;
+
+// Where attempt counts live. Chosen with app.login.rate.store=local|mongo; with several
+// instances only the Mongo store enforces one limit across all of them.
+public interface RateLimitStore {
+
+    // Counts one attempt for key; returns 0 if it is within limit per window, otherwise how many
+    // seconds until another attempt would be allowed
+    long acquire(String key, int limit, long windowSeconds);
+}
@@ -0,0 +1,51 @@
+package com.inventorymanagement.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+// Runs just ahead of the security chain (order -100) and exposes the caller as the "userId" exchange attribute.
+// Verification is CPU-only and usually a cache hit, so it stays on the event loop.
+@Component
+@Order(-101)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveJwtAuthenticationFilter implements WebFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveJwtAuthenticationFilter.class);
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        try {
+            String token = getTokenFromRequest(exchange);
+
+            if (token != null) {
+                String userId = tokenProvider.resolveUserId(token);
+                if (userId != null) {
+                    exchange.getAttributes().put("userId", userId);
+                }
+            }
+        } catch (Exception ex) {
+            logger.info("Could not set user authentication in security context", ex);
+        }
+
+        return chain.filter(exchange);
+    }
+
+    private String getTokenFromRequest(ServerWebExchange exchange) {
+        String bearerToken = exchange.getRequest().getHeaders().getFirst("authtoken");
+        if (bearerToken != null && !bearerToken.isEmpty()) {
+            return bearerToken;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,87 @@
+package com.inventorymanagement.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.inventorymanagement.events.InventoryChangedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+// Misses for a per-user cache kept current from InventoryChangedEvent, loaded outside the cache
+// rather than through cache.get, whose loader runs inside the map's compute: a virtual request
+// thread blocked on Mongo there pins its carrier for the whole read.
+//
+// A load could then read Mongo before a write whose event arrives before it is installed, and
+// that event would find nothing to update. So events for a user with a load running are queued,
+// and replayed onto what the load read before it goes into the cache. Applying an event twice
+// must be harmless: one can arrive while the loaded value is being installed. A load that
+// overlapped invalidateAll, or an event the value cannot take, answers its caller but is not kept.
+final class CacheLoads<V> {
+
+    private final Cache<String, V> cache;
+    private final Function<String, V> load;
+    // false when the value cannot take the event and must be loaded again
+    private final BiPredicate<V, InventoryChangedEvent> apply;
+
+    private final ConcurrentHashMap<String, List<InventoryChangedEvent>> running = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    CacheLoads(Cache<String, V> cache, Function<String, V> load, BiPredicate<V, InventoryChangedEvent> apply) {
+        this.cache = cache;
+        this.load = load;
+        this.apply = apply;
+    }
+
+    V get(String userId) {
+        V cached = cache.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Only one load per user queues events; any other running at the same time is not kept
+        List<InventoryChangedEvent> missed = new ArrayList<>();
+        if (running.putIfAbsent(userId, missed) != null) {
+            return load.apply(userId);
+        }
+        long seen = invalidations.get();
+        V loaded;
+        try {
+            loaded = load.apply(userId);
+        } catch (RuntimeException e) {
+            running.remove(userId, missed);
+            throw e;
+        }
+
+        // Under the same lock as queueing, so no event falls between the replay and the install
+        List<V> current = new ArrayList<>(1);
+        running.compute(userId, (id, queue) -> {
+            if (queue != missed) {
+                return queue;
+            }
+            if (invalidations.get() == seen && missed.stream().allMatch(event -> apply.test(loaded, event))) {
+                V existing = cache.asMap().putIfAbsent(userId, loaded);
+                if (existing != null) {
+                    current.add(existing);
+                }
+            }
+            return null;
+        });
+        return current.isEmpty() ? loaded : current.get(0);
+    }
+
+    // Called by the cache's listener for every event, before it updates the cached value
+    void queue(InventoryChangedEvent event) {
+        running.computeIfPresent(event.getUserId(), (userId, queue) -> {
+            queue.add(event);
+            return queue;
+        });
+    }
+
+    void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,342 @@
+package com.inventorymanagement.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.inventorymanagement.events.InventoryChangedEvent;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.User;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Follows one change stream over items and users and replays writes made by other instances into
+// this one's caches: item changes are republished as remote InventoryChangedEvents, so the item
+// cache, search index and event streams all see them; user inserts and deletes clear the existence
+// cache. ETag versions are stored in Mongo and need nothing from here. Needs a replica set.
+//
+// Writes made here come back on the stream too. Those are recognised by the item version this
+// instance wrote and skipped, so the caches do not apply them twice. Saves and deletes record
+// theirs as soon as Mongo answers, stock changes when they publish; the echo can still arrive
+// first, so each change is held for echo-grace-ms before it is applied.
+@Component
+@ConditionalOnProperty(name = "app.cluster.invalidation", havingValue = "change-stream")
+public class ChangeStreamInvalidationBus extends AbstractMongoEventListener<Item> implements InvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeStreamInvalidationBus.class);
+
+    // Only quantity, sold and soldPrice change on a stock move; the version moves with every write
+    private static final Set<String> STOCK_FIELDS = Set.of("quantity", "sold", "soldPrice", "version");
+
+    // Recorded for items this instance deleted
+    private static final long DELETED = Long.MAX_VALUE;
+
+    // Server errors after which the stream cannot resume where it stopped
+    private static final Set<Integer> RESUME_LOST = Set.of(280, 286);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private ItemSearchIndex searchIndex;
+
+    @Autowired
+    private UserExistenceCache userExistenceCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.cluster.retry-ms:5000}")
+    private long retryMs;
+
+    @Value("${app.cluster.own-write-memory-seconds:60}")
+    private long ownWriteMemorySeconds;
+
+    @Value("${app.cluster.echo-grace-ms:250}")
+    private long echoGraceMs;
+
+    // Deleted items only carry their owner with pre-images, which need MongoDB 6.0 or later
+    @Value("${app.cluster.pre-images:true}")
+    private boolean preImages;
+
+    private String itemsCollection;
+    private String usersCollection;
+
+    // Latest version of each item written here, so its echo on the stream can be skipped
+    private Cache<String, Long> ownWrites;
+
+    // Received changes waiting out the echo grace, oldest first; only the worker uses it
+    private final Deque<HeldChange> held = new ArrayDeque<>();
+
+    private volatile boolean running = true;
+    private volatile boolean connected;
+    private boolean preImagesEnabled;
+    private boolean warned;
+    private Thread worker;
+
+    @PostConstruct
+    public void init() {
+        itemsCollection = mongoTemplate.getCollectionName(Item.class);
+        usersCollection = mongoTemplate.getCollectionName(User.class);
+        ownWrites = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofSeconds(ownWriteMemorySeconds))
+                .build();
+
+        worker = Thread.ofPlatform().name("invalidation-bus").daemon(true).start(this::follow);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+    }
+
+    @Override
+    public boolean isClusterWide() {
+        return true;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Item> event) {
+        Item item = event.getSource();
+        if (item.getId() != null && item.getVersion() != null) {
+            ownWrites.asMap().merge(item.getId(), item.getVersion(), Math::max);
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Item> event) {
+        if (event.getSource().get("_id") instanceof ObjectId id) {
+            ownWrites.put(id.toHexString(), DELETED);
+        }
+    }
+
+    @EventListener
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        if (event.getKind() == InventoryChangedEvent.Kind.DELETED) {
+            event.getItemIds().forEach(id -> ownWrites.put(id, DELETED));
+            return;
+        }
+        for (Item item : event.getItems()) {
+            if (item.getVersion() != null) {
+                ownWrites.asMap().merge(item.getId(), item.getVersion(), Math::max);
+            }
+        }
+    }
+
+    private void follow() {
+        BsonDocument resumeToken = null;
+        while (running) {
+            if (preImages && !preImagesEnabled) {
+                enablePreImages();
+            }
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = open(resumeToken).cursor()) {
+                connected = true;
+                logger.info("Following changes to {} and {}", itemsCollection, usersCollection);
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change != null) {
+                        held.addLast(new HeldChange(change, System.nanoTime()));
+                    }
+                    applyHeld(TimeUnit.MILLISECONDS.toNanos(echoGraceMs));
+                    // Also moves past events the pipeline filtered out
+                    if (cursor.getResumeToken() != null) {
+                        resumeToken = cursor.getResumeToken();
+                    }
+                }
+            } catch (MongoCommandException e) {
+                // Already past the resume token, so they are applied now rather than lost
+                applyHeld(0);
+                if (RESUME_LOST.contains(e.getErrorCode())) {
+                    // Changes in between are gone; drop everything cached and start from now
+                    logger.warn("Change stream could not resume, clearing caches", e);
+                    resumeToken = null;
+                    invalidateAll();
+                } else {
+                    retryLater(e);
+                }
+            } catch (MongoException | IllegalStateException e) {
+                applyHeld(0);
+                retryLater(e);
+            }
+        }
+    }
+
+    private ChangeStreamIterable<Document> open(BsonDocument resumeToken) {
+        Bson match = Aggregates.match(Filters.or(
+                Filters.eq("ns.coll", itemsCollection),
+                Filters.and(Filters.eq("ns.coll", usersCollection),
+                        Filters.in("operationType", "insert", "delete"))));
+
+        ChangeStreamIterable<Document> stream = mongoTemplate.getDb()
+                .watch(List.of(match))
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                // Held changes are only applied between reads
+                .maxAwaitTime(Math.max(100, Math.min(1000, echoGraceMs)), TimeUnit.MILLISECONDS);
+        if (preImages) {
+            stream = stream.fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE);
+        }
+        return resumeToken == null ? stream : stream.resumeAfter(resumeToken);
+    }
+
+    private void enablePreImages() {
+        try {
+            mongoTemplate.getDb().runCommand(new Document("collMod", itemsCollection)
+                    .append("changeStreamPreAndPostImages", new Document("enabled", true)));
+            preImagesEnabled = true;
+        } catch (MongoCommandException e) {
+            // Deletes still arrive, just without an owner to route them to
+            logger.warn("Could not enable pre-images on {}: {}", itemsCollection, e.getErrorMessage());
+            preImagesEnabled = true;
+        } catch (MongoException e) {
+            logger.debug("Could not enable pre-images on {} yet", itemsCollection, e);
+        }
+    }
+
+    private void applyHeld(long graceNanos) {
+        while (!held.isEmpty() && System.nanoTime() - held.peekFirst().receivedAt() >= graceNanos) {
+            apply(held.pollFirst().change());
+        }
+    }
+
+    private void apply(ChangeStreamDocument<Document> change) {
+        String collection = change.getNamespace() == null ? null : change.getNamespace().getCollectionName();
+        try {
+            if (itemsCollection.equals(collection)) {
+                applyItemChange(change);
+            } else if (usersCollection.equals(collection)) {
+                userExistenceCache.invalidate(documentId(change));
+                count("users");
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not apply change to {}, clearing caches", collection, e);
+            invalidateAll();
+        }
+    }
+
+    private void applyItemChange(ChangeStreamDocument<Document> change) {
+        String itemId = documentId(change);
+        Long own = ownWrites.getIfPresent(itemId);
+
+        if (change.getOperationType() == OperationType.DELETE) {
+            Document before = change.getFullDocumentBeforeChange();
+            if (own != null && own == DELETED) {
+                return;
+            }
+            if (before == null) {
+                // Without pre-images the owner is unknown; cached copies go when their user reloads
+                count("items-unrouted");
+                return;
+            }
+            eventPublisher.publishEvent(InventoryChangedEvent.remote(before.getString("userId"),
+                    InventoryChangedEvent.Kind.DELETED, List.of(itemId), List.of()));
+            count("items");
+            return;
+        }
+
+        // Gone again before the lookup; its delete follows on the stream
+        if (change.getFullDocument() == null) {
+            return;
+        }
+        Item item = mongoTemplate.getConverter().read(Item.class, change.getFullDocument());
+        if (own != null && item.getVersion() != null && item.getVersion() <= own) {
+            return;
+        }
+
+        boolean stockOnly = change.getOperationType() == OperationType.UPDATE
+                && change.getUpdateDescription() != null
+                && change.getUpdateDescription().getUpdatedFields() != null
+                && (change.getUpdateDescription().getRemovedFields() == null
+                        || change.getUpdateDescription().getRemovedFields().isEmpty())
+                && STOCK_FIELDS.containsAll(change.getUpdateDescription().getUpdatedFields().keySet());
+        InventoryChangedEvent.Kind kind = stockOnly ? InventoryChangedEvent.Kind.STOCK : InventoryChangedEvent.Kind.SAVED;
+        eventPublisher.publishEvent(InventoryChangedEvent.remote(item.getUserId(), kind, List.of(itemId), List.of(item)));
+        count("items");
+    }
+
+    private String documentId(ChangeStreamDocument<Document> change) {
+        BsonValue id = change.getDocumentKey().get("_id");
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+    }
+
+    private void invalidateAll() {
+        itemCache.invalidateAll();
+        searchIndex.invalidateAll();
+        userExistenceCache.invalidateAll();
+    }
+
+    private void retryLater(Exception e) {
+        if (!running) {
+            return;
+        }
+        if (connected || !warned) {
+            // The retry resumes after the last change seen, so nothing in between is lost
+            logger.warn("Change stream unavailable, retrying every {} ms", retryMs, e);
+            warned = true;
+        } else {
+            logger.debug("Change stream still unavailable", e);
+        }
+        connected = false;
+        try {
+            Thread.sleep(retryMs);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private void count(String source) {
+        meterRegistry.counter("cluster.invalidations", "source", source).increment();
+    }
+
+    private record HeldChange(ChangeStreamDocument<Document> change, long receivedAt) {
+    }
+}
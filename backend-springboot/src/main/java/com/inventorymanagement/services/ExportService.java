@@ -0,0 +1,71 @@
+package com.inventorymanagement.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.Log;
+import com.inventorymanagement.repositories.ItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class ExportService {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private LogBucketService logBucketService;
+
+    @Autowired
+    private UserExistenceCache userExistenceCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    public void checkUser(String userId) throws Exception {
+        if (!userExistenceCache.exists(userId)) {
+            throw new Exception("No such user");
+        }
+    }
+
+    // Writes one JSON object per line, or with cbor a CBOR sequence of the same objects: every
+    // item first, then every log. Rows come straight off Mongo cursors, so memory does not grow
+    // with the data set.
+    public void exportInventory(String userId, OutputStream out, boolean cbor) throws IOException {
+        ObjectMapper mapper = cbor ? cborConverter.getObjectMapper() : objectMapper;
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            try (Stream<Item> items = itemRepository.streamByUserId(userId)) {
+                writeAll(generator, "item", items.iterator(), !cbor);
+            }
+            try (Stream<Log> logs = logBucketService.streamUserLogs(userId)) {
+                writeAll(generator, "log", logs.iterator(), !cbor);
+            }
+        }
+    }
+
+    private void writeAll(JsonGenerator generator, String type, Iterator<?> rows, boolean newlines)
+            throws IOException {
+        while (rows.hasNext()) {
+            generator.writeStartObject();
+            generator.writeStringField("type", type);
+            generator.writeFieldName("data");
+            generator.writeObject(rows.next());
+            generator.writeEndObject();
+            if (newlines) {
+                generator.writeRaw('\n');
+            }
+        }
+    }
+}
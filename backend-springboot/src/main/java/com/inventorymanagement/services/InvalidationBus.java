@@ -0,0 +1,23 @@
+package com.inventorymanagement.services;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+// Keeps the in-memory caches (items, search indexes, user existence) in step with writes. Writes
+// made on this instance reach them directly; the bus decides whether writes made by other
+// instances do too. Chosen with app.cluster.invalidation=local|change-stream.
+public interface InvalidationBus extends HealthIndicator {
+
+    // True when writes made by other instances are delivered to this one
+    boolean isClusterWide();
+
+    // False while a cluster-wide bus has lost its feed and caches may be going stale
+    boolean isConnected();
+
+    @Override
+    default Health health() {
+        return (isConnected() ? Health.up() : Health.down())
+                .withDetail("clusterWide", isClusterWide())
+                .build();
+    }
+}
@@ -0,0 +1,374 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.dto.InventoryDelta;
+import com.inventorymanagement.events.InventoryChangedEvent;
+import com.inventorymanagement.models.Item;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Fans InventoryChangedEvent out to each user's open change streams. Writers only add to a
+// small per-subscriber map and never wait on a client: changes to the same item are coalesced,
+// and a subscriber that falls more than app.events.buffer-size items behind has its backlog
+// replaced by a single resync event. Sending happens on a separate pool, one drain per
+// subscriber at a time, so idle subscribers hold no thread. A send still running after
+// app.events.write-timeout-ms belongs to a client that stopped reading: that subscriber is
+// dropped and its thread no longer counts against the pool. Heartbeats and that check run on
+// the stream's own timer, not on the shared @Scheduled thread.
+@Component
+public class InventoryEventStream {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.events.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${app.events.max-streams-per-user:5}")
+    private int maxStreamsPerUser;
+
+    // Clients reconnect after this; EventSource does so on its own
+    @Value("${app.events.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.events.heartbeat-ms:25000}")
+    private long heartbeatMs;
+
+    @Value("${app.events.write-timeout-ms:10000}")
+    private long writeTimeoutMs;
+
+    @Value("${app.events.send-threads:4}")
+    private int sendThreads;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger stalledSends = new AtomicInteger();
+    private ExecutorService executor;
+    // Only on platform threads, where a stalled send takes a thread from the pool
+    private ThreadPoolExecutor platformPool;
+    private ScheduledExecutorService timer;
+    private Counter resyncs;
+    private Counter evictions;
+
+    // Where a subscription's changes go; implemented over SseEmitter and over a FluxSink
+    public interface Sink {
+        // false while the client cannot take more; changes wait, coalesced, until wake() is called
+        default boolean ready() {
+            return true;
+        }
+
+        void send(List<InventoryDelta> deltas) throws Exception;
+
+        void heartbeat() throws Exception;
+
+        void close();
+    }
+
+    @PostConstruct
+    public void init() {
+        // A client that stops reading blocks its send; on virtual threads that costs no carrier
+        if (virtualThreads) {
+            executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("inventory-events-", 1).factory());
+        } else {
+            ThreadFactory threadFactory = Thread.ofPlatform().name("inventory-events-", 1).daemon(true).factory();
+            // Each subscriber queues at most one drain, so the queue is bounded by the subscriber count
+            platformPool = new ThreadPoolExecutor(sendThreads, sendThreads, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), threadFactory);
+            executor = platformPool;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("inventory-events-timer").daemon(true).factory());
+        timer.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        long sweepMs = Math.max(writeTimeoutMs / 4, 10);
+        timer.scheduleWithFixedDelay(this::evictStalled, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+        meterRegistry.gaugeMapSize("inventory.events.users", List.of(), subscriptions);
+        meterRegistry.gauge("inventory.events.stalled", stalledSends);
+        resyncs = meterRegistry.counter("inventory.events.resyncs");
+        evictions = meterRegistry.counter("inventory.events.evictions");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.values().forEach(set -> List.copyOf(set).forEach(Subscription::cancel));
+        timer.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public Subscription subscribe(String userId, Sink sink) {
+        Subscription subscription = new Subscription(userId, sink);
+        subscriptions.compute(userId, (id, set) -> {
+            if (set == null) {
+                set = ConcurrentHashMap.newKeySet();
+            }
+            if (set.size() >= maxStreamsPerUser) {
+                throw new IllegalStateException("Too many open streams");
+            }
+            set.add(subscription);
+            return set;
+        });
+        // Opens the stream with a comment so proxies and clients see it is live
+        subscription.heartbeat();
+        return subscription;
+    }
+
+    @EventListener
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        Set<Subscription> set = subscriptions.get(event.getUserId());
+        if (set == null || set.isEmpty()) {
+            return;
+        }
+        List<InventoryDelta> deltas = toDeltas(event);
+        for (Subscription subscription : set) {
+            subscription.offer(deltas);
+        }
+    }
+
+    // Keeps idle connections open through proxies and finds clients that went away
+    void heartbeat() {
+        for (Set<Subscription> set : subscriptions.values()) {
+            set.forEach(Subscription::heartbeat);
+        }
+    }
+
+    void evictStalled() {
+        long now = System.nanoTime();
+        for (Set<Subscription> set : subscriptions.values()) {
+            for (Subscription subscription : set) {
+                if (subscription.stalled(now)) {
+                    subscription.evict();
+                }
+            }
+        }
+    }
+
+    // A stalled send holds its thread until the container times the socket write out; the pool
+    // grows by one for each, so send-threads stay free for subscribers that are reading
+    private synchronized void resizePool() {
+        if (platformPool == null) {
+            return;
+        }
+        int size = sendThreads + stalledSends.get();
+        if (size > platformPool.getMaximumPoolSize()) {
+            platformPool.setMaximumPoolSize(size);
+            platformPool.setCorePoolSize(size);
+        } else {
+            platformPool.setCorePoolSize(size);
+            platformPool.setMaximumPoolSize(size);
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.userId, (id, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static List<InventoryDelta> toDeltas(InventoryChangedEvent event) {
+        List<InventoryDelta> deltas = new ArrayList<>(event.getItemIds().size());
+        switch (event.getKind()) {
+            case SAVED -> event.getItems().forEach(item -> deltas.add(InventoryDelta.item(item)));
+            case DELETED -> event.getItemIds().forEach(id -> deltas.add(InventoryDelta.deleted(id)));
+            case STOCK -> {
+                if (event.getItems().isEmpty()) {
+                    event.getItemIds().forEach(id -> deltas.add(InventoryDelta.changed(id)));
+                } else {
+                    for (Item item : event.getItems()) {
+                        deltas.add(InventoryDelta.stock(item));
+                    }
+                }
+            }
+        }
+        return deltas;
+    }
+
+    // A full item or a delete describes the item completely; a stock change on top of anything
+    // but another stock change no longer does, so the client is told to fetch the item
+    private static InventoryDelta coalesce(InventoryDelta pending, InventoryDelta next) {
+        if (pending == null || !next.getType().equals(InventoryDelta.STOCK)
+                || pending.getType().equals(InventoryDelta.STOCK)) {
+            return next;
+        }
+        return InventoryDelta.changed(next.getItemId());
+    }
+
+    public final class Subscription {
+        private final String userId;
+        private final Sink sink;
+        private final LinkedHashMap<String, InventoryDelta> pending = new LinkedHashMap<>();
+        private boolean resync;
+        private boolean heartbeatDue;
+        private boolean draining;
+        private boolean closed;
+        private boolean evicted;
+        // When the send in progress started, 0 between sends
+        private long sendStarted;
+
+        private Subscription(String userId, Sink sink) {
+            this.userId = userId;
+            this.sink = sink;
+        }
+
+        // Called again by a sink that became ready after refusing
+        public void wake() {
+            synchronized (this) {
+                if (!hasWork()) {
+                    return;
+                }
+            }
+            schedule();
+        }
+
+        public void cancel() {
+            boolean closeSink;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+                // A running drain closes the sink once its send returns, so nothing here waits on the client
+                closeSink = !draining;
+            }
+            remove(this);
+            if (closeSink) {
+                sink.close();
+            }
+        }
+
+        private synchronized boolean stalled(long now) {
+            return !closed && sendStarted != 0 && now - sendStarted > TimeUnit.MILLISECONDS.toNanos(writeTimeoutMs);
+        }
+
+        private void evict() {
+            synchronized (this) {
+                if (closed || !draining) {
+                    return;
+                }
+                closed = true;
+                evicted = true;
+                pending.clear();
+            }
+            remove(this);
+            evictions.increment();
+            stalledSends.incrementAndGet();
+            resizePool();
+        }
+
+        private void offer(List<InventoryDelta> deltas) {
+            synchronized (this) {
+                if (closed || resync) {
+                    return;
+                }
+                for (InventoryDelta delta : deltas) {
+                    // Re-inserting moves the item behind the others, so each send is in change order
+                    InventoryDelta previous = pending.remove(delta.getItemId());
+                    pending.put(delta.getItemId(), coalesce(previous, delta));
+                }
+                if (pending.size() > bufferSize) {
+                    pending.clear();
+                    resync = true;
+                    resyncs.increment();
+                }
+            }
+            schedule();
+        }
+
+        private void heartbeat() {
+            synchronized (this) {
+                heartbeatDue = true;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            synchronized (this) {
+                if (draining || closed) {
+                    return;
+                }
+                draining = true;
+            }
+            executor.execute(this::drain);
+        }
+
+        private boolean hasWork() {
+            return resync || heartbeatDue || !pending.isEmpty();
+        }
+
+        private void drain() {
+            boolean closeSink;
+            try {
+                while (true) {
+                    List<InventoryDelta> batch;
+                    boolean ping;
+                    synchronized (this) {
+                        if (closed || !hasWork() || !sink.ready()) {
+                            closeSink = finishDrain();
+                            break;
+                        }
+                        batch = resync ? List.of(InventoryDelta.resync()) : new ArrayList<>(pending.values());
+                        ping = heartbeatDue && batch.isEmpty();
+                        pending.clear();
+                        resync = false;
+                        heartbeatDue = false;
+                        sendStarted = System.nanoTime();
+                    }
+                    if (ping) {
+                        sink.heartbeat();
+                    } else {
+                        sink.send(batch);
+                    }
+                }
+            } catch (Exception e) {
+                // The client went away or its connection broke
+                synchronized (this) {
+                    closeSink = finishDrain();
+                }
+                if (!closeSink) {
+                    cancel();
+                }
+            }
+            if (closeSink) {
+                sink.close();
+            }
+        }
+
+        // Under the lock; true when the subscription was closed while this drain ran
+        private boolean finishDrain() {
+            draining = false;
+            sendStarted = 0;
+            if (evicted) {
+                evicted = false;
+                stalledSends.decrementAndGet();
+                resizePool();
+            }
+            return closed;
+        }
+    }
+}
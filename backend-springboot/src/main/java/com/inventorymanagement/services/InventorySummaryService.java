@@ -0,0 +1,136 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.models.InventorySummary;
+import com.inventorymanagement.repositories.InventorySummaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+@Service
+public class InventorySummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventorySummaryService.class);
+
+    @Autowired
+    private InventorySummaryRepository summaryRepository;
+
+    @Autowired
+    private UserExistenceCache userExistenceCache;
+
+    @Autowired
+    private JobLeases jobLeases;
+
+    @Value("${app.summary.rebuild.max-attempts:5}")
+    private int maxRebuildAttempts;
+
+    @Value("${app.summary.rebuild.settle-ms:200}")
+    private long settleMs;
+
+    @Value("${app.summary.rebuild.batch-size:1000}")
+    private int rebuildBatchSize;
+
+    public InventorySummary getSummary(String userId) throws Exception {
+        if (!userExistenceCache.exists(userId)) {
+            throw new Exception("No such user");
+        }
+
+        Optional<InventorySummary> summary = summaryRepository.findById(userId);
+        if (summary.isPresent() && !Boolean.TRUE.equals(summary.get().getStale())) {
+            return summary.get();
+        }
+        return rebuild(userId);
+    }
+
+    // Called from every write path that changes quantities, prices or the item set, right after the write.
+    // Users without a summary document get one marked stale instead; it is built from scratch on first read.
+    public void apply(String userId, SummaryDelta delta) {
+        if (delta.isZero()) {
+            return;
+        }
+        summaryRepository.applyDelta(userId, delta.getProducts(), delta.getUnits(),
+                delta.getStockValue(), delta.getSalesValue());
+    }
+
+    // For a write whose effect on the totals is not known exactly; the next read rebuilds them
+    public void markStale(String userId) {
+        summaryRepository.markStale(userId);
+    }
+
+    // Stores the recomputed totals only if no delta landed since the summary's version was read,
+    // so a delta is never overwritten. A write the aggregation already saw whose delta lands after
+    // the swap would be counted twice; waiting settle-ms before the swap means that only happens
+    // when a writer stalls that long between its item write and its delta.
+    public InventorySummary rebuild(String userId) {
+        InventorySummary computed = null;
+        for (int attempt = 1; attempt <= maxRebuildAttempts; attempt++) {
+            Long version = summaryRepository.findById(userId).map(InventorySummary::getVersion).orElse(null);
+            List<InventorySummary> totals = summaryRepository.computeFromItems(userId);
+            computed = totals.isEmpty() ? InventorySummary.empty(userId) : totals.get(0);
+            settle();
+
+            LocalDateTime rebuiltAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+            if (summaryRepository.replaceIfUnchanged(computed, version, rebuiltAt)) {
+                computed.setVersion(version == null ? 0L : version);
+                computed.setRebuiltAt(rebuiltAt);
+                return computed;
+            }
+        }
+        logger.warn("Summary for user {} changed during {} rebuilds; serving totals without storing them",
+                userId, maxRebuildAttempts);
+        return computed;
+    }
+
+    // Recomputes every summary so any drift is corrected. Every replica schedules it; one runs it.
+    @Scheduled(cron = "${app.summary.rebuild-cron:0 30 3 * * *}")
+    public void rebuildAll() {
+        if (!jobLeases.tryAcquire("summary-rebuild")) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+
+        Map<String, Long> versions = summaryRepository.findVersions();
+        List<InventorySummary> computed = new ArrayList<>(summaryRepository.computeFromItems(null));
+        Set<String> withItems = new HashSet<>();
+        computed.forEach(summary -> withItems.add(summary.getUserId()));
+        // Users whose items are all gone keep a summary of zeros
+        versions.keySet().stream()
+                .filter(userId -> !withItems.contains(userId))
+                .forEach(userId -> computed.add(InventorySummary.empty(userId)));
+        settle();
+
+        LocalDateTime rebuiltAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<String> changed = new ArrayList<>();
+        for (int from = 0; from < computed.size(); from += rebuildBatchSize) {
+            List<InventorySummary> batch = computed.subList(from, Math.min(from + rebuildBatchSize, computed.size()));
+            changed.addAll(summaryRepository.replaceAllIfUnchanged(batch, versions, rebuiltAt));
+        }
+        // Deltas landed on these while the aggregation ran
+        changed.forEach(this::rebuild);
+
+        logger.info("Rebuilt {} inventory summaries in {} ms, {} of them one by one after concurrent changes",
+                computed.size(), System.currentTimeMillis() - start, changed.size());
+    }
+
+    private void settle() {
+        if (settleMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(settleMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
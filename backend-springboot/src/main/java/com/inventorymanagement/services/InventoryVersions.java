@@ -0,0 +1,83 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.events.InventoryChangedEvent;
+import com.inventorymanagement.models.InventoryVersion;
+import com.inventorymanagement.repositories.InventoryVersionRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+
+// Version of each user's items and logs, kept in inventory_versions so every instance reads the
+// same one. The instance that makes a write moves it forward from its InventoryChangedEvent, which
+// is published once the write is in Mongo, so a 304 never rests on a version another instance has
+// moved past. Reading it is one lookup by _id in place of reading the items or logs.
+@Component
+public class InventoryVersions {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryVersions.class);
+
+    @Autowired
+    private InventoryVersionRepository versionRepository;
+
+    @Autowired
+    private UserExistenceCache userExistenceCache;
+
+    // The user check comes first, so a deleted user is never answered 304. Read before the data
+    // it labels, so a write racing the read can only make the tag older.
+    public Version current(String userId) throws Exception {
+        if (!userExistenceCache.exists(userId)) {
+            throw new Exception("No such user");
+        }
+        InventoryVersion stored = versionRepository.findOrCreate(userId, System.currentTimeMillis());
+        return new Version(stored.getEpoch(), stored.getVersion(), stored.getModifiedAt());
+    }
+
+    public Mono<Version> currentAsync(String userId) {
+        return Mono.fromCallable(() -> current(userId)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @EventListener
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        // The instance that made the write has moved the version already
+        if (event.isRemote()) {
+            return;
+        }
+        advance(event.getUserId());
+    }
+
+    // For writes that change a user's data without an event of their own, such as a log stored
+    // under a user other than the item's owner. Call it only once the write is in Mongo.
+    public void advance(String userId) {
+        try {
+            versionRepository.advance(userId, System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            // The write itself succeeded; its tags stay valid until the user's next write
+            logger.warn("Could not move the inventory version of user {}", userId, e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Version {
+        private final String epoch;
+        private final long value;
+        private final long modifiedAt;
+
+        // Validator for one resource; a digest of the resource is part of the tag so a tag issued
+        // for one URL never validates another. Weak, because the same data is sent as JSON or CBOR
+        // and gzipped or not, and Tomcat will not compress a response carrying a strong tag.
+        public String etag(String resource) {
+            String digest = DigestUtils.md5DigestAsHex(resource.getBytes(StandardCharsets.UTF_8)).substring(0, 12);
+            return "W/\"" + epoch + "-" + Long.toString(value, 36) + "-" + digest + "\"";
+        }
+    }
+}
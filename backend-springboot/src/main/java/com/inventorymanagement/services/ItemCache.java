@@ -0,0 +1,183 @@
+package com.inventorymanagement.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.inventorymanagement.events.InventoryChangedEvent;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.repositories.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Each user's full item set, loaded on the first getItemsByUser and kept current from
+// InventoryChangedEvent. Entries are weighed by estimated heap size and evicted by Caffeine's
+// frequency/recency policy once app.cache.items.max-bytes is reached.
+//
+// Writers hold no lock, so events for one item can arrive out of order. Post-images only
+// replace an older version, and deleted ids are remembered so a late post-image cannot bring
+// an item back. Cached items are shared between requests and must not be modified.
+@Component
+public class ItemCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemCache.class);
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.cache.items.max-bytes:67108864}")
+    private long maxBytes;
+
+    // Bounds drift from writes made on other instances
+    @Value("${app.cache.items.reload-minutes:10}")
+    private long reloadMinutes;
+
+    private Cache<String, UserItems> cache;
+
+    private CacheLoads<UserItems> loads;
+
+    @PostConstruct
+    public void init() {
+        long reloadNanos = Duration.ofMinutes(reloadMinutes).toNanos();
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String userId, UserItems items) -> (int) Math.min(items.bytes.get(), Integer.MAX_VALUE))
+                // Applying writes must not postpone the reload, so only loading sets the age
+                .expireAfter(new Expiry<String, UserItems>() {
+                    public long expireAfterCreate(String userId, UserItems items, long now) {
+                        return reloadNanos;
+                    }
+
+                    public long expireAfterUpdate(String userId, UserItems items, long now, long remaining) {
+                        return remaining;
+                    }
+
+                    public long expireAfterRead(String userId, UserItems items, long now, long remaining) {
+                        return remaining;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "items");
+        loads = new CacheLoads<>(cache, this::load, ItemCache::apply);
+    }
+
+    public List<Item> getItems(String userId) {
+        return new ArrayList<>(loads.get(userId).items.values());
+    }
+
+    // null when the user's items are not cached
+    public List<Item> getItemsIfCached(String userId) {
+        UserItems items = cache.getIfPresent(userId);
+        return items == null ? null : new ArrayList<>(items.items.values());
+    }
+
+    // null when the user's items are not cached or the item is not one of them
+    public Item getItemIfCached(String userId, String itemId) {
+        UserItems items = cache.getIfPresent(userId);
+        return items == null ? null : items.items.get(itemId);
+    }
+
+    // Queued first for a load of the same user that is still running, so a write cannot be lost
+    // to a load that read Mongo before it
+    @EventListener
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        loads.queue(event);
+        try {
+            cache.asMap().computeIfPresent(event.getUserId(), (userId, items) -> apply(items, event) ? items : null);
+        } catch (RuntimeException e) {
+            logger.warn("Dropping cached items for user {} after a failed update", event.getUserId(), e);
+            cache.invalidate(event.getUserId());
+        }
+    }
+
+    // For when changes may have been missed, such as a change stream that could not resume
+    public void invalidateAll() {
+        loads.invalidateAll();
+    }
+
+    // Bulk adjustments carry no post-images; false drops the user, and the next read reloads it
+    private static boolean apply(UserItems items, InventoryChangedEvent event) {
+        if (event.getKind() == InventoryChangedEvent.Kind.STOCK && event.getItems().isEmpty()) {
+            return false;
+        }
+        if (event.getKind() == InventoryChangedEvent.Kind.DELETED) {
+            event.getItemIds().forEach(items::remove);
+        } else {
+            event.getItems().forEach(items::putIfNewer);
+        }
+        return true;
+    }
+
+    private UserItems load(String userId) {
+        UserItems items = new UserItems();
+        itemRepository.findAllForListing(userId).forEach(items::put);
+        return items;
+    }
+
+    // Set node and String header for a remembered deleted id, plus two bytes per char
+    private static final long TOMBSTONE_BYTES = 64;
+
+    // Object headers, boxed numbers, two BigDecimals and the LocalDateTime, plus two bytes per char
+    static long estimateBytes(Item item) {
+        return 200 + 2L * (length(item.getId()) + length(item.getUserId()) + length(item.getName())
+                + length(item.getDescription()) + length(item.getCategory()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    // Sorted by id, which for ObjectIds is roughly insertion order, the order Mongo returns them in
+    private static final class UserItems {
+        private final ConcurrentSkipListMap<String, Item> items = new ConcurrentSkipListMap<>();
+        // Ids are never reused, so these only need to live as long as the entry
+        private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+        private final AtomicLong bytes = new AtomicLong();
+
+        void put(Item item) {
+            Item previous = items.put(item.getId(), item);
+            bytes.addAndGet(estimateBytes(item) - (previous == null ? 0 : estimateBytes(previous)));
+        }
+
+        // A post-image can arrive after a newer write's, from another request or the change stream
+        void putIfNewer(Item item) {
+            if (deleted.contains(item.getId())) {
+                return;
+            }
+            Item current = items.get(item.getId());
+            if (current != null && current.getVersion() != null && item.getVersion() != null
+                    && item.getVersion() < current.getVersion()) {
+                return;
+            }
+            put(item);
+        }
+
+        void remove(String itemId) {
+            if (deleted.add(itemId)) {
+                bytes.addAndGet(TOMBSTONE_BYTES + 2L * itemId.length());
+            }
+            Item previous = items.remove(itemId);
+            if (previous != null) {
+                bytes.addAndGet(-estimateBytes(previous));
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.inventorymanagement.services;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.inventorymanagement.dto.ImportResult;
+import com.inventorymanagement.dto.ItemRequest;
+import com.inventorymanagement.events.InventoryChangedEvent;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.repositories.ItemRepository;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class ItemImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final CsvMapper csvMapper = CsvMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserExistenceCache userExistenceCache;
+
+    @Autowired
+    private InventorySummaryService summaryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.items.import.batch-size:1000}")
+    private int batchSize;
+
+    // Rows are parsed one at a time and written in unordered batches, so memory is bounded by the batch size
+    public ImportResult importItems(String userId, InputStream in, Format format) throws Exception {
+        if (!userExistenceCache.exists(userId)) {
+            throw new Exception("User does not exist");
+        }
+
+        ImportResult result = new ImportResult();
+        List<Item> batch = new ArrayList<>(batchSize);
+        List<Long> batchRows = new ArrayList<>(batchSize);
+        long row = 0;
+
+        try (MappingIterator<ItemRequest> rows = openReader(in, format)) {
+            while (true) {
+                ItemRequest request;
+                row++;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    request = rows.nextValue();
+                } catch (JsonParseException e) {
+                    // Malformed input: the parser cannot find the next row reliably, so stop here
+                    recordError(result, row, "Malformed input: " + e.getOriginalMessage());
+                    break;
+                } catch (JsonMappingException e) {
+                    recordError(result, row, "Invalid value: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                try {
+                    ItemService.validateNewItem(request.getName(), request.getQuantity(),
+                            request.getPrice(), request.getCategory());
+                } catch (IllegalArgumentException e) {
+                    recordError(result, row, e.getMessage());
+                    continue;
+                }
+
+                Item item = new Item(userId, request.getName(),
+                        request.getDescription() != null ? request.getDescription() : "",
+                        request.getQuantity(), request.getPrice(), request.getSold(), request.getCategory());
+                // Ids are assigned here so the inserted items are known without reading them back
+                item.setId(new ObjectId().toHexString());
+                batch.add(item);
+                batchRows.add(row);
+
+                if (batch.size() >= batchSize) {
+                    flush(userId, batch, batchRows, result);
+                }
+            }
+        }
+
+        flush(userId, batch, batchRows, result);
+        return result;
+    }
+
+    private MappingIterator<ItemRequest> openReader(InputStream in, Format format) throws IOException {
+        if (format == Format.CSV) {
+            CsvSchema schema = CsvSchema.emptySchema().withHeader();
+            return csvMapper.readerFor(ItemRequest.class).with(schema).readValues(in);
+        }
+        return objectMapper.readerFor(ItemRequest.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readValues(in);
+    }
+
+    private void flush(String userId, List<Item> batch, List<Long> batchRows, ImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, String> failures = itemRepository.insertUnordered(batch);
+
+        SummaryDelta delta = new SummaryDelta(0, 0, BigDecimal.ZERO, BigDecimal.ZERO);
+        List<Item> inserted = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            String failure = failures.get(i);
+            if (failure != null) {
+                recordError(result, batchRows.get(i), failure);
+            } else {
+                result.setImported(result.getImported() + 1);
+                delta = delta.plus(SummaryDelta.of(batch.get(i)));
+                inserted.add(batch.get(i));
+            }
+        }
+        summaryService.apply(userId, delta);
+        if (!inserted.isEmpty()) {
+            eventPublisher.publishEvent(InventoryChangedEvent.saved(userId, inserted));
+        }
+
+        batch.clear();
+        batchRows.clear();
+    }
+
+    private void recordError(ImportResult result, long row, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new ImportResult.RowError(row, message));
+        }
+    }
+}
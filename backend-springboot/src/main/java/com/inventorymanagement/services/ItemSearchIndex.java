@@ -0,0 +1,121 @@
+package com.inventorymanagement.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.inventorymanagement.events.InventoryChangedEvent;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.repositories.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Per-user search indexes, built from Mongo on a user's first search and kept current from
+// InventoryChangedEvent. Each index is rebuilt after a fixed age so edits made on other
+// instances (or missed here) show up eventually.
+@Component
+public class ItemSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemSearchIndex.class);
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Total items held across all cached indexes; least recently used users are evicted first
+    @Value("${app.search.max-indexed-items:1000000}")
+    private long maxIndexedItems;
+
+    @Value("${app.search.rebuild-minutes:60}")
+    private long rebuildMinutes;
+
+    private Cache<String, UserItemIndex> indexes;
+
+    private CacheLoads<UserItemIndex> loads;
+
+    @PostConstruct
+    public void init() {
+        long rebuildNanos = Duration.ofMinutes(rebuildMinutes).toNanos();
+        indexes = Caffeine.newBuilder()
+                .maximumWeight(maxIndexedItems)
+                .weigher((String userId, UserItemIndex index) -> Math.max(index.size(), 1))
+                // Applying an event must not push the rebuild back, so only creation sets the age
+                .expireAfter(new Expiry<String, UserItemIndex>() {
+                    public long expireAfterCreate(String userId, UserItemIndex index, long now) {
+                        return rebuildNanos;
+                    }
+
+                    public long expireAfterUpdate(String userId, UserItemIndex index, long now, long remaining) {
+                        return remaining;
+                    }
+
+                    public long expireAfterRead(String userId, UserItemIndex index, long now, long remaining) {
+                        return remaining;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "item-search");
+        loads = new CacheLoads<>(indexes, this::build, ItemSearchIndex::apply);
+    }
+
+    // Ids of the best matches, best first
+    public List<String> search(String userId, String query, int limit) {
+        List<String> tokens = UserItemIndex.tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        return loads.get(userId).search(tokens, limit);
+    }
+
+    public void invalidateAll() {
+        loads.invalidateAll();
+    }
+
+    private static boolean apply(UserItemIndex index, InventoryChangedEvent event) {
+        if (event.getKind() == InventoryChangedEvent.Kind.DELETED) {
+            event.getItemIds().forEach(index::remove);
+        } else {
+            event.getItems().forEach(index::put);
+        }
+        return true;
+    }
+
+    private UserItemIndex build(String userId) {
+        long start = System.currentTimeMillis();
+        UserItemIndex index = new UserItemIndex();
+        try (Stream<Item> items = itemRepository.streamSearchFieldsByUserId(userId)) {
+            items.forEach(index::put);
+        }
+        logger.debug("Indexed {} items for search in {} ms", index.size(), System.currentTimeMillis() - start);
+        return index;
+    }
+
+    // Queued first for an index that is still being built, so no write slips past it; compute
+    // recalculates the weight as items come and go
+    @EventListener
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (event.getKind() == InventoryChangedEvent.Kind.STOCK) {
+            return;
+        }
+        loads.queue(event);
+        try {
+            indexes.asMap().computeIfPresent(event.getUserId(), (userId, index) -> apply(index, event) ? index : null);
+        } catch (RuntimeException e) {
+            logger.warn("Dropping search index for user {} after a failed update", event.getUserId(), e);
+            indexes.invalidate(event.getUserId());
+        }
+    }
+}
@@ -1,15 +1,27 @@
 package com.inventorymanagement.services;
 
+import com.inventorymanagement.dto.ItemPage;
+import com.inventorymanagement.events.InventoryChangedEvent;
 import com.inventorymanagement.models.Item;
-import com.inventorymanagement.models.User;
 import com.inventorymanagement.repositories.ItemRepository;
-import com.inventorymanagement.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 public class ItemService {
@@ -18,18 +30,69 @@ public class ItemService {
     private ItemRepository itemRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserExistenceCache userExistenceCache;
+
+    @Autowired
+    private InventorySummaryService summaryService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ItemSearchIndex searchIndex;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.items.write.max-attempts:5}")
+    private int maxWriteAttempts;
+
+    @Value("${app.items.write.backoff-ms:10}")
+    private long retryBackoffMs;
+
+    @Value("${app.items.write.max-backoff-ms:200}")
+    private long maxRetryBackoffMs;
+
+    @Value("${app.items.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.items.page.max-size:500}")
+    private int maxPageSize;
+
+    @Value("${app.search.default-size:20}")
+    private int defaultSearchSize;
+
+    @Value("${app.search.max-size:100}")
+    private int maxSearchSize;
+
+    private static final Set<String> SORT_FIELDS = Set.of("name", "category", "quantity", "sold", "date");
+    private static final Set<String> PROJECTABLE_FIELDS = Set.of("userId", "name", "description", "quantity",
+            "price", "sold", "category", "soldPrice", "date");
 
     public Item addItem(String userId, String name, String description, Integer quantity, 
                        BigDecimal price, Integer sold, String category) throws Exception {
         
         // Validate user exists
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isEmpty()) {
+        if (!userExistenceCache.exists(userId)) {
             throw new Exception("User does not exist");
         }
 
         // Validate input
+        validateNewItem(name, quantity, price, category);
+
+        Item item = new Item(userId, name, description != null ? description : "", 
+                           quantity, price, sold, category);
+        Item saved = itemRepository.save(item);
+        summaryService.apply(userId, SummaryDelta.of(saved));
+        eventPublisher.publishEvent(InventoryChangedEvent.saved(userId, List.of(saved)));
+        return saved;
+    }
+
+    // Shared with the bulk import so both paths accept the same items
+    static void validateNewItem(String name, Integer quantity, BigDecimal price, String category) {
         if (name == null || name.isEmpty()) {
             throw new IllegalArgumentException("Name is required");
         }
@@ -42,34 +105,109 @@ public class ItemService {
         if (quantity == null) {
             throw new IllegalArgumentException("Quantity is required");
         }
-
-        Item item = new Item(userId, name, description != null ? description : "", 
-                           quantity, price, sold, category);
-        return itemRepository.save(item);
     }
 
     public List<Item> getItemsByUser(String userId) throws Exception {
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isEmpty()) {
+        if (!userExistenceCache.exists(userId)) {
+            throw new Exception("No such user");
+        }
+        return itemCache.getItems(userId);
+    }
+
+    public ItemPage getItemsPage(String userId, String cursor, Integer limit, String sort,
+                                 String order, List<String> fields) throws Exception {
+        if (!userExistenceCache.exists(userId)) {
             throw new Exception("No such user");
         }
-        return itemRepository.findByUserId(userId);
+
+        String sortField = (sort == null || sort.isEmpty() || sort.equals("id")) ? "_id" : sort;
+        if (!sortField.equals("_id") && !SORT_FIELDS.contains(sortField)) {
+            throw new IllegalArgumentException("Cannot sort by " + sort);
+        }
+        boolean ascending = order == null || !order.equalsIgnoreCase("desc");
+
+        if (fields != null) {
+            for (String field : fields) {
+                if (!PROJECTABLE_FIELDS.contains(field)) {
+                    throw new IllegalArgumentException("Unknown field " + field);
+                }
+            }
+        }
+
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        String afterId = null;
+        Object afterValue = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = decodeCursor(cursor);
+            afterId = parts[0];
+            afterValue = parseSortValue(sortField, parts[1]);
+        }
+
+        // Fetch one extra row to know whether another page exists
+        List<Item> items = itemRepository.findPageByUserId(userId, sortField, ascending,
+                afterValue, afterId, pageSize + 1, fields);
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) {
+            items = new ArrayList<>(items.subList(0, pageSize));
+        }
+
+        String nextCursor = hasMore ? encodeCursor(items.get(items.size() - 1), sortField) : null;
+        return new ItemPage(items, nextCursor, hasMore);
+    }
+
+    public List<Item> searchItems(String userId, String query, Integer limit) throws Exception {
+        if (!userExistenceCache.exists(userId)) {
+            throw new Exception("No such user");
+        }
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query is required");
+        }
+
+        int size = limit == null || limit <= 0 ? defaultSearchSize : Math.min(limit, maxSearchSize);
+        List<String> ids = searchIndex.search(userId, query, size);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // The index only ranks; items are read fresh so quantities and prices are current
+        Map<String, Item> found = new HashMap<>();
+        for (Item item : itemRepository.findAllById(ids)) {
+            if (userId.equals(item.getUserId())) {
+                found.put(item.getId(), item);
+            }
+        }
+        List<Item> items = new ArrayList<>(found.size());
+        for (String id : ids) {
+            Item item = found.get(id);
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
     }
 
     public List<Item> getItemsByUserCategory(String userId, String category) throws Exception {
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isEmpty()) {
+        if (!userExistenceCache.exists(userId)) {
             throw new Exception("No such user");
         }
+        List<Item> cached = itemCache.getItemsIfCached(userId);
+        if (cached != null) {
+            return cached.stream().filter(item -> category.equals(item.getCategory())).toList();
+        }
         return itemRepository.findByUserIdAndCategory(userId, category);
     }
 
     public Item getItem(String userId, String itemId) throws Exception {
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isEmpty()) {
+        if (!userExistenceCache.exists(userId)) {
             throw new Exception("No such user");
         }
 
+        Item cached = itemCache.getItemIfCached(userId, itemId);
+        if (cached != null) {
+            return cached;
+        }
+
         Optional<Item> item = itemRepository.findById(itemId);
         if (item.isEmpty()) {
             throw new Exception("Item does not exist");
@@ -80,17 +218,31 @@ public class ItemService {
 
     public Item updateItem(String userId, String itemId, String name, String description, 
                           Integer quantity, BigDecimal price, Integer sold, String category) throws Exception {
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isEmpty()) {
+        if (!userExistenceCache.exists(userId)) {
             throw new Exception("No such user");
         }
 
-        Optional<Item> itemOptional = itemRepository.findById(itemId);
-        if (itemOptional.isEmpty() || !itemOptional.get().getUserId().equals(userId)) {
-            throw new Exception("Item not found or does not belong to the user");
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Item saved = saveItemChanges(userId, itemId, name, description, quantity, price, sold, category);
+                countWrite("update", "committed");
+                return saved;
+            } catch (OptimisticLockingFailureException e) {
+                backOffAfterConflict("update", attempt, e);
+            }
+        }
+    }
+
+    private Item saveItemChanges(String userId, String itemId, String name, String description,
+                                 Integer quantity, BigDecimal price, Integer sold, String category) throws Exception {
+        // Read from Mongo, not the cache: cached items are shared and must not be modified
+        Item item = findOwnedItem(userId, itemId);
+        if (item.getVersion() == null) {
+            itemRepository.initializeVersion(itemId);
+            item = findOwnedItem(userId, itemId);
         }
 
-        Item item = itemOptional.get();
+        SummaryDelta before = SummaryDelta.of(item);
         if (name != null) item.setName(name);
         if (description != null) item.setDescription(description);
         if (quantity != null) item.setQuantity(quantity);
@@ -98,20 +250,110 @@ public class ItemService {
         if (sold != null) item.setSold(sold);
         if (category != null) item.setCategory(category);
 
-        return itemRepository.save(item);
+        // Only matches the version read above, so a write from another instance in between is not lost
+        Item saved = itemRepository.save(item);
+        summaryService.apply(userId, SummaryDelta.of(saved).minus(before));
+        eventPublisher.publishEvent(InventoryChangedEvent.saved(userId, List.of(saved)));
+        return saved;
     }
 
     public void deleteItem(String userId, String itemId) throws Exception {
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isEmpty()) {
+        if (!userExistenceCache.exists(userId)) {
             throw new Exception("No such user");
         }
 
+        for (int attempt = 1; ; attempt++) {
+            try {
+                removeItem(userId, itemId);
+                countWrite("delete", "committed");
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                backOffAfterConflict("delete", attempt, e);
+            }
+        }
+    }
+
+    private void removeItem(String userId, String itemId) throws Exception {
+        Item item = findOwnedItem(userId, itemId);
+
+        // Versioned delete, so the summary delta matches the document that was actually removed
+        itemRepository.delete(item);
+        summaryService.apply(userId, SummaryDelta.of(item).negate());
+        eventPublisher.publishEvent(InventoryChangedEvent.deleted(userId, List.of(itemId)));
+    }
+
+    private Item findOwnedItem(String userId, String itemId) throws Exception {
         Optional<Item> item = itemRepository.findById(itemId);
         if (item.isEmpty() || !item.get().getUserId().equals(userId)) {
             throw new Exception("Item not found or does not belong to the user");
         }
+        return item.get();
+    }
+
+    // Full jitter: a random pause up to an exponentially growing cap, so retries from the
+    // writers that collided spread out instead of colliding again.
+    private void backOffAfterConflict(String operation, int attempt, OptimisticLockingFailureException e)
+            throws InterruptedException {
+        if (attempt >= maxWriteAttempts) {
+            countWrite(operation, "exhausted");
+            throw new OptimisticLockingFailureException("Item is being changed by another request, please try again", e);
+        }
+        countWrite(operation, "conflict");
+        long cap = Math.min(maxRetryBackoffMs, retryBackoffMs << Math.min(attempt - 1, 20));
+        Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+    }
+
+    // Conflict rate is conflict / (committed + conflict), per operation
+    private void countWrite(String operation, String outcome) {
+        meterRegistry.counter("inventory.item.writes", "operation", operation, "outcome", outcome).increment();
+    }
 
-        itemRepository.deleteById(itemId);
+    // Cursor is "<id>\n<sort value>", base64url encoded so clients treat it as opaque
+    private String encodeCursor(Item last, String sortField) {
+        String value = sortField.equals("_id") ? "" : formatSortValue(last, sortField);
+        String raw = last.getId() + "\n" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int split = raw.indexOf('\n');
+            if (split < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new String[] { raw.substring(0, split), raw.substring(split + 1) };
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private String formatSortValue(Item item, String sortField) {
+        Object value = switch (sortField) {
+            case "name" -> item.getName();
+            case "category" -> item.getCategory();
+            case "quantity" -> item.getQuantity();
+            case "sold" -> item.getSold();
+            case "date" -> item.getDate();
+            default -> null;
+        };
+        // A leading marker tells a missing value apart from an empty string
+        return value == null ? "" : "=" + value;
+    }
+
+    private Object parseSortValue(String sortField, String encoded) {
+        if (sortField.equals("_id") || encoded.isEmpty()) {
+            return null;
+        }
+        String value = encoded.substring(1);
+        try {
+            return switch (sortField) {
+                case "quantity", "sold" -> Integer.valueOf(value);
+                case "date" -> LocalDateTime.parse(value);
+                default -> value;
+            };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
     }
 }
@@ -0,0 +1,30 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.repositories.JobLeaseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Lets one instance at a time run a scheduled job that every replica has scheduled. A lease is
+// not released when the job ends: it runs out, so a replica whose clock fires a little later
+// does not run the same cron job again. Jobs must still be safe to repeat, since a run that
+// outlasts its lease can overlap the next holder's.
+@Component
+public class JobLeases {
+
+    @Autowired
+    private JobLeaseRepository leaseRepository;
+
+    @Value("${app.jobs.lease-seconds:600}")
+    private long leaseSeconds;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    public boolean tryAcquire(String job) {
+        LocalDateTime now = LocalDateTime.now();
+        return leaseRepository.tryAcquire(job, owner, now, now.plusSeconds(leaseSeconds));
+    }
+}
@@ -0,0 +1,21 @@
+package com.inventorymanagement.services;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Single instance deployments: every write goes through this process, so in-process events are
+// enough. With several instances each cache only learns of other writes when its entries reload.
+@Component
+@ConditionalOnProperty(name = "app.cluster.invalidation", havingValue = "local", matchIfMissing = true)
+public class LocalInvalidationBus implements InvalidationBus {
+
+    @Override
+    public boolean isClusterWide() {
+        return false;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+}
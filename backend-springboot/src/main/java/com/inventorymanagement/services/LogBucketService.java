@@ -0,0 +1,223 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.models.Log;
+import com.inventorymanagement.models.LogBucket;
+import com.inventorymanagement.repositories.LogBucketRepository;
+import com.inventorymanagement.repositories.LogRepository;
+import jakarta.annotation.PostConstruct;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Owns where logs live: daily buckets per item, an optional compressed archive for old days,
+// and the legacy per-move collection until it has been drained into buckets
+@Service
+public class LogBucketService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogBucketService.class);
+
+    @Autowired
+    private LogBucketRepository bucketRepository;
+
+    @Autowired
+    private LogRepository logRepository;
+
+    @Autowired
+    private JobLeases jobLeases;
+
+    @Value("${app.log.bucket.max-moves:1000}")
+    private int maxMovesPerBucket;
+
+    @Value("${app.log.migration.batch-size:1000}")
+    private int migrationBatchSize;
+
+    // 0 keeps every bucket in the hot collection
+    @Value("${app.log.archive.after-days:0}")
+    private int archiveAfterDays;
+
+    @Value("${app.log.archive.batch-size:500}")
+    private int archiveBatchSize;
+
+    @Value("${app.log.archive.compressor:zstd}")
+    private String archiveCompressor;
+
+    // 0 keeps archived buckets forever
+    @Value("${app.log.archive.retain-days:0}")
+    private int archiveRetainDays;
+
+    private volatile boolean legacyPending;
+
+    @PostConstruct
+    public void init() {
+        legacyPending = logRepository.existsAny();
+        if (archiveAfterDays > 0) {
+            bucketRepository.ensureArchive(archiveCompressor, archiveRetainDays);
+        }
+    }
+
+    public Log append(Log log) {
+        appendAll(List.of(log));
+        return log;
+    }
+
+    public void appendAll(List<Log> logs) {
+        for (Log log : logs) {
+            log.setId(new ObjectId().toHexString());
+        }
+        bucketRepository.append(logs, maxMovesPerBucket);
+    }
+
+    // Every source that may hold the item's moves in [from, to), merged in (date, id) order
+    public LogHistory openItemHistory(String itemId, String userId, LocalDateTime from, LocalDateTime to) {
+        LocalDate fromDay = from != null ? from.toLocalDate() : null;
+        LocalDate toDay = to != null ? to.toLocalDate() : null;
+
+        LogHistory history = new LogHistory();
+        try {
+            history.addBuckets(bucketRepository.streamForItem(itemId, userId, fromDay, toDay, false));
+            if (archiveAfterDays > 0 && (fromDay == null || fromDay.isBefore(archiveCutoff()))) {
+                history.addBuckets(bucketRepository.streamForItem(itemId, userId, fromDay, toDay, true));
+            }
+            if (legacyPending) {
+                history.addLogs(bucketRepository.streamLegacyForItem(itemId, userId, from, to));
+            }
+        } catch (RuntimeException e) {
+            history.close();
+            throw e;
+        }
+        return history;
+    }
+
+    // Unordered, each move once. Sources are read in the order the background jobs copy between
+    // them, legacy before buckets and hot buckets before the archive, so a move that is being
+    // moved is found in the source read first or, once deleted there, in the one read after.
+    // The second copy is dropped by bucket id for the archive and by log id for migrated moves;
+    // the legacy ids are only kept while the legacy collection still has rows.
+    public Stream<Log> streamUserLogs(String userId) {
+        Set<String> legacyIds = new HashSet<>();
+        Set<String> hotBucketIds = new HashSet<>();
+
+        List<Supplier<Stream<Log>>> sources = new ArrayList<>();
+        if (legacyPending) {
+            sources.add(() -> logRepository.streamByUserId(userId).peek(log -> legacyIds.add(log.getId())));
+        }
+        sources.add(() -> movesOf(bucketRepository.streamForUser(userId, false)
+                .peek(bucket -> hotBucketIds.add(bucket.getId())), legacyIds));
+        if (archiveAfterDays > 0) {
+            sources.add(() -> movesOf(bucketRepository.streamForUser(userId, true)
+                    .filter(bucket -> !hotBucketIds.contains(bucket.getId())), legacyIds));
+        }
+        Sequence<Log> sequence = new Sequence<>(sources.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(sequence, Spliterator.ORDERED), false)
+                .onClose(sequence::close);
+    }
+
+    // Called once the legacy source has been read, so legacyIds is complete
+    private Stream<Log> movesOf(Stream<LogBucket> buckets, Set<String> legacyIds) {
+        Stream<Log> logs = buckets.flatMap(bucket -> bucket.toLogs().stream());
+        return legacyIds.isEmpty() ? logs : logs.filter(log -> !legacyIds.contains(log.getId()));
+    }
+
+    // Drains the old collection into buckets in the background; reads merge both until it is empty.
+    // Every replica checks whether it is empty yet, one at a time holds the lease and drains it.
+    @Scheduled(initialDelayString = "${app.log.migration.initial-delay-ms:10000}",
+            fixedDelayString = "${app.log.migration.interval-ms:600000}")
+    public void migrateLegacyLogs() {
+        if (!legacyPending) {
+            return;
+        }
+        if (!logRepository.existsAny()) {
+            legacyPending = false;
+            return;
+        }
+        if (!jobLeases.tryAcquire("log-migration")) {
+            return;
+        }
+        long migrated = 0;
+        int batch;
+        do {
+            batch = bucketRepository.migrateLegacy(migrationBatchSize);
+            migrated += batch;
+        } while (batch > 0);
+        legacyPending = false;
+        logger.info("Moved {} legacy logs into daily buckets", migrated);
+    }
+
+    @Scheduled(cron = "${app.log.archive.cron:0 0 4 * * *}")
+    public void archiveOldBuckets() {
+        if (archiveAfterDays <= 0 || !jobLeases.tryAcquire("log-archive")) {
+            return;
+        }
+        LocalDate cutoff = archiveCutoff();
+        long archived = 0;
+        int batch;
+        do {
+            batch = bucketRepository.archiveBefore(cutoff, archiveBatchSize);
+            archived += batch;
+        } while (batch > 0);
+        logger.info("Archived {} log buckets from before {}", archived, cutoff);
+    }
+
+    private LocalDate archiveCutoff() {
+        return LocalDate.now().minusDays(archiveAfterDays);
+    }
+
+    // Opens each source only once the one before it is exhausted, and closes it then. A flatMap
+    // over the sources would do the same for forEach, but iterating it buffers each whole source.
+    private static final class Sequence<T> implements Iterator<T> {
+        private final Iterator<Supplier<Stream<T>>> sources;
+        private Stream<T> current;
+        private Iterator<T> rows = Collections.emptyIterator();
+
+        Sequence(Iterator<Supplier<Stream<T>>> sources) {
+            this.sources = sources;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!rows.hasNext()) {
+                close();
+                if (!sources.hasNext()) {
+                    return false;
+                }
+                current = sources.next().get();
+                rows = current.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return rows.next();
+        }
+
+        void close() {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+    }
+}
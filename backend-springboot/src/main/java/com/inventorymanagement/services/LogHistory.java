@@ -0,0 +1,125 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.models.Log;
+import com.inventorymanagement.models.LogBucket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+// Merges several sources of logs, each already in (date, id) order, into one ordered sequence.
+// A move that shows up in two sources while it is being migrated or archived is returned once.
+public class LogHistory implements Iterator<Log>, AutoCloseable {
+
+    static final Comparator<Log> ORDER = Comparator.comparing(Log::getDate).thenComparing(Log::getId);
+
+    private final List<Stream<?>> streams = new ArrayList<>();
+    private final PriorityQueue<Source> heads = new PriorityQueue<>((a, b) -> ORDER.compare(a.head, b.head));
+    private Log next;
+    private String lastId;
+
+    private static class Source {
+        final Iterator<Log> rows;
+        Log head;
+
+        Source(Iterator<Log> rows) {
+            this.rows = rows;
+        }
+    }
+
+    // Buckets must come ordered by day; the moves of one day are sorted together since
+    // writers can append slightly out of order and a day may span several buckets
+    public LogHistory addBuckets(Stream<LogBucket> buckets) {
+        streams.add(buckets);
+        return add(sortedMoves(buckets.iterator()));
+    }
+
+    public LogHistory addLogs(Stream<Log> logs) {
+        streams.add(logs);
+        return add(logs.iterator());
+    }
+
+    private LogHistory add(Iterator<Log> rows) {
+        Source source = new Source(rows);
+        if (rows.hasNext()) {
+            source.head = rows.next();
+            heads.add(source);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !heads.isEmpty()) {
+            Source source = heads.poll();
+            Log candidate = source.head;
+            if (source.rows.hasNext()) {
+                source.head = source.rows.next();
+                heads.add(source);
+            }
+            if (!candidate.getId().equals(lastId)) {
+                next = candidate;
+                lastId = candidate.getId();
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Log next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Log result = next;
+        next = null;
+        return result;
+    }
+
+    @Override
+    public void close() {
+        streams.forEach(Stream::close);
+    }
+
+    private static Iterator<Log> sortedMoves(Iterator<LogBucket> buckets) {
+        return new Iterator<>() {
+            private LogBucket pending;
+            private Iterator<Log> day = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!day.hasNext()) {
+                    if (pending == null && !buckets.hasNext()) {
+                        return false;
+                    }
+                    LogBucket first = pending != null ? pending : buckets.next();
+                    pending = null;
+                    List<Log> moves = new ArrayList<>(first.toLogs());
+                    while (buckets.hasNext()) {
+                        LogBucket bucket = buckets.next();
+                        if (!bucket.getDay().equals(first.getDay())) {
+                            pending = bucket;
+                            break;
+                        }
+                        moves.addAll(bucket.toLogs());
+                    }
+                    moves.sort(ORDER);
+                    day = moves.iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public Log next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return day.next();
+            }
+        };
+    }
+}
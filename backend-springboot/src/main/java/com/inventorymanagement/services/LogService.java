@@ -1,34 +1,71 @@
 package com.inventorymanagement.services;
 
+import com.inventorymanagement.dto.BulkQuantityRequest;
+import com.inventorymanagement.dto.BulkQuantityResult;
+import com.inventorymanagement.dto.LogPage;
+import com.inventorymanagement.events.InventoryChangedEvent;
 import com.inventorymanagement.models.Item;
 import com.inventorymanagement.models.Log;
-import com.inventorymanagement.models.User;
 import com.inventorymanagement.repositories.ItemRepository;
-import com.inventorymanagement.repositories.LogRepository;
-import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.repositories.StockAdjustment;
+import com.inventorymanagement.repositories.StockChange;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class LogService {
 
     @Autowired
-    private LogRepository logRepository;
+    private LogBucketService logBucketService;
 
     @Autowired
     private ItemRepository itemRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserExistenceCache userExistenceCache;
+
+    @Autowired
+    private InventorySummaryService summaryService;
+
+    @Autowired
+    private InventoryVersions inventoryVersions;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.log.bulk.max-entries:1000}")
+    private int maxBulkEntries;
+
+    @Value("${app.log.page.default-size:100}")
+    private int defaultPageSize;
+
+    @Value("${app.log.page.max-size:1000}")
+    private int maxPageSize;
 
     public Log increaseQuantity(String userId, String itemId, Integer quantity, String description) throws Exception {
         // Validate user
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isEmpty()) {
+        if (!userExistenceCache.exists(userId)) {
             throw new Exception("User does not exist");
         }
 
@@ -41,25 +78,26 @@ public class LogService {
             throw new IllegalArgumentException("Description must be a string");
         }
 
-        // Get item
-        Optional<Item> itemOptional = itemRepository.findById(itemId);
-        if (itemOptional.isEmpty()) {
+        // Apply the change atomically on the server; the cache orders post-images by version
+        StockChange change = itemRepository.increaseQuantity(itemId, quantity);
+        if (change == null) {
             throw new Exception("Item does not exist");
         }
+        try {
+            summaryService.apply(change.getItem().getUserId(),
+                    SummaryDelta.stockIncrease(change.getItem().getPrice(), change.getApplied()));
 
-        Item item = itemOptional.get();
-        item.setQuantity(item.getQuantity() + quantity);
-        itemRepository.save(item);
-
-        // Create log
-        Log log = new Log(userId, itemId, "Increase Quantity", quantity, description);
-        return logRepository.save(log);
+            // Create log
+            Log log = new Log(userId, itemId, "Increase Quantity", quantity, description);
+            return logBucketService.append(log);
+        } finally {
+            publishStockChange(userId, change);
+        }
     }
 
     public Log decreaseQuantity(String userId, String itemId, Integer quantity, String description) throws Exception {
         // Validate user
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isEmpty()) {
+        if (!userExistenceCache.exists(userId)) {
             throw new Exception("User does not exist");
         }
 
@@ -72,30 +110,170 @@ public class LogService {
             throw new IllegalArgumentException("Description must be a string");
         }
 
-        // Get item
-        Optional<Item> itemOptional = itemRepository.findById(itemId);
-        if (itemOptional.isEmpty()) {
+        // Apply the change atomically on the server; the cache orders post-images by version
+        StockChange change = itemRepository.decreaseQuantity(itemId, quantity);
+        if (change == null) {
             throw new Exception("Item does not exist");
         }
+        try {
+            summaryService.apply(change.getItem().getUserId(),
+                    SummaryDelta.stockDecrease(change.getItem().getPrice(), change.getApplied()));
+            if (change.getApplied() < quantity) {
+                countConflict("capped");
+            }
+
+            // Create log
+            Log log = new Log(userId, itemId, "Decrease Quantity", quantity, description);
+            return logBucketService.append(log);
+        } finally {
+            publishStockChange(userId, change);
+        }
+    }
+
+    public List<BulkQuantityResult> adjustQuantities(String userId, List<BulkQuantityRequest.Entry> entries) throws Exception {
+        // Validate user
+        if (!userExistenceCache.exists(userId)) {
+            throw new Exception("User does not exist");
+        }
+
+        if (entries == null || entries.isEmpty()) {
+            throw new IllegalArgumentException("At least one entry is required");
+        }
+        if (entries.size() > maxBulkEntries) {
+            throw new IllegalArgumentException("At most " + maxBulkEntries + " entries are allowed per request");
+        }
+
+        BulkQuantityResult[] results = new BulkQuantityResult[entries.size()];
+
+        // Validate each line and fold the valid ones into one adjustment per item, keeping their order
+        Map<String, List<Integer>> linesByItem = new LinkedHashMap<>();
+        Map<String, StockAdjustment> adjustmentsByItem = new HashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            BulkQuantityRequest.Entry entry = entries.get(i);
+            String itemId = entry == null ? null : entry.getItemId();
+            if (itemId == null || itemId.isEmpty()) {
+                results[i] = new BulkQuantityResult(i, itemId, false, "Item id is required");
+            } else if (entry.getDelta() == null || entry.getDelta() == 0) {
+                results[i] = new BulkQuantityResult(i, itemId, false, "Please enter a valid number");
+            } else if (entry.getDescription() == null || entry.getDescription().isEmpty()) {
+                results[i] = new BulkQuantityResult(i, itemId, false, "Description must be a string");
+            } else if (!adjustmentsByItem.computeIfAbsent(itemId, StockAdjustment::new).fits(entry.getDelta())) {
+                results[i] = new BulkQuantityResult(i, itemId, false, "Total change for this item is too large");
+            } else {
+                adjustmentsByItem.get(itemId).add(entry.getDelta());
+                linesByItem.computeIfAbsent(itemId, id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        // One read for every item in the batch
+        Map<String, Item> items = new HashMap<>();
+        for (Item item : itemRepository.findAllById(linesByItem.keySet())) {
+            if (userId.equals(item.getUserId())) {
+                items.put(item.getId(), item);
+            }
+        }
 
-        Item item = itemOptional.get();
-        int quantityToDecrease = Math.min(quantity, item.getQuantity());
-        
-        item.setSold(item.getSold() + quantityToDecrease);
-        item.setSoldPrice(BigDecimal.valueOf(item.getSold()).multiply(item.getPrice()));
-        item.setQuantity(item.getQuantity() - quantityToDecrease);
-        
-        itemRepository.save(item);
+        List<StockAdjustment> adjustments = new ArrayList<>();
+        for (String itemId : linesByItem.keySet()) {
+            if (items.containsKey(itemId)) {
+                adjustments.add(adjustmentsByItem.get(itemId));
+            }
+        }
+
+        // One bulkWrite for every item update, and one read of what it left
+        int matched = itemRepository.applyStockAdjustments(userId, adjustments);
+        Map<String, Item> after = new HashMap<>();
+        if (!adjustments.isEmpty()) {
+            itemRepository.findAllById(items.keySet()).forEach(item -> after.put(item.getId(), item));
+        }
+        if (matched < adjustments.size()) {
+            // The only way an update misses is the item being deleted since it was read
+            countConflict("deleted");
+            items.keySet().retainAll(after.keySet());
+            adjustments.removeIf(adjustment -> !after.containsKey(adjustment.getItemId()));
+        }
+        try {
+            // An item whose version moved by exactly one saw no other write since the read above, so
+            // that read is what the update started from and the totals follow from it exactly.
+            // Otherwise another writer changed how much the update could take, and the summary is
+            // rebuilt from the items on its next read instead.
+            SummaryDelta total = new SummaryDelta(0, 0, BigDecimal.ZERO, BigDecimal.ZERO);
+            boolean exact = true;
+            for (StockAdjustment adjustment : adjustments) {
+                Item before = items.get(adjustment.getItemId());
+                if (!writtenOnlyBy(before, after.get(adjustment.getItemId()))) {
+                    exact = false;
+                    break;
+                }
+                BigDecimal price = before.getPrice() != null ? before.getPrice() : BigDecimal.ZERO;
+                long quantityBefore = before.getQuantity() != null ? before.getQuantity() : 0;
+                long units = adjustment.quantityAfter(quantityBefore) - quantityBefore;
+                BigDecimal sales = price.multiply(BigDecimal.valueOf(adjustment.soldDelta(quantityBefore)));
+                total = total.plus(new SummaryDelta(0, units, price.multiply(BigDecimal.valueOf(units)), sales));
+            }
+            if (exact) {
+                summaryService.apply(userId, total);
+            } else {
+                summaryService.markStale(userId);
+            }
+
+            // One bulkWrite for every log, one upsert per item and day
+            List<Log> logs = new ArrayList<>();
+            for (Map.Entry<String, List<Integer>> group : linesByItem.entrySet()) {
+                boolean applied = items.containsKey(group.getKey());
+                for (int line : group.getValue()) {
+                    BulkQuantityRequest.Entry entry = entries.get(line);
+                    if (applied) {
+                        int delta = entry.getDelta();
+                        logs.add(new Log(userId, group.getKey(), delta > 0 ? "Increase Quantity" : "Decrease Quantity",
+                                Math.abs(delta), entry.getDescription()));
+                        results[line] = new BulkQuantityResult(line, group.getKey(), true, "Quantity updated");
+                    } else {
+                        results[line] = new BulkQuantityResult(line, group.getKey(), false, "Item does not exist");
+                    }
+                }
+            }
+            if (!logs.isEmpty()) {
+                logBucketService.appendAll(logs);
+            }
+
+            return List.of(results);
+        } finally {
+            // After the logs, as for single changes; the stock writes are in Mongo even if those failed
+            if (!adjustments.isEmpty()) {
+                List<String> itemIds = adjustments.stream().map(StockAdjustment::getItemId).toList();
+                eventPublisher.publishEvent(InventoryChangedEvent.stock(userId, itemIds, List.of()));
+            }
+        }
+    }
+
+    // True when after is the next version of before, so the one write between them was the bulk update
+    private static boolean writtenOnlyBy(Item before, Item after) {
+        long version = before.getVersion() != null ? before.getVersion() : 0;
+        return after != null && after.getVersion() != null && after.getVersion() == version + 1;
+    }
 
-        // Create log
-        Log log = new Log(userId, itemId, "Decrease Quantity", quantity, description);
-        return logRepository.save(log);
+    // Published only once the log is written, so the version that labels getLogs never moves ahead
+    // of the history it describes. The log is stored under the caller, whose version moves as well
+    // when the item belongs to someone else.
+    private void publishStockChange(String userId, StockChange change) {
+        Item item = change.getItem();
+        eventPublisher.publishEvent(InventoryChangedEvent.stock(item.getUserId(), List.of(item.getId()), List.of(item)));
+        if (!userId.equals(item.getUserId())) {
+            inventoryVersions.advance(userId);
+        }
     }
 
-    public List<Log> getLogs(String userId, String itemId) throws Exception {
+    // Stock changes that could not be applied as requested because of the item's current state
+    private void countConflict(String reason) {
+        meterRegistry.counter("inventory.stock.conflicts", "reason", reason).increment();
+    }
+
+    // Without a limit or cursor the whole range comes back in one response, as it always has
+    public LogPage getLogs(String userId, String itemId, String from, String to, String cursor,
+                           Integer limit) throws Exception {
         // Validate user
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isEmpty()) {
+        if (!userExistenceCache.exists(userId)) {
             throw new Exception("No such user");
         }
 
@@ -105,6 +283,77 @@ public class LogService {
             throw new Exception("Item does not exist");
         }
 
-        return logRepository.findByItemIdAndUserId(itemId, userId);
+        LocalDateTime fromDate = parseBound(from, "from");
+        LocalDateTime toDate = parseBound(to, "to");
+        Log after = cursor != null && !cursor.isEmpty() ? decodeCursor(cursor) : null;
+
+        boolean paged = limit != null || after != null;
+        int pageSize = !paged ? Integer.MAX_VALUE
+                : limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+
+        // Buckets before the cursor's day never need to be read
+        LocalDateTime lowest = fromDate;
+        if (after != null && (lowest == null || after.getDate().isAfter(lowest))) {
+            lowest = after.getDate();
+        }
+
+        List<Log> logs = new ArrayList<>();
+        boolean hasMore = false;
+        try (LogHistory history = logBucketService.openItemHistory(itemId, userId, lowest, toDate)) {
+            while (history.hasNext()) {
+                Log log = history.next();
+                if (fromDate != null && log.getDate().isBefore(fromDate)) {
+                    continue;
+                }
+                if (toDate != null && !log.getDate().isBefore(toDate)) {
+                    break;
+                }
+                if (after != null && LogHistory.ORDER.compare(log, after) <= 0) {
+                    continue;
+                }
+                if (logs.size() == pageSize) {
+                    hasMore = true;
+                    break;
+                }
+                logs.add(log);
+            }
+        }
+
+        String nextCursor = hasMore ? encodeCursor(logs.get(logs.size() - 1)) : null;
+        return new LogPage(logs, nextCursor, hasMore);
+    }
+
+    // Accepts a date (start of that day) or a date-time
+    private LocalDateTime parseBound(String value, String name) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return value.contains("T") ? LocalDateTime.parse(value) : LocalDate.parse(value).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + name + " date");
+        }
+    }
+
+    // Cursor is "<date>\n<log id>", base64url encoded so clients treat it as opaque
+    private String encodeCursor(Log last) {
+        String raw = last.getDate() + "\n" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Log decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int split = raw.indexOf('\n');
+            if (split < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Log after = new Log();
+            after.setDate(LocalDateTime.parse(raw.substring(0, split)));
+            after.setId(raw.substring(split + 1));
+            return after;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
     }
 }
@@ -0,0 +1,114 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.dto.ImportResult;
+import com.inventorymanagement.dto.ItemPage;
+import com.inventorymanagement.models.InventorySummary;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.repositories.ReactiveItemRepository;
+import com.inventorymanagement.utils.DataBufferInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+// Reads go through the reactive driver; writes reuse the blocking services on boundedElastic
+// so validation, summary deltas and the atomic update paths stay in one place
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveItemService {
+
+    @Autowired
+    private ReactiveItemRepository itemRepository;
+
+    @Autowired
+    private UserExistenceCache userExistenceCache;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemImportService itemImportService;
+
+    @Autowired
+    private InventorySummaryService summaryService;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    public Mono<Item> addItem(String userId, String name, String description, Integer quantity,
+                              BigDecimal price, Integer sold, String category) {
+        return offload(() -> itemService.addItem(userId, name, description, quantity, price, sold, category));
+    }
+
+    // The body is pulled a few buffers at a time by the blocking parser, so large imports are never held in memory
+    public Mono<ImportResult> importItems(String userId, Flux<DataBuffer> content, ItemImportService.Format format) {
+        return offload(() -> {
+            try (InputStream body = new DataBufferInputStream(content, 4)) {
+                return itemImportService.importItems(userId, body, format);
+            }
+        });
+    }
+
+    // The outer Mono completes once the user is checked, so errors surface before the list starts streaming
+    // A cached item set is served as is; otherwise items stream straight from Mongo
+    public Mono<Flux<Item>> getItemsByUser(String userId) {
+        return checkUser(userId).then(Mono.fromSupplier(() -> {
+            List<Item> cached = itemCache.getItemsIfCached(userId);
+            return cached != null ? Flux.fromIterable(cached) : itemRepository.findByUserId(userId);
+        }));
+    }
+
+    public Mono<ItemPage> getItemsPage(String userId, String cursor, Integer limit, String sort,
+                                       String order, List<String> fields) {
+        return offload(() -> itemService.getItemsPage(userId, cursor, limit, sort, order, fields));
+    }
+
+    public Mono<List<Item>> searchItems(String userId, String query, Integer limit) {
+        return offload(() -> itemService.searchItems(userId, query, limit));
+    }
+
+    public Mono<Flux<Item>> getItemsByUserCategory(String userId, String category) {
+        return checkUser(userId).thenReturn(itemRepository.findByUserIdAndCategory(userId, category));
+    }
+
+    public Mono<InventorySummary> getSummary(String userId) {
+        return offload(() -> summaryService.getSummary(userId));
+    }
+
+    public Mono<Item> getItem(String userId, String itemId) {
+        return checkUser(userId)
+                .then(Mono.fromSupplier(() -> itemCache.getItemIfCached(userId, itemId)))
+                .switchIfEmpty(itemRepository.findById(itemId))
+                .switchIfEmpty(Mono.error(new Exception("Item does not exist")));
+    }
+
+    public Mono<Item> updateItem(String userId, String itemId, String name, String description,
+                                 Integer quantity, BigDecimal price, Integer sold, String category) {
+        return offload(() -> itemService.updateItem(userId, itemId, name, description, quantity,
+                price, sold, category));
+    }
+
+    public Mono<Void> deleteItem(String userId, String itemId) {
+        return offload(() -> {
+            itemService.deleteItem(userId, itemId);
+            return null;
+        }).then();
+    }
+
+    Mono<Void> checkUser(String userId) {
+        return userExistenceCache.existsAsync(userId)
+                .flatMap(exists -> exists ? Mono.<Void>empty() : Mono.error(new Exception("No such user")));
+    }
+
+    static <T> Mono<T> offload(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,42 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.dto.BulkQuantityRequest;
+import com.inventorymanagement.dto.BulkQuantityResult;
+import com.inventorymanagement.dto.LogPage;
+import com.inventorymanagement.models.Log;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// Quantity changes are not reactive end to end: they run the blocking LogService (its
+// transaction, bucket upsert and summary update) on the bounded elastic pool, so at most
+// 10 x cores scanner writes are in flight, as on a servlet thread pool, and the rest queue.
+// What the reactive stack saves is the thread per connection, not the thread per write.
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLogService {
+
+    @Autowired
+    private LogService logService;
+
+    public Mono<Log> increaseQuantity(String userId, String itemId, Integer quantity, String description) {
+        return ReactiveItemService.offload(() -> logService.increaseQuantity(userId, itemId, quantity, description));
+    }
+
+    public Mono<Log> decreaseQuantity(String userId, String itemId, Integer quantity, String description) {
+        return ReactiveItemService.offload(() -> logService.decreaseQuantity(userId, itemId, quantity, description));
+    }
+
+    public Mono<List<BulkQuantityResult>> adjustQuantities(String userId, List<BulkQuantityRequest.Entry> entries) {
+        return ReactiveItemService.offload(() -> logService.adjustQuantities(userId, entries));
+    }
+
+    // History merges several bucket sources in order, which the blocking service already does
+    public Mono<LogPage> getLogs(String userId, String itemId, String from, String to, String cursor,
+                                 Integer limit) {
+        return ReactiveItemService.offload(() -> logService.getLogs(userId, itemId, from, to, cursor, limit));
+    }
+}
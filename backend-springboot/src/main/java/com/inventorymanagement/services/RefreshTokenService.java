@@ -0,0 +1,109 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.models.RefreshToken;
+import com.inventorymanagement.repositories.RefreshTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+
+// Long-lived, single-use tokens that trade for a new access token without the password,
+// so an active client signs in with BCrypt once per refresh lifetime instead of once per access token.
+@Service
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserExistenceCache userExistenceCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.refresh.expiration:2592000000}")
+    private long refreshExpirationMs;
+
+    public String issue(String userId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.insert(new RefreshToken(hash(token), userId, now,
+                now.plus(Duration.ofMillis(refreshExpirationMs))));
+        return token;
+    }
+
+    // Consumes the token and issues its replacement; a token can only ever be used once. Deleting a
+    // user revokes their tokens, but a rotation running alongside can still issue one afterwards,
+    // so the user is checked here too and such a token never rotates again.
+    public Rotation rotate(String token) throws Exception {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("Refresh token is required");
+        }
+
+        RefreshToken stored = refreshTokenRepository.deleteByIdAndExpiresAtAfter(hash(token), LocalDateTime.now());
+        if (stored == null) {
+            meterRegistry.counter("auth.refresh", "outcome", "rejected").increment();
+            throw new Exception("Invalid or expired refresh token");
+        }
+        if (!userExistenceCache.exists(stored.getUserId())) {
+            meterRegistry.counter("auth.refresh", "outcome", "rejected").increment();
+            throw new Exception("Invalid or expired refresh token");
+        }
+
+        meterRegistry.counter("auth.refresh", "outcome", "rotated").increment();
+        return new Rotation(stored.getUserId(), issue(stored.getUserId()));
+    }
+
+    public void revoke(String token) {
+        if (token != null && !token.isEmpty()) {
+            refreshTokenRepository.deleteById(hash(token));
+        }
+    }
+
+    // Signs the user out everywhere; access tokens already issued run out on their own
+    public void revokeAll(String userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    // The token is 256 random bits, so a plain fast hash is enough to make the stored value useless
+    private String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static final class Rotation {
+        private final String userId;
+        private final String refreshToken;
+
+        private Rotation(String userId, String refreshToken) {
+            this.userId = userId;
+            this.refreshToken = refreshToken;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public String getRefreshToken() {
+            return refreshToken;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.models.Item;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+// Change to a user's dashboard totals caused by one write
+@Getter
+@AllArgsConstructor
+public class SummaryDelta {
+    private final long products;
+    private final long units;
+    private final BigDecimal stockValue;
+    private final BigDecimal salesValue;
+
+    // What a single item contributes to the totals
+    public static SummaryDelta of(Item item) {
+        BigDecimal price = priceOrZero(item.getPrice());
+        int quantity = item.getQuantity() != null ? item.getQuantity() : 0;
+        int sold = item.getSold() != null ? item.getSold() : 0;
+        return new SummaryDelta(1, quantity, price.multiply(BigDecimal.valueOf(quantity)),
+                price.multiply(BigDecimal.valueOf(sold)));
+    }
+
+    // The stock write has already committed when these run, so a missing price counts as zero
+    // rather than failing and leaving the totals behind the items
+    public static SummaryDelta stockIncrease(BigDecimal price, int applied) {
+        BigDecimal value = priceOrZero(price).multiply(BigDecimal.valueOf(applied));
+        return new SummaryDelta(0, applied, value, BigDecimal.ZERO);
+    }
+
+    public static SummaryDelta stockDecrease(BigDecimal price, int applied) {
+        BigDecimal value = priceOrZero(price).multiply(BigDecimal.valueOf(applied));
+        return new SummaryDelta(0, -applied, value.negate(), value);
+    }
+
+    public SummaryDelta plus(SummaryDelta other) {
+        return new SummaryDelta(products + other.products, units + other.units,
+                stockValue.add(other.stockValue), salesValue.add(other.salesValue));
+    }
+
+    public SummaryDelta minus(SummaryDelta other) {
+        return plus(other.negate());
+    }
+
+    public SummaryDelta negate() {
+        return new SummaryDelta(-products, -units, stockValue.negate(), salesValue.negate());
+    }
+
+    public boolean isZero() {
+        return products == 0 && units == 0 && stockValue.signum() == 0 && salesValue.signum() == 0;
+    }
+
+    private static BigDecimal priceOrZero(BigDecimal price) {
+        return price != null ? price : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,91 @@
+package com.inventorymanagement.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.inventorymanagement.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class UserExistenceCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.cache.user-exists.max-size:10000}")
+    private long maxSize;
+
+    @Value("${app.cache.user-exists.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private Cache<String, Boolean> cache;
+
+    // Bumped by every invalidation, so a lookup that overlapped one does not cache what it read
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user-exists");
+    }
+
+    // existsById only asks Mongo for a match, it never loads the user document. A miss is looked
+    // up outside the cache rather than through cache.get, whose loader runs inside the map's
+    // compute: a virtual request thread blocked on Mongo there pins its carrier for the round trip.
+    public boolean exists(String userId) {
+        if (userId == null) {
+            return false;
+        }
+        Boolean cached = cache.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = invalidations.get();
+        boolean exists = userRepository.existsById(userId);
+        cache.put(userId, exists);
+        if (invalidations.get() != seen) {
+            cache.invalidate(userId);
+        }
+        return exists;
+    }
+
+    // Hits answer on the caller's thread; only a miss hops to boundedElastic for the Mongo lookup
+    public Mono<Boolean> existsAsync(String userId) {
+        if (userId == null) {
+            return Mono.just(false);
+        }
+        Boolean cached = cache.getIfPresent(userId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return Mono.fromCallable(() -> exists(userId)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public void invalidate(String userId) {
+        if (userId != null) {
+            invalidations.incrementAndGet();
+            cache.invalidate(userId);
+        }
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+}
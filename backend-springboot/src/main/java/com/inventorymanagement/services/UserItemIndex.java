@@ -0,0 +1,263 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.models.Item;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Inverted index over one user's item names, categories and descriptions.
+// Terms sit in a sorted map so a prefix lookup is a range scan. Each posting packs
+// slot << 3 | field bits, where a slot is the item's position in itemIds.
+class UserItemIndex {
+
+    static final int NAME = 1;
+    static final int CATEGORY = 2;
+    static final int DESCRIPTION = 4;
+
+    private static final float EXACT = 1.0f;
+    private static final float PREFIX = 0.8f;
+    private static final float FUZZY = 0.5f;
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final List<String> itemIds = new ArrayList<>();
+    // Terms each slot was indexed under, so an update can take them back out
+    private final List<String[]> slotTerms = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    // Lowercases, strips accents and splits on anything that is not a letter or digit
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+                .replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token.length() > MAX_TERM_LENGTH ? token.substring(0, MAX_TERM_LENGTH) : token);
+            }
+        }
+        return tokens;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void put(Item item) {
+        Map<String, Integer> fields = new LinkedHashMap<>();
+        addField(fields, item.getName(), NAME);
+        addField(fields, item.getCategory(), CATEGORY);
+        addField(fields, item.getDescription(), DESCRIPTION);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(item.getId());
+            int slot;
+            if (freeSlots.isEmpty()) {
+                slot = itemIds.size();
+                itemIds.add(item.getId());
+                slotTerms.add(null);
+            } else {
+                slot = freeSlots.pop();
+                itemIds.set(slot, item.getId());
+            }
+            slots.put(item.getId(), slot);
+            for (Map.Entry<String, Integer> field : fields.entrySet()) {
+                terms.computeIfAbsent(field.getKey(), term -> new Postings()).add(slot << 3 | field.getValue());
+            }
+            slotTerms.set(slot, fields.keySet().toArray(new String[0]));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String itemId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Every query token has to match (exactly, as a prefix, or within the typo budget) for an
+    // item to qualify. Scores add up across tokens and favour name over category over description.
+    List<String> search(List<String> queryTokens, int limit) {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Float> scores = null;
+            for (String token : queryTokens) {
+                Map<Integer, Float> tokenScores = scoreToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((slot, score) -> score + tokenScores.get(slot));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            // Lowest score at the head; on a tie the later slot goes first so results are stable
+            Comparator<Map.Entry<Integer, Float>> worstFirst = Map.Entry.<Integer, Float>comparingByValue()
+                    .thenComparing(Map.Entry::getKey, Comparator.reverseOrder());
+            PriorityQueue<Map.Entry<Integer, Float>> top = new PriorityQueue<>(limit + 1, worstFirst);
+            for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+                top.offer(entry);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            String[] ranked = new String[top.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = itemIds.get(top.poll().getKey());
+            }
+            return Arrays.asList(ranked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Integer, Float> scoreToken(String token) {
+        Map<Integer, Float> scores = new HashMap<>();
+        Postings exact = terms.get(token);
+        if (exact != null) {
+            exact.score(scores, EXACT);
+        }
+        for (Postings postings : terms.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+            postings.score(scores, PREFIX);
+        }
+
+        // Short tokens get no typo budget; a one-letter slip there matches too much. Only terms
+        // sharing the first character are tried, which keeps the scan to a slice of the vocabulary.
+        int maxEdits = token.length() >= 8 ? 2 : token.length() >= 4 ? 1 : 0;
+        if (maxEdits > 0) {
+            String first = token.substring(0, 1);
+            for (Map.Entry<String, Postings> entry : terms.subMap(first, true, first + Character.MAX_VALUE, false).entrySet()) {
+                String term = entry.getKey();
+                if (Math.abs(term.length() - token.length()) <= maxEdits && !term.startsWith(token)
+                        && withinEdits(token, term, maxEdits)) {
+                    entry.getValue().score(scores, FUZZY);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void removeLocked(String itemId) {
+        Integer slot = slots.remove(itemId);
+        if (slot == null) {
+            return;
+        }
+        for (String term : slotTerms.get(slot)) {
+            Postings postings = terms.get(term);
+            postings.remove(slot);
+            if (postings.size == 0) {
+                terms.remove(term);
+            }
+        }
+        slotTerms.set(slot, null);
+        itemIds.set(slot, null);
+        freeSlots.push(slot);
+    }
+
+    private static void addField(Map<String, Integer> fields, String text, int field) {
+        for (String token : tokenize(text)) {
+            fields.merge(token, field, (a, b) -> a | b);
+        }
+    }
+
+    private static float fieldWeight(int fieldBits) {
+        float weight = 0;
+        if ((fieldBits & NAME) != 0) weight += 3;
+        if ((fieldBits & CATEGORY) != 0) weight += 2;
+        if ((fieldBits & DESCRIPTION) != 0) weight += 1;
+        return weight;
+    }
+
+    // Edit distance counting a swap of neighbouring letters as one edit; gives up as soon as
+    // a whole row exceeds the budget
+    static boolean withinEdits(String a, String b, int maxEdits) {
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxEdits) {
+                return false;
+            }
+            int[] swap = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()] <= maxEdits;
+    }
+
+    private static final class Postings {
+        private int[] entries = new int[2];
+        private int size;
+
+        void add(int entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = entry;
+        }
+
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (entries[i] >>> 3 == slot) {
+                    entries[i] = entries[--size];
+                    return;
+                }
+            }
+        }
+
+        // A slot reached through several terms for the same token keeps its best match
+        void score(Map<Integer, Float> scores, float match) {
+            for (int i = 0; i < size; i++) {
+                float score = match * fieldWeight(entries[i] & 7);
+                scores.merge(entries[i] >>> 3, score, Math::max);
+            }
+        }
+    }
+}
@@ -4,18 +4,22 @@ import com.inventorymanagement.models.User;
 import com.inventorymanagement.repositories.UserRepository;
 import com.inventorymanagement.security.JwtTokenProvider;
 import com.inventorymanagement.utils.EmailSender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import jakarta.mail.MessagingException;
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class UserService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
     @Autowired
     private UserRepository userRepository;
 
@@ -28,6 +32,12 @@ public class UserService {
     @Autowired
     private EmailSender emailSender;
 
+    @Autowired
+    private UserExistenceCache userExistenceCache;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     @Value("${app.client.url:http://localhost:5173}")
     private String clientUrl;
 
@@ -50,7 +60,9 @@ public class UserService {
 
         // Create user
         User user = new User(name, email, phoneNo, hashedPassword);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userExistenceCache.invalidate(saved.getId());
+        return saved;
     }
 
     public User loginUser(String email, String password) throws Exception {
@@ -65,9 +77,26 @@ public class UserService {
             throw new Exception("Invalid Password");
         }
 
+        // The raw password is only known here, so hashes made at an older strength are upgraded on login
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            rehash(user, password);
+        }
+
         return user;
     }
 
+    private void rehash(User user, String password) {
+        try {
+            String upgraded = passwordEncoder.encode(password);
+            if (userRepository.findAndSetPasswordByIdAndPassword(user.getId(), user.getPassword(), upgraded) > 0) {
+                user.setPassword(upgraded);
+            }
+        } catch (RejectedExecutionException e) {
+            // Hashing is saturated; the login still succeeds and the next one tries again
+            logger.debug("Skipped password rehash for user {}", user.getId());
+        }
+    }
+
     public User getUserById(String userId) throws Exception {
         Optional<User> user = userRepository.findById(userId);
         if (user.isEmpty()) {
@@ -97,6 +126,8 @@ public class UserService {
             throw new Exception("User not found");
         }
         userRepository.deleteById(userId);
+        userExistenceCache.invalidate(userId);
+        refreshTokenService.revokeAll(userId);
     }
 
     public void initiatePasswordReset(String email) throws Exception {
@@ -116,11 +147,8 @@ public class UserService {
         String resetLink = clientUrl + "/resete-password/" + resetToken;
         String htmlContent = "<p>Click <a href=\"" + resetLink + "\">here</a> to reset your password. The link is valid for 10 minutes</p>";
         
-        try {
-            emailSender.sendHtmlEmail(user.getEmail(), "Password Reset", htmlContent);
-        } catch (MessagingException e) {
-            throw new Exception("Failed to send reset email: " + e.getMessage());
-        }
+        // Delivered in the background so a slow mail server never holds up the request
+        emailSender.queueHtmlEmail(user.getEmail(), "Password Reset", htmlContent);
     }
 
     public void resetPassword(String token, String newPassword) throws Exception {
@@ -146,5 +174,8 @@ public class UserService {
         user.setResetToken(null);
         user.setResetTokenExpire(null);
         userRepository.save(user);
+
+        // Sessions opened with the old password must sign in again
+        refreshTokenService.revokeAll(userId);
     }
 }
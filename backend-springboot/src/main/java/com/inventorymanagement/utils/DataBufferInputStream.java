@@ -0,0 +1,75 @@
+package com.inventorymanagement.utils;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Blocking view over a reactive request body with a small prefetch, for parsers that need an InputStream.
+// Reads block, so it must only be consumed off the event loop; close() cancels whatever is left of the body.
+public class DataBufferInputStream extends InputStream {
+
+    private final Stream<DataBuffer> buffers;
+    private final Iterator<DataBuffer> iterator;
+    private InputStream current;
+
+    public DataBufferInputStream(Flux<DataBuffer> body, int prefetch) {
+        this.buffers = body.doOnDiscard(DataBuffer.class, DataBufferUtils::release).toStream(prefetch);
+        this.iterator = buffers.iterator();
+    }
+
+    @Override
+    public int read() throws IOException {
+        while (nextBuffer()) {
+            int b = current.read();
+            if (b >= 0) {
+                return b;
+            }
+            closeCurrent();
+        }
+        return -1;
+    }
+
+    @Override
+    public int read(byte[] target, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (nextBuffer()) {
+            int read = current.read(target, offset, length);
+            if (read > 0) {
+                return read;
+            }
+            closeCurrent();
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeCurrent();
+        buffers.close();
+    }
+
+    private boolean nextBuffer() {
+        if (current == null) {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            // Releases the buffer back to the pool once it has been read through
+            current = iterator.next().asInputStream(true);
+        }
+        return true;
+    }
+
+    private void closeCurrent() throws IOException {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+}
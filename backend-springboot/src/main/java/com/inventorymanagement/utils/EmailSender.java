@@ -1,7 +1,13 @@
 package com.inventorymanagement.utils;
 
+import com.inventorymanagement.events.MailQueuedEvent;
+import com.inventorymanagement.models.OutboxMail;
+import com.inventorymanagement.repositories.MailOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
@@ -13,13 +19,27 @@ import jakarta.mail.internet.MimeMessage;
 @Component
 public class EmailSender {
 
+    private static final Logger logger = LoggerFactory.getLogger(EmailSender.class);
+
     @Autowired
     private JavaMailSender mailSender;
 
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Value("${spring.mail.username}")
     private String fromEmail;
 
-    public void sendHtmlEmail(String to, String subject, String htmlContent) throws MessagingException {
+    // Stores the mail in the outbox and returns; MailDispatcher delivers it in the background
+    public void queueHtmlEmail(String to, String subject, String htmlContent) {
+        OutboxMail mail = mailOutboxRepository.save(new OutboxMail(to, subject, htmlContent));
+        eventPublisher.publishEvent(new MailQueuedEvent(mail.getId()));
+    }
+
+    public MimeMessage buildHtmlEmail(String to, String subject, String htmlContent) throws MessagingException {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, true);
 
@@ -27,9 +47,14 @@ public class EmailSender {
         helper.setTo(to);
         helper.setSubject(subject);
         helper.setText(htmlContent, true);
+        return message;
+    }
+
+    public void sendHtmlEmail(String to, String subject, String htmlContent) throws MessagingException {
+        MimeMessage message = buildHtmlEmail(to, subject, htmlContent);
 
         mailSender.send(message);
-        System.out.println("Email sent successfully to: " + to);
+        logger.info("Email sent successfully to: {}", to);
     }
 
     public void sendSimpleEmail(String to, String subject, String text) {
@@ -40,6 +65,6 @@ public class EmailSender {
         message.setText(text);
 
         mailSender.send(message);
-        System.out.println("Simple email sent to: " + to);
+        logger.info("Simple email sent to: {}", to);
     }
 }
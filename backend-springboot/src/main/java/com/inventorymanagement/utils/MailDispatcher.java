@@ -0,0 +1,197 @@
+package com.inventorymanagement.utils;
+
+import com.inventorymanagement.events.MailQueuedEvent;
+import com.inventorymanagement.models.OutboxMail;
+import com.inventorymanagement.repositories.MailOutboxRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Drains the mail outbox on a small fixed pool so slow SMTP never holds a request thread
+@Component
+public class MailDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailDispatcher.class);
+
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private EmailSender emailSender;
+
+    @Value("${app.mail.workers:2}")
+    private int workers;
+
+    @Value("${app.mail.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.mail.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.mail.retry-backoff-ms:5000}")
+    private long retryBackoffMs;
+
+    @Value("${app.mail.max-backoff-ms:900000}")
+    private long maxBackoffMs;
+
+    @Value("${app.mail.lease-ms:120000}")
+    private long leaseMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        // Virtual threads park instead of pinning a carrier while SMTP is slow; the pool still caps concurrency
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("mail-dispatcher-", 1).factory()
+                : Thread.ofPlatform().name("mail-dispatcher-", 1).daemon(true).factory();
+
+        // One queued drain per worker is enough: a drain keeps going until the outbox is empty
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @EventListener
+    public void onMailQueued(MailQueuedEvent event) {
+        wakeUp();
+    }
+
+    public void wakeUp() {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // Workers are already busy; they or the next poll will pick the mail up
+        }
+    }
+
+    // Catches retries that came due and mail queued by other instances
+    @Scheduled(fixedDelayString = "${app.mail.poll-interval-ms:5000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    private void drain() {
+        List<OutboxMail> batch;
+        do {
+            batch = claimBatch();
+            if (!batch.isEmpty()) {
+                deliver(batch);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private List<OutboxMail> claimBatch() {
+        List<OutboxMail> batch = new ArrayList<>(batchSize);
+        Duration lease = Duration.ofMillis(leaseMs);
+        while (batch.size() < batchSize) {
+            OutboxMail mail = mailOutboxRepository.claimNext(lease);
+            if (mail == null) {
+                break;
+            }
+            batch.add(mail);
+        }
+        return batch;
+    }
+
+    // The whole batch goes out over a single SMTP connection
+    private void deliver(List<OutboxMail> batch) {
+        Map<MimeMessage, OutboxMail> byMessage = new IdentityHashMap<>();
+        for (OutboxMail mail : batch) {
+            try {
+                byMessage.put(emailSender.buildHtmlEmail(mail.getTo(), mail.getSubject(), mail.getHtmlContent()), mail);
+            } catch (Exception e) {
+                // A mail that cannot even be built will never succeed
+                logger.warn("Dropping outbox mail {}: {}", mail.getId(), e.getMessage());
+                markFailed(mail, e.getMessage(), null);
+            }
+        }
+        if (byMessage.isEmpty()) {
+            return;
+        }
+
+        Map<Object, Exception> failed = Map.of();
+        try {
+            mailSender.send(byMessage.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failed = e.getFailedMessages();
+            if (failed.isEmpty()) {
+                // Connection-level failure: nothing in the batch was sent
+                failed = new IdentityHashMap<>();
+                for (MimeMessage message : byMessage.keySet()) {
+                    failed.put(message, e);
+                }
+            }
+        } catch (Exception e) {
+            failed = new IdentityHashMap<>();
+            for (MimeMessage message : byMessage.keySet()) {
+                failed.put(message, e);
+            }
+        }
+
+        for (Map.Entry<MimeMessage, OutboxMail> entry : byMessage.entrySet()) {
+            OutboxMail mail = entry.getValue();
+            Exception error = failed.get(entry.getKey());
+            if (error == null) {
+                if (!mailOutboxRepository.markSent(mail)) {
+                    logger.warn("Outbox mail {} was sent after its lease ran out; another worker may send it again",
+                            mail.getId());
+                }
+            } else {
+                retryOrGiveUp(mail, error);
+            }
+        }
+    }
+
+    private void retryOrGiveUp(OutboxMail mail, Exception error) {
+        int attempts = mail.getAttempts() != null ? mail.getAttempts() : 1;
+        if (attempts >= maxAttempts) {
+            logger.warn("Giving up on outbox mail {} after {} attempts: {}", mail.getId(), attempts, error.getMessage());
+            markFailed(mail, error.getMessage(), null);
+            return;
+        }
+
+        // Exponential backoff: base, 2x base, 4x base, ... up to the cap
+        long backoff = Math.min(retryBackoffMs << Math.min(attempts - 1, 20), maxBackoffMs);
+        logger.info("Outbox mail {} failed (attempt {}), retrying in {} ms", mail.getId(), attempts, backoff);
+        markFailed(mail, error.getMessage(), LocalDateTime.now().plus(Duration.ofMillis(backoff)));
+    }
+
+    private void markFailed(OutboxMail mail, String error, LocalDateTime retryAt) {
+        if (!mailOutboxRepository.markFailed(mail, error, retryAt)) {
+            logger.info("Outbox mail {} failed after its lease ran out; leaving it to the worker that holds it now",
+                    mail.getId());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.inventorymanagement.config;
+
+import com.inventorymanagement.support.MongoIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Real servers, so the management port is its own connector as in production, with the
+// Prometheus registry that tests otherwise leave out
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "management.server.port=0")
+class ActuatorSecurityTest extends MongoIntegrationTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int serverPort;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    void apiPortServesProbesButNotMetrics() throws Exception {
+        assertEquals(200, status(serverPort, "/readyz"));
+        assertEquals(200, status(serverPort, "/livez"));
+        assertEquals(404, status(serverPort, "/actuator/prometheus"));
+    }
+
+    @Test
+    void managementPortServesMetrics() throws Exception {
+        assertEquals(200, status(managementPort, "/actuator/prometheus"));
+        assertEquals(200, status(managementPort, "/actuator/health/liveness"));
+    }
+
+    private int status(int port, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
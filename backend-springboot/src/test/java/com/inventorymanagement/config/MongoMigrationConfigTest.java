@@ -0,0 +1,82 @@
+package com.inventorymanagement.config;
+
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.ItemRepository;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.support.MongoIntegrationTest;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MongoMigrationConfigTest extends MongoIntegrationTest {
+
+    @Autowired
+    private MongoMigrationConfig migrations;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoIndexConfig indexes;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void convertsStringPricesToDecimal128() {
+        ObjectId id = new ObjectId();
+        // The shape older versions wrote: BigDecimal mapped to a string
+        mongoTemplate.getCollection("items").insertOne(new Document("_id", id)
+                .append("userId", new ObjectId().toHexString())
+                .append("name", "Legacy")
+                .append("quantity", 4)
+                .append("price", "12.50")
+                .append("sold", 2)
+                .append("soldPrice", "25.00"));
+
+        migrations.afterPropertiesSet();
+
+        Document stored = mongoTemplate.getCollection("items").find(new Document("_id", id)).first();
+        assertEquals(new Decimal128(new BigDecimal("12.50")), stored.get("price"));
+        assertEquals(new Decimal128(new BigDecimal("25.00")), stored.get("soldPrice"));
+
+        Item item = itemRepository.findById(id.toHexString()).orElseThrow();
+        assertEquals(new BigDecimal("12.50"), item.getPrice());
+    }
+
+    @Test
+    void duplicateEmailsAreMovedAsideSoTheUniqueIndexBuilds() {
+        // Data from before the unique index: two accounts on one address
+        mongoTemplate.indexOps(User.class).dropIndex("email");
+        String email = new ObjectId() + "@example.com";
+        ObjectId first = new ObjectId();
+        ObjectId second = new ObjectId();
+        mongoTemplate.getCollection("users").insertOne(new Document("_id", second).append("email", email));
+        mongoTemplate.getCollection("users").insertOne(new Document("_id", first).append("email", email));
+
+        migrations.afterPropertiesSet();
+        indexes.afterPropertiesSet();
+
+        assertEquals(first.toHexString(), userRepository.findByEmail(email).orElseThrow().getId());
+        assertEquals("duplicate-" + second.toHexString() + "-" + email,
+                userRepository.findById(second.toHexString()).orElseThrow().getEmail());
+        assertThrows(DuplicateKeyException.class,
+                () -> userRepository.insert(new User("Another One", email, "0000000000", "x")));
+
+        userRepository.deleteAllById(List.of(first.toHexString(), second.toHexString()));
+    }
+}
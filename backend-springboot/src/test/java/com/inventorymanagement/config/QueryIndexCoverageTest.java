@@ -0,0 +1,298 @@
+package com.inventorymanagement.config;
+
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.Log;
+import com.inventorymanagement.models.LogBucket;
+import com.inventorymanagement.models.OutboxMail;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.LogBucketRepository;
+import com.inventorymanagement.repositories.LogBucketRepositoryCustom;
+import com.inventorymanagement.repositories.LogRepository;
+import com.inventorymanagement.repositories.MailOutboxRepository;
+import com.inventorymanagement.repositories.RateLimitWindowRepository;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.services.InventorySummaryService;
+import com.inventorymanagement.services.InventoryVersions;
+import com.inventorymanagement.services.ItemService;
+import com.inventorymanagement.services.JobLeases;
+import com.inventorymanagement.services.LogBucketService;
+import com.inventorymanagement.services.LogService;
+import com.inventorymanagement.services.RefreshTokenService;
+import com.inventorymanagement.support.MongoIntegrationTest;
+import com.inventorymanagement.support.QueryRecorder;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the request paths and background jobs, records every query they send and checks that each
+// one can use an index: a leading index key among its equality or range fields (every branch of
+// an $or), or an index-backed sort. Against a real server (TEST_MONGODB_URI) each query is also
+// explained and its winning plan must not contain a collection scan.
+class QueryIndexCoverageTest extends MongoIntegrationTest {
+
+    // Whole-collection reads by design
+    private static final Set<String> FULL_SCANS = Set.of(
+            "items aggregate []",               // nightly summary recompute reads every item
+            "inventory_summaries find []",      // nightly summary recompute reads every version
+            "logs aggregate []");               // existsAny, a count capped by $limit 1
+
+    private static final Set<String> UNEXPLAINABLE = Set.of("$db", "lsid", "$clusterTime", "txnNumber",
+            "$readPreference", "writeConcern", "readConcern", "apiVersion");
+
+    @Autowired
+    private QueryRecorder queryRecorder;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private LogService logService;
+
+    @Autowired
+    private LogBucketService logBucketService;
+
+    @Autowired
+    private LogBucketRepository bucketRepository;
+
+    @Autowired
+    private LogRepository logRepository;
+
+    @Autowired
+    private InventorySummaryService summaryService;
+
+    @Autowired
+    private InventoryVersions inventoryVersions;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RateLimitWindowRepository rateLimitRepository;
+
+    @Autowired
+    private MailOutboxRepository outboxRepository;
+
+    @Autowired
+    private JobLeases jobLeases;
+
+    @AfterEach
+    void restore() {
+        ReflectionTestUtils.setField(logBucketService, "legacyPending", false);
+        ReflectionTestUtils.setField(logBucketService, "archiveAfterDays", 0);
+    }
+
+    @Test
+    void everyQueryTheAppSendsCanUseAnIndex() throws Exception {
+        String email = new ObjectId() + "@example.com";
+        User user = userRepository.save(new User("Index Tester", email, "0000000000", "x"));
+        String userId = user.getId();
+
+        // Legacy rows and archived buckets, so reads go to every log source
+        logRepository.save(new Log(new ObjectId().toHexString(), userId, "legacy-item", "increase", 1, "d",
+                LocalDateTime.of(2001, 1, 1, 12, 0)));
+        mongoTemplate.insert(new LogBucket(new ObjectId().toHexString(), userId, "archived-item",
+                LocalDate.of(2001, 1, 1), 0, new ArrayList<>()), LogBucketRepositoryCustom.ARCHIVE_COLLECTION);
+        ReflectionTestUtils.setField(logBucketService, "legacyPending", true);
+        ReflectionTestUtils.setField(logBucketService, "archiveAfterDays", 30);
+        bucketRepository.ensureArchive("zstd", 0);
+
+        List<BsonDocument> commands = queryRecorder.record(() -> {
+            userRepository.existsByEmail(email);
+            userRepository.findByEmail(email);
+
+            Item item = itemService.addItem(userId, "Widget", "d", 20, new BigDecimal("2.00"), 0, "tools");
+            itemService.addItem(userId, "Gadget", "d", 5, new BigDecimal("3.00"), 0, "toys");
+            inventoryVersions.current(userId);
+            itemService.getItemsByUser(userId);
+            itemService.getItemsByUserCategory(userId, "tools");
+            itemService.getItemsPage(userId, null, 1, null, null, null);
+            itemService.getItemsPage(userId, null, 1, "name", "desc", null);
+            itemService.searchItems(userId, "widg", 10);
+            itemService.updateItem(userId, item.getId(), null, null, null, new BigDecimal("2.50"), null, null);
+
+            logService.increaseQuantity(userId, item.getId(), 3, "restock");
+            logService.decreaseQuantity(userId, item.getId(), 2, "sale");
+            logService.getLogs(userId, item.getId(), null, null, null, 10);
+            try (Stream<Log> logs = logBucketService.streamUserLogs(userId)) {
+                logs.count();
+            }
+
+            summaryService.getSummary(userId);
+            summaryService.rebuildAll();
+            logBucketService.migrateLegacyLogs();
+            bucketRepository.archiveBefore(LocalDate.of(2001, 1, 2), 10);
+
+            String refresh = refreshTokenService.issue(userId);
+            refreshTokenService.rotate(refresh);
+            refreshTokenService.revokeAll(userId);
+
+            rateLimitRepository.increment("login:" + email, LocalDateTime.now().plusMinutes(1));
+            outboxRepository.claimNext(Duration.ofSeconds(30));
+            jobLeases.tryAcquire("index-coverage");
+
+            itemService.deleteItem(userId, item.getId());
+        });
+
+        Map<String, Set<String>> leadingKeys = new HashMap<>();
+        List<String> unindexed = new ArrayList<>();
+        List<String> scans = new ArrayList<>();
+        for (BsonDocument command : commands) {
+            for (BsonDocument query : queriesOf(command)) {
+                String collection = query.getString("collection").getValue();
+                BsonDocument filter = query.getDocument("filter");
+                String signature = collection + " " + query.getString("command").getValue() + " " + filter.keySet();
+                if (FULL_SCANS.contains(signature)) {
+                    continue;
+                }
+                Set<String> keys = leadingKeys.computeIfAbsent(collection, this::leadingKeys);
+                if (!usesIndex(filter, keys) && !sortsByIndex(query.getDocument("sort"), keys)) {
+                    unindexed.add(signature + " " + filter.toJson());
+                }
+                if (REAL_MONGO_URI != null && collectionScan(explain(query.getDocument("explain")))) {
+                    scans.add(signature + " " + filter.toJson());
+                }
+            }
+        }
+
+        assertFalse(commands.isEmpty());
+        assertTrue(unindexed.isEmpty(), "Queries no index supports: " + unindexed);
+        assertTrue(scans.isEmpty(), "Queries planned as collection scans: " + scans);
+
+        mongoTemplate.remove(new Query(Criteria.where("userId").is(userId)), LogBucket.class,
+                LogBucketRepositoryCustom.ARCHIVE_COLLECTION);
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(userId)), User.class);
+        mongoTemplate.remove(new Query(Criteria.where("status").is(OutboxMail.SENDING)), OutboxMail.class);
+    }
+
+    // One entry per statement: the collection, the filter, the sort if any and a standalone command to explain
+    private List<BsonDocument> queriesOf(BsonDocument command) {
+        String name = command.getFirstKey();
+        String collection = command.getString(name).getValue();
+        List<BsonDocument> queries = new ArrayList<>();
+        switch (name) {
+            case "find", "count", "distinct", "findAndModify" -> {
+                String filterField = name.equals("find") ? "filter" : "query";
+                queries.add(query(name, collection, command.getDocument(filterField, new BsonDocument()),
+                        command.getDocument("sort", new BsonDocument()), command));
+            }
+            case "aggregate" -> {
+                BsonArray pipeline = command.getArray("pipeline");
+                BsonDocument first = pipeline.isEmpty() ? new BsonDocument() : pipeline.get(0).asDocument();
+                BsonDocument filter = first.getDocument("$match", new BsonDocument());
+                queries.add(query(name, collection, filter, new BsonDocument(), command));
+            }
+            case "update", "delete" -> {
+                String statements = name.equals("update") ? "updates" : "deletes";
+                for (BsonValue statement : command.getArray(statements)) {
+                    BsonDocument single = command.clone();
+                    single.put(statements, new BsonArray(List.of(statement)));
+                    queries.add(query(name, collection, statement.asDocument().getDocument("q"),
+                            new BsonDocument(), single));
+                }
+            }
+            default -> { }
+        }
+        return queries;
+    }
+
+    private BsonDocument query(String name, String collection, BsonDocument filter, BsonDocument sort,
+                               BsonDocument command) {
+        BsonDocument explainable = new BsonDocument();
+        command.forEach((key, value) -> {
+            if (!UNEXPLAINABLE.contains(key)) {
+                explainable.put(key, value);
+            }
+        });
+        return new BsonDocument("command", new BsonString(name))
+                .append("collection", new BsonString(collection))
+                .append("filter", filter)
+                .append("sort", sort)
+                .append("explain", explainable);
+    }
+
+    private Set<String> leadingKeys(String collection) {
+        Set<String> keys = new HashSet<>(Set.of("_id"));
+        for (IndexInfo index : mongoTemplate.indexOps(collection).getIndexInfo()) {
+            keys.add(index.getIndexFields().get(0).getKey());
+        }
+        return keys;
+    }
+
+    private boolean usesIndex(BsonDocument filter, Set<String> leadingKeys) {
+        for (String field : filter.keySet()) {
+            if (!field.startsWith("$") && leadingKeys.contains(field)) {
+                return true;
+            }
+        }
+        if (filter.containsKey("$and")) {
+            for (BsonValue branch : filter.getArray("$and")) {
+                if (usesIndex(branch.asDocument(), leadingKeys)) {
+                    return true;
+                }
+            }
+        }
+        if (filter.containsKey("$or")) {
+            for (BsonValue branch : filter.getArray("$or")) {
+                if (!usesIndex(branch.asDocument(), leadingKeys)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private boolean sortsByIndex(BsonDocument sort, Set<String> leadingKeys) {
+        return !sort.isEmpty() && leadingKeys.contains(sort.getFirstKey());
+    }
+
+    private Document explain(BsonDocument command) {
+        return mongoTemplate.getDb().runCommand(new BsonDocument("explain", command)
+                .append("verbosity", new BsonString("queryPlanner")));
+    }
+
+    private boolean collectionScan(Object plan) {
+        if (plan instanceof Document document) {
+            if ("COLLSCAN".equals(document.get("stage"))) {
+                return true;
+            }
+            return document.values().stream().anyMatch(this::collectionScan);
+        }
+        if (plan instanceof List<?> list) {
+            return list.stream().anyMatch(this::collectionScan);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,81 @@
+package com.inventorymanagement.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.security.JwtTokenProvider;
+import com.inventorymanagement.services.ItemService;
+import com.inventorymanagement.support.MongoIntegrationTest;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockUser;
+
+// The reactive profile's content negotiation: JSON by default, CBOR only when asked for.
+// Actuator shares the mock server, or the reactive context would bind the management port.
+@SpringBootTest(properties = "management.server.port=")
+@ActiveProfiles("reactive")
+@AutoConfigureWebTestClient
+class ReactiveCodecsTest extends MongoIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    private String userId;
+    private Item item;
+
+    @BeforeEach
+    void createItem() throws Exception {
+        User user = new User("Codec Tester", new ObjectId() + "@example.com", "0000000000", "x");
+        userId = userRepository.save(user).getId();
+        item = itemService.addItem(userId, "Widget", "d", 5, new BigDecimal("1.25"), 0, "c");
+    }
+
+    @Test
+    void anyAcceptGetsJson() {
+        getItem(MediaType.ALL)
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody().jsonPath("$.item.name").isEqualTo("Widget");
+    }
+
+    @Test
+    void cborIsServedWhenAskedFor() throws Exception {
+        byte[] body = getItem(MediaType.APPLICATION_CBOR)
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        JsonNode document = new CBORMapper().readTree(body);
+        assertEquals("Widget", document.path("item").path("name").asText());
+    }
+
+    private WebTestClient.ResponseSpec getItem(MediaType accept) {
+        return webTestClient.mutateWith(mockUser(userId))
+                .get().uri("/api/item/getItem/" + item.getId())
+                .header("authtoken", tokenProvider.generateToken(userId))
+                .accept(accept)
+                .exchange();
+    }
+}
@@ -0,0 +1,33 @@
+package com.inventorymanagement.config;
+
+import com.inventorymanagement.support.MongoIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// MANAGEMENT_PORT set to the API port: metrics are refused even to a signed-in user
+@AutoConfigureObservability
+@SpringBootTest(properties = "management.server.port=")
+class SharedPortActuatorSecurityTest extends MongoIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void metricsAreRefusedOnTheApiPort() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/prometheus").with(user("someone"))).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void probesStayOpen() throws Exception {
+        mockMvc.perform(get("/actuator/health/liveness")).andExpect(status().isOk());
+        mockMvc.perform(get("/readyz")).andExpect(status().isOk());
+    }
+}
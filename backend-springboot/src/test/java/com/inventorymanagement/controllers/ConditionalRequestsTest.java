@@ -0,0 +1,170 @@
+package com.inventorymanagement.controllers;
+
+import com.inventorymanagement.events.InventoryChangedEvent;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.InventoryVersionRepository;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.security.JwtTokenProvider;
+import com.inventorymanagement.services.ItemService;
+import com.inventorymanagement.services.LogService;
+import com.inventorymanagement.services.UserExistenceCache;
+import com.inventorymanagement.support.MongoIntegrationTest;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ConditionalRequestsTest extends MongoIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private LogService logService;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Autowired
+    private InventoryVersionRepository versionRepository;
+
+    @Autowired
+    private UserExistenceCache userExistenceCache;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    private String userId;
+    private String token;
+    private Item item;
+
+    @BeforeEach
+    void createInventory() throws Exception {
+        User user = new User("Etag Tester", new ObjectId() + "@example.com", "0000000000", "x");
+        userId = userRepository.save(user).getId();
+        item = itemService.addItem(userId, "Widget", "d", 5, new BigDecimal("1.25"), 0, "c");
+        token = tokenProvider.generateToken(userId);
+    }
+
+    @Test
+    void unchangedInventoryIsNotModified() throws Exception {
+        String etag = list(null).andExpect(status().isOk()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        list(etag).andExpect(status().isNotModified());
+    }
+
+    @Test
+    void anotherUsersItemIsNeverNotModified() throws Exception {
+        String otherId = userRepository.save(new User("Other", new ObjectId() + "@example.com", "0000000000", "x")).getId();
+
+        // Later than any version, so only the ownership check stands between the caller and a 304
+        long later = System.currentTimeMillis() + 3_600_000;
+        mockMvc.perform(get("/api/item/getItem/" + item.getId()).header("authtoken", tokenProvider.generateToken(otherId))
+                        .with(user(otherId)).header(HttpHeaders.IF_MODIFIED_SINCE, later))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.item.id").value(item.getId()));
+
+        mockMvc.perform(get("/api/item/getItem/" + item.getId()).header("authtoken", token)
+                        .with(user(userId)).header(HttpHeaders.IF_MODIFIED_SINCE, later))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void writeOnAnotherInstanceInvalidatesTagsHereAtOnce() throws Exception {
+        String etag = list(null).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // What another instance does: change the item in Mongo and move the stored version, with
+        // nothing reaching this instance's memory
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(item.getId())),
+                new Update().set("quantity", 42), Item.class);
+        versionRepository.advance(userId, System.currentTimeMillis());
+
+        String next = list(etag).andExpect(status().isOk()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, next);
+    }
+
+    @Test
+    void deletedUserIsNotAnsweredFromTheTag() throws Exception {
+        String etag = list(null).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(userId)), User.class);
+        userExistenceCache.invalidate(userId);
+
+        list(etag).andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message").value("No such user"));
+    }
+
+    @Test
+    void logsReadWhenTheVersionMovesAlreadyHoldTheNewEntry() throws Exception {
+        List<Integer> logsSeen = new CopyOnWriteArrayList<>();
+        ApplicationListener<PayloadApplicationEvent<InventoryChangedEvent>> listener =
+                ApplicationListener.forPayload(event -> {
+                    try {
+                        logsSeen.add(logService.getLogs(userId, item.getId(), null, null, null, null).getLogs().size());
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+        context.addApplicationListener(listener);
+        try {
+            logService.increaseQuantity(userId, item.getId(), 3, "restock");
+            logService.decreaseQuantity(userId, item.getId(), 1, "sale");
+        } finally {
+            context.removeApplicationListener(listener);
+        }
+
+        assertEquals(List.of(1, 2), logsSeen);
+    }
+
+    @Test
+    void logOnAnotherUsersItemMovesTheCallersVersion() throws Exception {
+        String callerId = userRepository.save(new User("Clerk", new ObjectId() + "@example.com", "0000000000", "x")).getId();
+        long before = versionRepository.findOrCreate(callerId, System.currentTimeMillis()).getVersion();
+
+        logService.increaseQuantity(callerId, item.getId(), 2, "restock");
+
+        assertNotEquals(before, versionRepository.findOrCreate(callerId, System.currentTimeMillis()).getVersion());
+    }
+
+    private ResultActions list(String ifNoneMatch) throws Exception {
+        MockHttpServletRequestBuilder request = get("/api/item/getItemsByUser").header("authtoken", token).with(user(userId));
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(request);
+    }
+}
@@ -0,0 +1,89 @@
+package com.inventorymanagement.controllers;
+
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.security.JwtTokenProvider;
+import com.inventorymanagement.services.ItemService;
+import com.inventorymanagement.support.MongoIntegrationTest;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ExportControllerTest extends MongoIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    private String userId;
+    private String token;
+
+    @BeforeEach
+    void createInventory() throws Exception {
+        User user = new User("Export Tester", new ObjectId() + "@example.com", "0000000000", "x");
+        userId = userRepository.save(user).getId();
+        for (int i = 0; i < 50; i++) {
+            itemService.addItem(userId, "Item " + i, "d", i, new BigDecimal("1.25"), 0, "c");
+        }
+        token = tokenProvider.generateToken(userId);
+    }
+
+    @Test
+    void gzipExportInflatesToThePlainExport() throws Exception {
+        byte[] plain = export(false);
+        byte[] gzipped = export(true);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertArrayEquals(plain, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void onlyTheExportGetsTheLongAsyncTimeout() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/export/inventory")
+                        .header("authtoken", token)
+                        .with(user(userId)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertEquals(1800000L, result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+    }
+
+    private byte[] export(boolean gzip) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/export/inventory")
+                        .param("gzip", String.valueOf(gzip))
+                        .header("authtoken", token)
+                        .with(user(userId)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(gzip ? header().string("Content-Encoding", "gzip") : header().doesNotExist("Content-Encoding"));
+        return result.getResponse().getContentAsByteArray();
+    }
+}
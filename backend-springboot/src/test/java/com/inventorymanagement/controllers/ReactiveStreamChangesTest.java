@@ -0,0 +1,75 @@
+package com.inventorymanagement.controllers;
+
+import com.inventorymanagement.dto.InventoryDelta;
+import com.inventorymanagement.events.InventoryChangedEvent;
+import com.inventorymanagement.services.InventoryEventStream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// The WebFlux change stream on its own: the per-user limit is answered before a stream opens
+class ReactiveStreamChangesTest {
+
+    private final ReactiveItemController controller = new ReactiveItemController();
+    private InventoryEventStream eventStream;
+
+    @BeforeEach
+    void createController() {
+        eventStream = new InventoryEventStream();
+        ReflectionTestUtils.setField(eventStream, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(eventStream, "bufferSize", 256);
+        ReflectionTestUtils.setField(eventStream, "maxStreamsPerUser", 1);
+        ReflectionTestUtils.setField(eventStream, "timeoutMs", 60000L);
+        ReflectionTestUtils.setField(eventStream, "heartbeatMs", 3600000L);
+        ReflectionTestUtils.setField(eventStream, "writeTimeoutMs", 10000L);
+        ReflectionTestUtils.setField(eventStream, "sendThreads", 2);
+        ReflectionTestUtils.setField(eventStream, "virtualThreads", false);
+        eventStream.init();
+        ReflectionTestUtils.setField(controller, "eventStream", eventStream);
+    }
+
+    @AfterEach
+    void shutdown() {
+        eventStream.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamOverTheLimitIsRefusedWith429AndTheOpenOneKeepsItsChanges() {
+        ResponseEntity<?> first = controller.streamChanges(exchange("user")).block();
+        ResponseEntity<?> second = controller.streamChanges(exchange("user")).block();
+
+        assertEquals(429, second.getStatusCode().value());
+        assertNull(second.getBody());
+        assertEquals(200, first.getStatusCode().value());
+
+        // A change made before the body is subscribed waits in the subscription
+        eventStream.onInventoryChanged(InventoryChangedEvent.deleted("user", List.of("a")));
+        Flux<ServerSentEvent<InventoryDelta>> events = (Flux<ServerSentEvent<InventoryDelta>>) first.getBody();
+        ServerSentEvent<InventoryDelta> change = events.filter(event -> event.event() != null)
+                .blockFirst(Duration.ofSeconds(10));
+        assertEquals("deleted", change.event());
+
+        // Cancelling frees the user's slot
+        assertEquals(200, controller.streamChanges(exchange("user")).block().getStatusCode().value());
+    }
+
+    private static MockServerWebExchange exchange(String userId) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/item/streamChanges"));
+        exchange.getAttributes().put("userId", userId);
+        return exchange;
+    }
+}
@@ -0,0 +1,113 @@
+package com.inventorymanagement.controllers;
+
+import com.inventorymanagement.services.UserService;
+import com.inventorymanagement.support.MongoIntegrationTest;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// What an active client costs in BCrypt work, with the default 15-minute access tokens: a
+// working day is 32 of them, and each new one comes either from logging in again or from
+// the refresh endpoint. Every password hash the server does is counted, whichever path asks for it.
+// The login limits are raised because one client logs in more often than they allow in a minute.
+@SpringBootTest(properties = {"app.login.rate.per-email=1000", "app.login.rate.per-ip=1000",
+        "management.server.port=-1"})
+class RefreshTokenCostTest extends MongoIntegrationTest {
+
+    private static final int DAYS = 5;
+    private static final int TOKENS_PER_DAY = 32;
+    private static final String PASSWORD = "correct horse";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private double loginMillis;
+    private int loginCount;
+    private double refreshMillis;
+    private int refreshCount;
+
+    @Test
+    void refreshingSparesTheDailyPasswordChecks() throws Exception {
+        Client relogging = new Client(false);
+        Client refreshing = new Client(true);
+
+        for (int day = 0; day < DAYS; day++) {
+            for (int hour = 0; hour < TOKENS_PER_DAY; hour++) {
+                relogging.renewAndCall();
+                refreshing.renewAndCall();
+            }
+        }
+
+        double reloggingPerDay = relogging.hashes / DAYS;
+        double refreshingPerDay = refreshing.hashes / DAYS;
+        System.out.printf("BCrypt operations per active user per day: %.1f logging in again, %.1f refreshing; "
+                        + "%.1f ms per login, %.1f ms per refresh%n",
+                reloggingPerDay, refreshingPerDay, loginMillis / loginCount, refreshMillis / refreshCount);
+        assertEquals(TOKENS_PER_DAY, reloggingPerDay);
+        // The one login that started the session
+        assertEquals(1.0, refreshing.hashes);
+        assertTrue(refreshMillis / refreshCount < loginMillis / loginCount);
+    }
+
+    private double passwordHashes() {
+        return meterRegistry.find("password.hash").timers().stream().mapToDouble(timer -> timer.count()).sum();
+    }
+
+    private class Client {
+        private final boolean refreshes;
+        private final String email = new ObjectId() + "@example.com";
+        private final String userId;
+        private String authtoken;
+        private String refreshToken;
+        private double hashes;
+
+        Client(boolean refreshes) throws Exception {
+            this.refreshes = refreshes;
+            this.userId = userService.registerUser("Cost Tester", email, "0000000000", PASSWORD).getId();
+        }
+
+        // The previous access token has run out: get a new one, then use it
+        void renewAndCall() throws Exception {
+            double hashesBefore = passwordHashes();
+            long start = System.nanoTime();
+            String body;
+            if (refreshes && refreshToken != null) {
+                body = mockMvc.perform(post("/api/auth/refresh").contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+                        .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+                refreshMillis += (System.nanoTime() - start) / 1e6;
+                refreshCount++;
+            } else {
+                body = mockMvc.perform(post("/api/user/login").contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}"))
+                        .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+                loginMillis += (System.nanoTime() - start) / 1e6;
+                loginCount++;
+            }
+            hashes += passwordHashes() - hashesBefore;
+            authtoken = JsonPath.read(body, "$.authtoken");
+            refreshToken = JsonPath.read(body, "$.refreshToken");
+
+            mockMvc.perform(get("/api/item/getItemsByUser").header("authtoken", authtoken).with(user(userId)))
+                    .andExpect(status().isOk());
+        }
+    }
+}
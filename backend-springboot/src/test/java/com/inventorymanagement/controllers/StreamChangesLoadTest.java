@@ -0,0 +1,205 @@
+package com.inventorymanagement.controllers;
+
+import com.inventorymanagement.events.InventoryChangedEvent;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.security.JwtTokenProvider;
+import com.inventorymanagement.services.InventoryEventStream;
+import com.inventorymanagement.support.MongoIntegrationTest;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Thousands of idle change streams over real connections on the servlet stack, with platform
+// send threads: what each costs in heap, and whether one change still reaches all of them.
+// The clients are bare sockets that send the request and read nothing until the change, so
+// almost all of the measured heap is the server's.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "app.events.max-streams-per-user=100000")
+@Import(StreamChangesLoadTest.SignedIn.class)
+class StreamChangesLoadTest extends MongoIntegrationTest {
+
+    private static final int STREAMS = 2000;
+
+    // Measured at about 115 KB, nearly all of it Tomcat's per-connection request and response
+    // buffers; the bound catches a stream starting to hold a thread or its own copy of the backlog
+    private static final long MAX_BYTES_PER_STREAM = 256 * 1024;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private InventoryEventStream eventStream;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final List<SocketChannel> clients = new ArrayList<>();
+
+    // The JWT filter only resolves the user id; real requests also need the authentication
+    // that MockMvc tests add with user()
+    @TestConfiguration
+    static class SignedIn {
+        @Bean
+        FilterRegistrationBean<Filter> signedInFilter(JwtTokenProvider tokenProvider) {
+            FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+                String token = ((HttpServletRequest) request).getHeader("authtoken");
+                String userId = token == null ? null : tokenProvider.resolveUserId(token);
+                if (userId != null) {
+                    request.setAttribute(RequestAttributeSecurityContextRepository.DEFAULT_REQUEST_ATTR_NAME,
+                            new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(userId, null, List.of())));
+                }
+                chain.doFilter(request, response);
+            });
+            registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+            return registration;
+        }
+    }
+
+    // The server only notices a client left when a write fails; heartbeats until every stream
+    // is closed, so later tests do not measure the cleanup
+    @AfterEach
+    void disconnect() throws Exception {
+        for (SocketChannel client : clients) {
+            client.close();
+        }
+        Map<String, Set<?>> subscriptions = subscriptions();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (!subscriptions.isEmpty() && System.nanoTime() < deadline) {
+            ReflectionTestUtils.invokeMethod(eventStream, "heartbeat");
+            Thread.sleep(200);
+        }
+        assertTrue(subscriptions.isEmpty(), "Streams still open after their clients left");
+    }
+
+    @Test
+    void idleStreamsAreCheapAndAllGetTheNextChange() throws Exception {
+        User user = new User("Stream Tester", new ObjectId() + "@example.com", "0000000000", "x");
+        String userId = userRepository.save(user).getId();
+        byte[] request = ("GET /api/item/streamChanges HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n"
+                + "authtoken: " + tokenProvider.generateToken(userId) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        // One stream first, so classes and pools that every stream shares are not counted
+        open(request);
+        awaitStreams(userId, 1);
+        long before = usedHeap();
+
+        for (int i = 1; i < STREAMS; i++) {
+            open(request);
+        }
+        awaitStreams(userId, STREAMS);
+        long perStream = (usedHeap() - before) / (STREAMS - 1);
+
+        long start = System.nanoTime();
+        eventPublisher.publishEvent(InventoryChangedEvent.deleted(userId, List.of("load-item")));
+        int received = awaitEvent("event:deleted");
+        long fanOutMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.printf("%d idle streams: %d bytes of heap each, one change reached all in %d ms%n",
+                STREAMS, perStream, fanOutMs);
+        assertEquals(STREAMS, received);
+        assertTrue(perStream < MAX_BYTES_PER_STREAM, perStream + " bytes per stream");
+    }
+
+    private void open(byte[] request) throws Exception {
+        SocketChannel client = SocketChannel.open(new InetSocketAddress("localhost", port));
+        clients.add(client);
+        client.write(ByteBuffer.wrap(request));
+    }
+
+    private void awaitStreams(String userId, int count) throws InterruptedException {
+        Map<String, Set<?>> subscriptions = subscriptions();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (subscriptions.getOrDefault(userId, Set.of()).size() < count) {
+            assertTrue(System.nanoTime() < deadline, "Only " + subscriptions.getOrDefault(userId, Set.of()).size()
+                    + " of " + count + " streams opened");
+            Thread.sleep(20);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Set<?>> subscriptions() {
+        return (Map<String, Set<?>>) ReflectionTestUtils.getField(eventStream, "subscriptions");
+    }
+
+    // Reads every connection until it has carried the event, and counts the ones that did
+    private int awaitEvent(String marker) throws Exception {
+        Set<SocketChannel> done = new HashSet<>();
+        Map<SocketChannel, StringBuilder> received = new HashMap<>();
+        try (Selector selector = Selector.open()) {
+            for (SocketChannel client : clients) {
+                client.configureBlocking(false);
+                client.register(selector, SelectionKey.OP_READ);
+                received.put(client, new StringBuilder());
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(16 * 1024);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (done.size() < clients.size() && System.nanoTime() < deadline) {
+                selector.select(100);
+                for (SelectionKey key : selector.selectedKeys()) {
+                    SocketChannel client = (SocketChannel) key.channel();
+                    buffer.clear();
+                    if (client.read(buffer) < 0) {
+                        key.cancel();
+                        continue;
+                    }
+                    StringBuilder text = received.get(client);
+                    text.append(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+                    if (text.indexOf(marker) >= 0) {
+                        done.add(client);
+                        key.cancel();
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        }
+        return done.size();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
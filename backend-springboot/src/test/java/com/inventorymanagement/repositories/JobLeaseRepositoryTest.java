@@ -0,0 +1,32 @@
+package com.inventorymanagement.repositories;
+
+import com.inventorymanagement.support.MongoIntegrationTest;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobLeaseRepositoryTest extends MongoIntegrationTest {
+
+    @Autowired
+    private JobLeaseRepository jobLeaseRepository;
+
+    @Test
+    void onlyTheHolderRenewsUntilTheLeaseExpires() {
+        String job = "job-" + new ObjectId();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+        assertTrue(jobLeaseRepository.tryAcquire(job, "a", now, now.plusMinutes(10)));
+        assertFalse(jobLeaseRepository.tryAcquire(job, "b", now, now.plusMinutes(10)));
+        assertTrue(jobLeaseRepository.tryAcquire(job, "a", now.plusMinutes(1), now.plusMinutes(11)));
+        assertFalse(jobLeaseRepository.tryAcquire(job, "b", now.plusMinutes(10), now.plusMinutes(20)));
+
+        assertTrue(jobLeaseRepository.tryAcquire(job, "b", now.plusMinutes(12), now.plusMinutes(22)));
+        assertFalse(jobLeaseRepository.tryAcquire(job, "a", now.plusMinutes(13), now.plusMinutes(23)));
+    }
+}
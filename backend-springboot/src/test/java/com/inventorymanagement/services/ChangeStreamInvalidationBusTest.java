@@ -0,0 +1,180 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.InventoryManagementApplication;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.support.TestMongoBackend;
+import de.bwaldvogel.mongo.MongoServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two instances of the app on one Mongo, each following the other's writes through its change
+// stream. The backend's change streams can be taken down and their history dropped, to check that
+// a broken stream resumes after the last change it saw, or clears the caches when it cannot.
+class ChangeStreamInvalidationBusTest {
+
+    private static final long TIMEOUT_MS = 10000;
+
+    private static final TestMongoBackend BACKEND = new TestMongoBackend().withChangeStreams();
+
+    private static MongoServer mongo;
+    private static ConfigurableApplicationContext a;
+    private static ConfigurableApplicationContext b;
+
+    @BeforeAll
+    static void startInstances() {
+        mongo = new MongoServer(BACKEND);
+        String uri = mongo.bindAndGetConnectionString() + "/inventory_cluster";
+        a = start(uri);
+        b = start(uri);
+        await(() -> a.getBean(ChangeStreamInvalidationBus.class).isConnected()
+                && b.getBean(ChangeStreamInvalidationBus.class).isConnected(), "streams open");
+    }
+
+    @AfterAll
+    static void stopInstances() {
+        a.close();
+        b.close();
+        mongo.shutdownNow();
+    }
+
+    @Test
+    void writesOnOneInstanceReachTheOthersCache() throws Exception {
+        String userId = createUser();
+        ItemCache cache = b.getBean(ItemCache.class);
+        assertTrue(cache.getItems(userId).isEmpty());
+
+        String itemId = a.getBean(ItemService.class)
+                .addItem(userId, "Widget", "d", 10, new BigDecimal("1.50"), 0, "c").getId();
+        await(() -> cache.getItemIfCached(userId, itemId) != null, "insert");
+
+        a.getBean(ItemService.class).updateItem(userId, itemId, "Gadget", null, null, null, null, null);
+        await(() -> "Gadget".equals(cache.getItemIfCached(userId, itemId).getName()), "update");
+
+        a.getBean(LogService.class).decreaseQuantity(userId, itemId, 3, "sale");
+        await(() -> cache.getItemIfCached(userId, itemId).getQuantity() == 7, "stock change");
+
+        // Routed to the owner by the pre-image
+        a.getBean(ItemService.class).deleteItem(userId, itemId);
+        await(() -> cache.getItemIfCached(userId, itemId) == null, "delete");
+        assertNotNull(cache.getItemsIfCached(userId));
+    }
+
+    @Test
+    void ownWritesAreNotAppliedTwice() throws Exception {
+        String userId = createUser();
+        a.getBean(ItemCache.class).getItems(userId);
+        b.getBean(ItemCache.class).getItems(userId);
+        double appliedOnA = invalidations(a);
+        double appliedOnB = invalidations(b);
+
+        String fromA = addItem(a, userId, "From A");
+        String fromB = addItem(b, userId, "From B");
+        String lastFromA = addItem(a, userId, "Last from A");
+        String lastFromB = addItem(b, userId, "Last from B");
+
+        // Each stream is ordered, so an instance that has the other's last item has been through
+        // its own two; the counter moves just after the cache, hence the wait on both
+        await(() -> a.getBean(ItemCache.class).getItemIfCached(userId, lastFromB) != null
+                && invalidations(a) >= appliedOnA + 2, "B's items on A");
+        await(() -> b.getBean(ItemCache.class).getItemIfCached(userId, lastFromA) != null
+                && invalidations(b) >= appliedOnB + 2, "A's items on B");
+        assertEquals(appliedOnA + 2, invalidations(a));
+        assertEquals(appliedOnB + 2, invalidations(b));
+        assertNotNull(a.getBean(ItemCache.class).getItemIfCached(userId, fromB));
+        assertNotNull(b.getBean(ItemCache.class).getItemIfCached(userId, fromA));
+    }
+
+    @Test
+    void resumesAfterTheLastChangeItSaw() throws Exception {
+        String userId = createUser();
+        String itemId = a.getBean(ItemService.class)
+                .addItem(userId, "Before", "d", 1, BigDecimal.ONE, 0, "c").getId();
+        ItemCache cache = b.getBean(ItemCache.class);
+        assertEquals("Before", cache.getItems(userId).get(0).getName());
+
+        streamsDown();
+        a.getBean(ItemService.class).updateItem(userId, itemId, "While down", null, null, null, null, null);
+        Thread.sleep(300);
+        assertEquals("Before", cache.getItemIfCached(userId, itemId).getName());
+
+        BACKEND.setChangeStreamsDown(false);
+        await(() -> "While down".equals(cache.getItemIfCached(userId, itemId).getName()), "missed update");
+    }
+
+    @Test
+    void clearsTheCachesWhenItCannotResume() throws Exception {
+        String userId = createUser();
+        String itemId = a.getBean(ItemService.class)
+                .addItem(userId, "Before", "d", 1, BigDecimal.ONE, 0, "c").getId();
+        ItemCache cache = b.getBean(ItemCache.class);
+        cache.getItems(userId);
+
+        streamsDown();
+        a.getBean(ItemService.class).updateItem(userId, itemId, "Lost", null, null, null, null, null);
+        BACKEND.forgetChanges();
+        BACKEND.setChangeStreamsDown(false);
+
+        await(() -> cache.getItemsIfCached(userId) == null, "caches cleared");
+        Item reloaded = cache.getItems(userId).get(0);
+        assertEquals("Lost", reloaded.getName());
+        await(() -> b.getBean(ChangeStreamInvalidationBus.class).isConnected(), "stream reopened");
+    }
+
+    private static void streamsDown() {
+        BACKEND.setChangeStreamsDown(true);
+        await(() -> !a.getBean(ChangeStreamInvalidationBus.class).isConnected()
+                && !b.getBean(ChangeStreamInvalidationBus.class).isConnected(), "streams down");
+    }
+
+    private static String addItem(ConfigurableApplicationContext context, String userId, String name) throws Exception {
+        return context.getBean(ItemService.class).addItem(userId, name, "d", 1, BigDecimal.ONE, 0, "c").getId();
+    }
+
+    private static String createUser() {
+        User user = new User("Cluster Tester", new ObjectId() + "@example.com", "0000000000", "x");
+        return a.getBean(UserRepository.class).save(user).getId();
+    }
+
+    private static double invalidations(ConfigurableApplicationContext context) {
+        return context.getBean(MeterRegistry.class).counter("cluster.invalidations", "source", "items").count();
+    }
+
+    private static ConfigurableApplicationContext start(String uri) {
+        return new SpringApplicationBuilder(InventoryManagementApplication.class)
+                .profiles("test")
+                .run("--spring.data.mongodb.uri=" + uri,
+                        "--server.port=0",
+                        "--management.server.port=-1",
+                        "--app.cluster.invalidation=change-stream",
+                        "--app.cluster.retry-ms=100");
+    }
+
+    private static void await(BooleanSupplier condition, String what) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Timed out waiting for " + what);
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
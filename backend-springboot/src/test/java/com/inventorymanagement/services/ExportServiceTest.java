@@ -0,0 +1,142 @@
+package com.inventorymanagement.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.LogBucket;
+import com.inventorymanagement.repositories.ItemRepository;
+import com.inventorymanagement.support.MongoIntegrationTest;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// An export holding its rows would have every row written so far still reachable. RowCounter
+// sees each row as it is serialized and, every SAMPLE_EVERY_ROWS rows, forces a full GC and counts
+// how many of the rows it has seen are still alive. That count does not depend on GC timing.
+class ExportServiceTest extends MongoIntegrationTest {
+
+    private static final int ITEMS = 25_000;
+    private static final int BUCKETS = 200;
+    private static final int MOVES_PER_BUCKET = 500;
+    private static final int SAMPLE_EVERY_ROWS = 5000;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final String userId = new ObjectId().toHexString();
+    private RowCounter rows;
+
+    @BeforeEach
+    void countRows() {
+        rows = new RowCounter(objectMapper);
+        ReflectionTestUtils.setField(exportService, "objectMapper", rows);
+    }
+
+    @AfterEach
+    void restore() {
+        ReflectionTestUtils.setField(exportService, "objectMapper", objectMapper);
+        Query mine = new Query(Criteria.where("userId").is(userId));
+        mongoTemplate.remove(mine, Item.class);
+        mongoTemplate.remove(mine, LogBucket.class);
+    }
+
+    @Test
+    void itemRowsAreReleasedAsTheyAreWritten() throws Exception {
+        String description = "x".repeat(400);
+        List<Item> batch = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            batch.add(new Item(userId, "Item " + i, description, i, new BigDecimal("9.99"), 0, "c"));
+            if (batch.size() == 5000) {
+                itemRepository.insertUnordered(batch);
+                batch = new ArrayList<>();
+            }
+        }
+
+        exportService.exportInventory(userId, OutputStream.nullOutputStream(), false);
+
+        assertEquals(ITEMS, rows.written);
+        // Only the row being written, and perhaps the one before it, should be reachable
+        assertTrue(rows.maxAlive < 10, rows.maxAlive + " of " + ITEMS + " item rows alive at once");
+    }
+
+    @Test
+    void logRowsAreReleasedBucketByBucket() throws Exception {
+        LocalDate day = LocalDate.of(2020, 1, 1);
+        for (int b = 0; b < BUCKETS; b++) {
+            List<LogBucket.Move> moves = new ArrayList<>();
+            for (int m = 0; m < MOVES_PER_BUCKET; m++) {
+                moves.add(new LogBucket.Move(new ObjectId().toHexString(), "Decrease Quantity", 1,
+                        "Sold at the counter", day.plusDays(b).atStartOfDay().plusSeconds(m)));
+            }
+            mongoTemplate.insert(new LogBucket(null, userId, "item-" + b % 10, day.plusDays(b),
+                    MOVES_PER_BUCKET, moves));
+        }
+
+        exportService.exportInventory(userId, OutputStream.nullOutputStream(), false);
+
+        assertEquals(BUCKETS * MOVES_PER_BUCKET, rows.written);
+        // A bucket's moves become rows together, so at most one bucket's worth should be reachable
+        assertTrue(rows.maxAlive <= MOVES_PER_BUCKET + 10,
+                rows.maxAlive + " of " + rows.written + " log rows alive at once");
+    }
+
+    // The export's mapper, recording a weak reference to every value it serializes at the top level
+    private static final class RowCounter extends ObjectMapper {
+        private final List<WeakReference<Object>> seen = new ArrayList<>();
+        private int written;
+        private int maxAlive;
+
+        RowCounter(ObjectMapper mapper) {
+            super(mapper);
+        }
+
+        @Override
+        public void writeValue(JsonGenerator generator, Object value) throws IOException {
+            seen.add(new WeakReference<>(value));
+            written++;
+            if (written % SAMPLE_EVERY_ROWS == 0) {
+                maxAlive = Math.max(maxAlive, alive());
+            }
+            super.writeValue(generator, value);
+        }
+
+        // A full GC clears every weak reference whose row is no longer reachable
+        private int alive() {
+            System.gc();
+            int alive = 0;
+            for (WeakReference<Object> row : seen) {
+                if (row.get() != null) {
+                    alive++;
+                }
+            }
+            return alive;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.dto.InventoryDelta;
+import com.inventorymanagement.events.InventoryChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The stream on its own, with sinks standing in for clients, on platform send threads
+class InventoryEventStreamTest {
+
+    private static final int SEND_THREADS = 2;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    private InventoryEventStream eventStream;
+
+    @BeforeEach
+    void createStream() {
+        eventStream = new InventoryEventStream();
+        ReflectionTestUtils.setField(eventStream, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(eventStream, "bufferSize", 256);
+        ReflectionTestUtils.setField(eventStream, "maxStreamsPerUser", 100);
+        ReflectionTestUtils.setField(eventStream, "timeoutMs", 60000L);
+        ReflectionTestUtils.setField(eventStream, "heartbeatMs", 3600000L);
+        ReflectionTestUtils.setField(eventStream, "writeTimeoutMs", 200L);
+        ReflectionTestUtils.setField(eventStream, "sendThreads", SEND_THREADS);
+        ReflectionTestUtils.setField(eventStream, "virtualThreads", false);
+    }
+
+    @AfterEach
+    void shutdown() {
+        unblock.countDown();
+        eventStream.shutdown();
+    }
+
+    @Test
+    void clientsThatStopReadingDoNotHoldUpTheOthers() throws Exception {
+        eventStream.init();
+
+        // Twice as many stuck clients as send threads; each blocks in its first write until released
+        List<RecordingSink> stuck = new ArrayList<>();
+        for (int i = 0; i < SEND_THREADS * 2; i++) {
+            RecordingSink sink = new RecordingSink(unblock);
+            stuck.add(sink);
+            eventStream.subscribe("stuck-user", sink);
+        }
+        List<RecordingSink> reading = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            RecordingSink sink = new RecordingSink(null);
+            reading.add(sink);
+            eventStream.subscribe("reading-user", sink);
+        }
+
+        eventStream.onInventoryChanged(InventoryChangedEvent.deleted("stuck-user", List.of("a")));
+        eventStream.onInventoryChanged(InventoryChangedEvent.deleted("reading-user", List.of("b")));
+
+        await(() -> reading.stream().allMatch(sink -> sink.deltas.get() == 1));
+        await(() -> meterRegistry.counter("inventory.events.evictions").count() == stuck.size());
+        assertEquals(stuck.size(), meterRegistry.get("inventory.events.stalled").gauge().value());
+        assertTrue(stuck.stream().noneMatch(sink -> sink.closed.get()));
+
+        // Once the container fails the writes the threads return and the sinks are closed
+        unblock.countDown();
+        await(() -> stuck.stream().allMatch(sink -> sink.closed.get()));
+        await(() -> meterRegistry.get("inventory.events.stalled").gauge().value() == 0);
+        assertTrue(reading.stream().noneMatch(sink -> sink.closed.get()));
+    }
+
+    @Test
+    void heartbeatsRunOnTheStreamsOwnTimer() throws Exception {
+        ReflectionTestUtils.setField(eventStream, "heartbeatMs", 20L);
+        eventStream.init();
+
+        RecordingSink sink = new RecordingSink(null);
+        eventStream.subscribe("user", sink);
+
+        await(() -> sink.heartbeats.get() >= 3);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    private static class RecordingSink implements InventoryEventStream.Sink {
+        private final CountDownLatch blockUntil;
+        private final AtomicInteger deltas = new AtomicInteger();
+        private final AtomicInteger heartbeats = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        RecordingSink(CountDownLatch blockUntil) {
+            this.blockUntil = blockUntil;
+        }
+
+        @Override
+        public void send(List<InventoryDelta> batch) throws Exception {
+            block();
+            deltas.addAndGet(batch.size());
+        }
+
+        @Override
+        public void heartbeat() throws Exception {
+            block();
+            heartbeats.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+
+        private void block() throws Exception {
+            if (blockUntil != null && !blockUntil.await(30, TimeUnit.SECONDS)) {
+                throw new Exception("Write timed out");
+            }
+        }
+    }
+}
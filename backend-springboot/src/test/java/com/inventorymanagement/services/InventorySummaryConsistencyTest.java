@@ -0,0 +1,258 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.dto.BulkQuantityRequest;
+import com.inventorymanagement.dto.BulkQuantityResult;
+import com.inventorymanagement.models.InventorySummary;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.InventorySummaryRepository;
+import com.inventorymanagement.repositories.ItemRepository;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.support.MongoIntegrationTest;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventorySummaryConsistencyTest extends MongoIntegrationTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private InventorySummaryService summaryService;
+
+    @Autowired
+    private InventorySummaryRepository summaryRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private LogService logService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private String userId;
+
+    @BeforeEach
+    void createUser() {
+        User user = new User("Summary Tester", new ObjectId() + "@example.com", "0000000000", "x");
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void incrementalTotalsMatchAFullRecompute() throws Exception {
+        List<String> itemIds = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            itemIds.add(itemService.addItem(userId, "Item " + i, "d", 500, new BigDecimal("1.25"), 0, "c").getId());
+        }
+        summaryService.getSummary(userId);
+
+        List<Callable<Void>> calls = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            calls.add(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                String itemId = itemIds.get(random.nextInt(itemIds.size()));
+                try {
+                    switch (random.nextInt(10)) {
+                        case 0 -> itemService.updateItem(userId, itemId, null, null, null,
+                                new BigDecimal(random.nextInt(1, 500)).movePointLeft(2), null, null);
+                        case 1 -> itemService.updateItem(userId, itemId, null, null, random.nextInt(0, 300),
+                                null, null, null);
+                        case 2 -> itemService.addItem(userId, "Extra", "d", random.nextInt(0, 50),
+                                new BigDecimal("0.75"), 0, "c");
+                        case 3 -> {
+                            if (random.nextInt(20) == 0) {
+                                itemService.deleteItem(userId, itemId);
+                            }
+                        }
+                        case 4, 5, 6 -> logService.decreaseQuantity(userId, itemId, random.nextInt(1, 20), "sale");
+                        default -> logService.increaseQuantity(userId, itemId, random.nextInt(1, 20), "restock");
+                    }
+                } catch (OptimisticLockingFailureException e) {
+                    // Retries ran out; nothing was written
+                } catch (Exception e) {
+                    // Only a deleted item may fail
+                    if (!e.getMessage().contains("not") || !e.getMessage().toLowerCase().contains("item")) {
+                        throw e;
+                    }
+                }
+                return null;
+            });
+        }
+        runAll(calls);
+
+        assertSameTotals(recompute(), summaryRepository.findById(userId).orElseThrow());
+    }
+
+    @Test
+    void bulkAdjustmentsAmongConcurrentSalesKeepTheTotalsExact() throws Exception {
+        List<String> itemIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            itemIds.add(itemService.addItem(userId, "Item " + i, "d", 50, new BigDecimal("1.25"), 0, "c").getId());
+        }
+        summaryService.getSummary(userId);
+
+        // Stock stays low, so which bulk lines hit the floor depends on the sales racing them
+        List<Callable<Void>> calls = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            calls.add(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                String itemId = itemIds.get(random.nextInt(itemIds.size()));
+                try {
+                    switch (random.nextInt(3)) {
+                        case 0 -> logService.decreaseQuantity(userId, itemId, random.nextInt(1, 20), "sale");
+                        case 1 -> logService.increaseQuantity(userId, itemId, random.nextInt(1, 20), "restock");
+                        default -> logService.adjustQuantities(userId, List.of(
+                                new BulkQuantityRequest.Entry(itemId, -random.nextInt(1, 30), "sale"),
+                                new BulkQuantityRequest.Entry(itemIds.get(random.nextInt(itemIds.size())),
+                                        random.nextInt(1, 20), "restock")));
+                    }
+                } catch (OptimisticLockingFailureException e) {
+                    // Retries ran out; nothing was written
+                }
+                return null;
+            });
+        }
+        runAll(calls);
+
+        assertSameTotals(recompute(), summaryService.getSummary(userId));
+    }
+
+    @Test
+    void aBulkAdjustmentWithoutConcurrentWritesAppliesItsExactDelta() throws Exception {
+        String itemId = itemService.addItem(userId, "Widget", "d", 5, new BigDecimal("2.00"), 0, "c").getId();
+        summaryService.getSummary(userId);
+
+        logService.adjustQuantities(userId, List.of(
+                new BulkQuantityRequest.Entry(itemId, -8, "sale"),
+                new BulkQuantityRequest.Entry(itemId, 3, "restock")));
+
+        InventorySummary stored = summaryRepository.findById(userId).orElseThrow();
+        assertNull(stored.getStale());
+        assertEquals(3L, stored.getTotalUnits());
+        assertSameTotals(recompute(), stored);
+    }
+
+    @Test
+    void bulkLinesThatWouldOverflowAnItemsTotalFailOnTheirOwn() throws Exception {
+        String itemId = itemService.addItem(userId, "Widget", "d", 0, new BigDecimal("1.00"), 0, "c").getId();
+        summaryService.getSummary(userId);
+
+        List<BulkQuantityResult> results = logService.adjustQuantities(userId, List.of(
+                new BulkQuantityRequest.Entry(itemId, Integer.MAX_VALUE, "restock"),
+                new BulkQuantityRequest.Entry(itemId, Integer.MAX_VALUE, "restock"),
+                new BulkQuantityRequest.Entry(itemId, -5, "sale")));
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(2).isSuccess());
+        assertEquals(Integer.MAX_VALUE - 5, itemRepository.findById(itemId).orElseThrow().getQuantity());
+        assertSameTotals(recompute(), summaryService.getSummary(userId));
+    }
+
+    @Test
+    void rebuildDoesNotOverwriteADeltaThatLandedWhileItRan() throws Exception {
+        Item item = itemService.addItem(userId, "Widget", "d", 10, new BigDecimal("2.00"), 0, "c");
+        InventorySummary first = summaryService.getSummary(userId);
+
+        // The steps of a rebuild, with a write landing between the read and the swap
+        Long version = summaryRepository.findById(userId).orElseThrow().getVersion();
+        InventorySummary computed = recompute();
+        logService.increaseQuantity(userId, item.getId(), 5, "restock");
+
+        assertFalse(summaryRepository.replaceIfUnchanged(computed, version, LocalDateTime.now()));
+        InventorySummary stored = summaryRepository.findById(userId).orElseThrow();
+        assertEquals(15L, stored.getTotalUnits());
+        assertNotEquals(first.getVersion(), stored.getVersion());
+
+        summaryService.rebuild(userId);
+        assertSameTotals(recompute(), summaryRepository.findById(userId).orElseThrow());
+    }
+
+    @Test
+    void changesBeforeTheFirstReadMarkTheSummaryStale() throws Exception {
+        itemService.addItem(userId, "Widget", "d", 4, new BigDecimal("3.00"), 0, "c");
+        itemService.addItem(userId, "Gadget", "d", 6, new BigDecimal("1.50"), 2, "c");
+
+        assertTrue(summaryRepository.findById(userId).orElseThrow().getStale());
+
+        InventorySummary summary = summaryService.getSummary(userId);
+        assertEquals(2L, summary.getTotalProducts());
+        assertEquals(10L, summary.getTotalUnits());
+        assertEquals(0, new BigDecimal("21.00").compareTo(summary.getStockValue()));
+        assertEquals(0, new BigDecimal("3.00").compareTo(summary.getSalesValue()));
+        assertNull(summaryRepository.findById(userId).orElseThrow().getStale());
+    }
+
+    @Test
+    void stockChangesOnAnItemWithoutAPriceKeepTheTotalsInStep() throws Exception {
+        itemService.addItem(userId, "Widget", "d", 4, new BigDecimal("3.00"), 0, "c");
+        String unpriced = itemRepository.save(new Item(userId, "Unpriced", "d", 10, null, 0, "c")).getId();
+        summaryService.getSummary(userId);
+
+        logService.increaseQuantity(userId, unpriced, 5, "restock");
+        logService.decreaseQuantity(userId, unpriced, 3, "sale");
+
+        InventorySummary stored = summaryRepository.findById(userId).orElseThrow();
+        assertEquals(16L, stored.getTotalUnits());
+        assertSameTotals(recompute(), stored);
+    }
+
+    @Test
+    void rebuildAllCorrectsDrift() throws Exception {
+        itemService.addItem(userId, "Widget", "d", 7, new BigDecimal("2.00"), 1, "c");
+        summaryService.getSummary(userId);
+        summaryRepository.applyDelta(userId, 3, 100, new BigDecimal("9.99"), BigDecimal.ZERO);
+
+        summaryService.rebuildAll();
+
+        assertSameTotals(recompute(), summaryRepository.findById(userId).orElseThrow());
+    }
+
+    private InventorySummary recompute() {
+        List<InventorySummary> totals = summaryRepository.computeFromItems(userId);
+        return totals.isEmpty() ? InventorySummary.empty(userId) : totals.get(0);
+    }
+
+    private void assertSameTotals(InventorySummary expected, InventorySummary actual) {
+        assertEquals(expected.getTotalProducts(), actual.getTotalProducts());
+        assertEquals(expected.getTotalUnits(), actual.getTotalUnits());
+        assertEquals(0, expected.getStockValue().compareTo(actual.getStockValue()),
+                expected.getStockValue() + " != " + actual.getStockValue());
+        assertEquals(0, expected.getSalesValue().compareTo(actual.getSalesValue()),
+                expected.getSalesValue() + " != " + actual.getSalesValue());
+    }
+
+    private void runAll(List<Callable<Void>> calls) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Future<Void> future : executor.invokeAll(calls)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.dto.BulkQuantityRequest;
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.ItemRepository;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.support.MongoIntegrationTest;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// Every kind of write racing cache loads, reads and invalidations on one user's items. After each
+// round the cached set must be exactly what Mongo holds, versions included: a write applied out of
+// order, or lost to a load that read Mongo before it, would leave the cache behind for good.
+class ItemCacheConsistencyTest extends MongoIntegrationTest {
+
+    private static final int ROUNDS = 30;
+    private static final int ITEMS = 50;
+    private static final int WRITERS = 5;
+    private static final int WRITES_PER_THREAD = 40;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private LogService logService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void cacheMatchesMongoAfterConcurrentWriters() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            User user = new User("Cache Tester", new ObjectId() + "@example.com", "0000000000", "x");
+            String userId = userRepository.save(user).getId();
+            List<String> itemIds = new ArrayList<>();
+            for (int i = 0; i < ITEMS; i++) {
+                itemIds.add(itemService.addItem(userId, "n", "d", 1000, BigDecimal.ONE, 0, "c").getId());
+            }
+            itemCache.getItems(userId);
+
+            runAll(writersAndReaders(userId, itemIds));
+
+            List<Item> cached = itemCache.getItemsIfCached(userId);
+            assertNotNull(cached, "round " + round);
+            assertEquals(snapshot(itemRepository.findByUserId(userId)), snapshot(cached), "round " + round);
+        }
+    }
+
+    // The loads and bulk adjustments stop halfway through the other writes, so the second half only
+    // reaches the cache through events; the reload that follows a bulk adjustment comes first
+    private List<Callable<Void>> writersAndReaders(String userId, List<String> itemIds) {
+        AtomicInteger writes = new AtomicInteger();
+        AtomicBoolean bulkRunning = new AtomicBoolean(true);
+        int halfway = WRITERS * WRITES_PER_THREAD / 2;
+
+        List<Callable<Void>> calls = new ArrayList<>();
+        calls.add(repeat(writes, () -> itemService.updateItem(userId, pick(itemIds),
+                "n-" + ThreadLocalRandom.current().nextInt(), null, null, null, null, null)));
+        calls.add(repeat(writes, () -> itemService.updateItem(userId, pick(itemIds), null, null, null,
+                new BigDecimal(ThreadLocalRandom.current().nextInt(1, 100)), null, null)));
+        calls.add(repeat(writes, () -> logService.decreaseQuantity(userId, pick(itemIds), 1, "sale")));
+        calls.add(repeat(writes, () -> logService.increaseQuantity(userId, pick(itemIds), 2, "restock")));
+        calls.add(repeat(writes, () -> {
+            String added = itemService.addItem(userId, "temporary", "d", 1, BigDecimal.ONE, 0, "c").getId();
+            itemService.deleteItem(userId, added);
+        }));
+        calls.add(() -> {
+            while (writes.get() < halfway) {
+                logService.adjustQuantities(userId, List.of(
+                        new BulkQuantityRequest.Entry(pick(itemIds), -1, "sale"),
+                        new BulkQuantityRequest.Entry(pick(itemIds), 1, "return")));
+            }
+            bulkRunning.set(false);
+            return null;
+        });
+        calls.add(() -> {
+            while (writes.get() < halfway || bulkRunning.get()) {
+                itemCache.invalidateAll();
+                itemCache.getItems(userId);
+            }
+            itemCache.getItems(userId);
+            return null;
+        });
+        calls.add(() -> {
+            while (writes.get() < WRITERS * WRITES_PER_THREAD) {
+                itemService.getItem(userId, pick(itemIds));
+            }
+            return null;
+        });
+        return calls;
+    }
+
+    // Comparable views of the fields writers change, by item id
+    private static Map<String, String> snapshot(List<Item> items) {
+        Map<String, String> byId = new TreeMap<>();
+        for (Item item : items) {
+            byId.put(item.getId(), item.getName() + "|" + item.getPrice().stripTrailingZeros().toPlainString()
+                    + "|" + item.getQuantity() + "|" + item.getSold() + "|" + item.getVersion());
+        }
+        return byId;
+    }
+
+    private static Callable<Void> repeat(AtomicInteger writes, Action action) {
+        return () -> {
+            for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                try {
+                    action.run();
+                } catch (OptimisticLockingFailureException e) {
+                    // Refused after the retries; nothing was written
+                }
+                writes.incrementAndGet();
+            }
+            return null;
+        };
+    }
+
+    private static String pick(List<String> itemIds) {
+        return itemIds.get(ThreadLocalRandom.current().nextInt(itemIds.size()));
+    }
+
+    private static void runAll(List<Callable<Void>> calls) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(calls.size());
+        try {
+            for (Future<Void> future : executor.invokeAll(calls)) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+}
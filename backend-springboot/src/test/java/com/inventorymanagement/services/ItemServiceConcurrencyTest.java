@@ -0,0 +1,166 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.ItemRepository;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.support.MongoIntegrationTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Whole-item edits racing each other and the atomic stock paths on one item, with the default
+// retry settings. Each editor owns one field and writes increasing values in turn, so a save
+// from a stale read would show up as a field going back; the stock changes must all survive too.
+class ItemServiceConcurrencyTest extends MongoIntegrationTest {
+
+    private static final int EDITS_PER_FIELD = 100;
+    private static final int RESTOCKS = 300;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private LogService logService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String userId;
+
+    @BeforeEach
+    void createUser() {
+        User user = new User("Edit Tester", new ObjectId() + "@example.com", "0000000000", "x");
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void concurrentEditsAndStockChangesAreNeverLost() throws Exception {
+        Item item = itemService.addItem(userId, "n-0", "d-0", 0, new BigDecimal("0.00"), 0, "c-0");
+        String itemId = item.getId();
+        double conflictsBefore = writes("conflict");
+        double exhaustedBefore = writes("exhausted");
+
+        // Per field, the last value whose update returned; failures beyond the retries are 409s, not losses
+        int[] lastName = new int[1];
+        int[] lastDescription = new int[1];
+        int[] lastPrice = new int[1];
+        int[] lastCategory = new int[1];
+        AtomicInteger committed = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        List<Callable<Void>> calls = new ArrayList<>();
+        calls.add(editor(committed, refused, lastName,
+                i -> itemService.updateItem(userId, itemId, "n-" + i, null, null, null, null, null)));
+        calls.add(editor(committed, refused, lastDescription,
+                i -> itemService.updateItem(userId, itemId, null, "d-" + i, null, null, null, null)));
+        calls.add(editor(committed, refused, lastPrice,
+                i -> itemService.updateItem(userId, itemId, null, null, null, new BigDecimal(i + ".00"), null, null)));
+        calls.add(editor(committed, refused, lastCategory,
+                i -> itemService.updateItem(userId, itemId, null, null, null, null, null, "c-" + i)));
+        for (int t = 0; t < 4; t++) {
+            calls.add(() -> {
+                for (int i = 0; i < RESTOCKS / 4; i++) {
+                    logService.increaseQuantity(userId, itemId, 1, "restock");
+                }
+                return null;
+            });
+        }
+
+        long start = System.nanoTime();
+        runAll(calls, calls.size());
+        double contendedSeconds = (System.nanoTime() - start) / 1e9;
+
+        Item stored = itemRepository.findById(itemId).orElseThrow();
+        assertEquals("n-" + lastName[0], stored.getName());
+        assertEquals("d-" + lastDescription[0], stored.getDescription());
+        assertEquals(0, new BigDecimal(lastPrice[0] + ".00").compareTo(stored.getPrice()));
+        assertEquals("c-" + lastCategory[0], stored.getCategory());
+        assertEquals(RESTOCKS, stored.getQuantity());
+        assertEquals(RESTOCKS + committed.get(), stored.getVersion());
+        assertEquals(refused.get(), (int) (writes("exhausted") - exhaustedBefore));
+
+        // The same number of edits, each editor on its own item: no conflicts to retry
+        List<String> ownItems = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            ownItems.add(itemService.addItem(userId, "own-" + t, "d", 0, BigDecimal.ONE, 0, "c").getId());
+        }
+        List<Callable<Void>> uncontended = new ArrayList<>();
+        for (String ownId : ownItems) {
+            uncontended.add(() -> {
+                for (int i = 1; i <= EDITS_PER_FIELD; i++) {
+                    itemService.updateItem(userId, ownId, "n-" + i, null, null, null, null, null);
+                }
+                return null;
+            });
+        }
+        start = System.nanoTime();
+        runAll(uncontended, uncontended.size());
+        double uncontendedSeconds = (System.nanoTime() - start) / 1e9;
+
+        int edits = 4 * EDITS_PER_FIELD;
+        double conflicts = writes("conflict") - conflictsBefore;
+        System.out.printf("%d edits and %d restocks on one item: %.0f edits/s, %.2f conflicts per committed edit, "
+                        + "%d refused after %s attempts; same edits on separate items: %.0f edits/s%n",
+                edits, RESTOCKS, committed.get() / contendedSeconds, conflicts / committed.get(), refused.get(),
+                ReflectionTestUtils.getField(itemService, "maxWriteAttempts"), edits / uncontendedSeconds);
+        assertTrue(conflicts > 0, "The editors never collided, so nothing was tested");
+    }
+
+    private Callable<Void> editor(AtomicInteger committed, AtomicInteger refused, int[] last, Edit edit) {
+        return () -> {
+            for (int i = 1; i <= EDITS_PER_FIELD; i++) {
+                try {
+                    edit.apply(i);
+                    last[0] = i;
+                    committed.incrementAndGet();
+                } catch (OptimisticLockingFailureException e) {
+                    refused.incrementAndGet();
+                }
+            }
+            return null;
+        };
+    }
+
+    private double writes(String outcome) {
+        return meterRegistry.counter("inventory.item.writes", "operation", "update", "outcome", outcome).count();
+    }
+
+    private static void runAll(List<Callable<Void>> calls, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> future : executor.invokeAll(calls)) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private interface Edit {
+        void apply(int value) throws Exception;
+    }
+}
@@ -0,0 +1,171 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.models.Log;
+import com.inventorymanagement.models.LogBucket;
+import com.inventorymanagement.repositories.LogBucketRepository;
+import com.inventorymanagement.repositories.LogBucketRepositoryCustom;
+import com.inventorymanagement.repositories.LogRepository;
+import com.inventorymanagement.support.MongoIntegrationTest;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogBucketServiceTest extends MongoIntegrationTest {
+
+    // Far enough back that no other test's buckets are older
+    private static final LocalDate OLD_DAY = LocalDate.of(2001, 1, 1);
+
+    @Autowired
+    private LogBucketService logBucketService;
+
+    @Autowired
+    private LogBucketRepository bucketRepository;
+
+    @Autowired
+    private LogRepository logRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private String userId;
+
+    @BeforeEach
+    void newUser() {
+        userId = new ObjectId().toHexString();
+    }
+
+    @AfterEach
+    void restore() {
+        ReflectionTestUtils.setField(logBucketService, "legacyPending", false);
+        ReflectionTestUtils.setField(logBucketService, "archiveAfterDays", 0);
+        Query mine = new Query(Criteria.where("userId").is(userId));
+        mongoTemplate.remove(mine, LogBucket.class);
+        mongoTemplate.remove(mine, LogBucket.class, LogBucketRepositoryCustom.ARCHIVE_COLLECTION);
+        mongoTemplate.remove(mine, Log.class);
+    }
+
+    @Test
+    void archivingNeverDropsAMoveAppendedWhileItRuns() throws Exception {
+        List<String> bucketIds = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            LogBucket bucket = new LogBucket(null, userId, "item-" + i, OLD_DAY, 1,
+                    new ArrayList<>(List.of(move())));
+            bucketIds.add(mongoTemplate.insert(bucket).getId());
+        }
+
+        // Writers keep adding moves to the old buckets for as long as they are in the hot collection
+        Set<String> appended = ConcurrentHashMap.newKeySet();
+        AtomicBoolean archiving = new AtomicBoolean(true);
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            running.add(writers.submit(() -> {
+                while (archiving.get()) {
+                    String bucketId = bucketIds.get(ThreadLocalRandom.current().nextInt(bucketIds.size()));
+                    LogBucket.Move move = move();
+                    Update update = new Update().push("moves", move).inc("count", 1);
+                    if (mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(bucketId)), update,
+                            LogBucket.class).getMatchedCount() > 0) {
+                        appended.add(move.getId());
+                    }
+                }
+            }));
+        }
+
+        try {
+            LocalDate cutoff = OLD_DAY.plusDays(1);
+            while (bucketRepository.archiveBefore(cutoff, 20) > 0) {
+                Thread.sleep(1);
+            }
+        } finally {
+            archiving.set(false);
+            for (Future<?> writer : running) {
+                writer.get();
+            }
+            writers.shutdown();
+        }
+
+        Set<String> stored = new HashSet<>();
+        Query mine = new Query(Criteria.where("userId").is(userId));
+        mongoTemplate.find(mine, LogBucket.class).forEach(bucket -> bucket.toLogs().forEach(log -> stored.add(log.getId())));
+        mongoTemplate.find(mine, LogBucket.class, LogBucketRepositoryCustom.ARCHIVE_COLLECTION)
+                .forEach(bucket -> bucket.toLogs().forEach(log -> stored.add(log.getId())));
+        assertFalse(appended.isEmpty());
+        assertTrue(stored.containsAll(appended), (appended.size() - intersection(appended, stored)) + " moves lost");
+    }
+
+    @Test
+    void userExportReturnsEachMoveOnceWhileItIsBeingMoved() {
+        ReflectionTestUtils.setField(logBucketService, "legacyPending", true);
+        ReflectionTestUtils.setField(logBucketService, "archiveAfterDays", 30);
+
+        // Mid-migration: the legacy rows are in their bucket and not yet deleted
+        List<Log> legacy = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            legacy.add(new Log(new ObjectId().toHexString(), userId, "item-a", "increase", 1, "d",
+                    LocalDateTime.of(2001, 1, 1, 12, i)));
+        }
+        logRepository.saveAll(legacy);
+        mongoTemplate.insert(new LogBucket("legacy-item-a-2001-01-01", userId, "item-a", OLD_DAY, 5,
+                new ArrayList<>(legacy.stream().map(LogBucket.Move::of).toList())));
+
+        // Mid-archive: the bucket is copied and not yet removed
+        LogBucket archived = new LogBucket(new ObjectId().toHexString(), userId, "item-b", OLD_DAY, 2,
+                new ArrayList<>(List.of(move(), move())));
+        mongoTemplate.insert(archived);
+        mongoTemplate.insert(archived, LogBucketRepositoryCustom.ARCHIVE_COLLECTION);
+
+        // And one that has finished moving
+        mongoTemplate.insert(new LogBucket(new ObjectId().toHexString(), userId, "item-c", OLD_DAY, 1,
+                new ArrayList<>(List.of(move()))), LogBucketRepositoryCustom.ARCHIVE_COLLECTION);
+
+        List<String> ids;
+        try (Stream<Log> logs = logBucketService.streamUserLogs(userId)) {
+            ids = logs.map(Log::getId).toList();
+        }
+        assertEquals(8, ids.size());
+        assertEquals(8, new HashSet<>(ids).size());
+    }
+
+    @Test
+    void replicaWithoutTheLeaseNoticesTheMigrationFinished() {
+        ReflectionTestUtils.setField(logBucketService, "legacyPending", true);
+
+        logBucketService.migrateLegacyLogs();
+
+        assertEquals(false, ReflectionTestUtils.getField(logBucketService, "legacyPending"));
+    }
+
+    private static LogBucket.Move move() {
+        return new LogBucket.Move(new ObjectId().toHexString(), "increase", 1, "d", OLD_DAY.atTime(12, 0));
+    }
+
+    private static long intersection(Set<String> a, Set<String> b) {
+        return a.stream().filter(b::contains).count();
+    }
+}
@@ -0,0 +1,111 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.repositories.ItemRepository;
+import com.inventorymanagement.repositories.UserRepository;
+import com.inventorymanagement.support.MongoIntegrationTest;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogServiceConcurrencyTest extends MongoIntegrationTest {
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    private LogService logService;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private String userId;
+
+    @BeforeEach
+    void createUser() {
+        User user = new User("Stock Tester", new ObjectId() + "@example.com", "0000000000", "x");
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void parallelDecreasesNeverSellMoreThanOnHand() throws Exception {
+        Item item = itemRepository.save(new Item(userId, "Widget", "d", 600, new BigDecimal("2.50"), 0, "c"));
+        // Loaded before the writes, so the cached copy has to follow every post-image
+        itemCache.getItems(userId);
+
+        List<Callable<Void>> calls = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            calls.add(() -> {
+                logService.decreaseQuantity(userId, item.getId(), 1, "sale");
+                return null;
+            });
+        }
+        runAll(calls);
+
+        Item stored = itemRepository.findById(item.getId()).orElseThrow();
+        assertEquals(0, stored.getQuantity());
+        assertEquals(600, stored.getSold());
+        assertEquals(0, new BigDecimal("1500.00").compareTo(stored.getSoldPrice()));
+        assertEquals(1000, logCount(item));
+        assertEquals(stored.getQuantity(), itemCache.getItemIfCached(userId, item.getId()).getQuantity());
+        assertEquals(stored.getVersion(), itemCache.getItemIfCached(userId, item.getId()).getVersion());
+    }
+
+    @Test
+    void parallelIncreasesAndDecreasesAllApply() throws Exception {
+        Item item = itemRepository.save(new Item(userId, "Gadget", "d", 10000, new BigDecimal("1.00"), 0, "c"));
+        itemCache.getItems(userId);
+
+        List<Callable<Void>> calls = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            calls.add(() -> {
+                logService.increaseQuantity(userId, item.getId(), 3, "restock");
+                return null;
+            });
+            calls.add(() -> {
+                logService.decreaseQuantity(userId, item.getId(), 2, "sale");
+                return null;
+            });
+        }
+        runAll(calls);
+
+        Item stored = itemRepository.findById(item.getId()).orElseThrow();
+        assertEquals(10000 + 3000 - 2000, stored.getQuantity());
+        assertEquals(2000, stored.getSold());
+        assertEquals(2000, logCount(item));
+        assertEquals(2000L, stored.getVersion());
+        assertEquals(stored.getQuantity(), itemCache.getItemIfCached(userId, item.getId()).getQuantity());
+    }
+
+    private void runAll(List<Callable<Void>> calls) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Future<Void> future : executor.invokeAll(calls)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private int logCount(Item item) throws Exception {
+        return logService.getLogs(userId, item.getId(), null, null, null, null).getLogs().size();
+    }
+}
@@ -0,0 +1,65 @@
+package com.inventorymanagement.services;
+
+import com.inventorymanagement.models.Item;
+import com.inventorymanagement.models.User;
+import com.inventorymanagement.support.MongoIntegrationTest;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserExistenceCacheTest extends MongoIntegrationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private LogService logService;
+
+    @Autowired
+    private UserExistenceCache userExistenceCache;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Test
+    void deletedUserIsRejectedOnTheNextCall() throws Exception {
+        User user = userService.registerUser("Cache Tester", new ObjectId() + "@example.com", "0000000000", "password1");
+        Item item = itemService.addItem(user.getId(), "Widget", "d", 5, BigDecimal.ONE, 0, "c");
+
+        // Both paths now have a cached "exists"
+        itemService.getItemsByUser(user.getId());
+        logService.increaseQuantity(user.getId(), item.getId(), 1, "restock");
+        assertTrue(userExistenceCache.exists(user.getId()));
+
+        userService.deleteUser(user.getId());
+
+        assertFalse(userExistenceCache.exists(user.getId()));
+        Exception listing = assertThrows(Exception.class, () -> itemService.getItemsByUser(user.getId()));
+        assertEquals("No such user", listing.getMessage());
+        Exception stock = assertThrows(Exception.class,
+                () -> logService.increaseQuantity(user.getId(), item.getId(), 1, "restock"));
+        assertEquals("User does not exist", stock.getMessage());
+    }
+
+    @Test
+    void refreshTokenIssuedWhileTheUserWasDeletedDoesNotRotate() throws Exception {
+        User user = userService.registerUser("Cache Tester", new ObjectId() + "@example.com", "0000000000", "password1");
+        userService.deleteUser(user.getId());
+
+        // What a rotation that consumed its token before the delete issues after the delete's revokeAll
+        String issuedAfterDelete = refreshTokenService.issue(user.getId());
+
+        Exception rotation = assertThrows(Exception.class, () -> refreshTokenService.rotate(issuedAfterDelete));
+        assertEquals("Invalid or expired refresh token", rotation.getMessage());
+    }
+}
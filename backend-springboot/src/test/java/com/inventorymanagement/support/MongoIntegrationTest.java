@@ -0,0 +1,30 @@
+package com.inventorymanagement.support;
+
+import de.bwaldvogel.mongo.MongoServer;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+// Full application context against one in-memory Mongo shared by every test class, so Spring
+// can reuse the context between them. Tests must use their own user ids and not assume empty collections.
+// Set TEST_MONGODB_URI to run the same tests against a real server, which also enables the explain checks.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryRecorder.class)
+public abstract class MongoIntegrationTest {
+
+    protected static final String REAL_MONGO_URI = System.getenv("TEST_MONGODB_URI");
+
+    private static final String MONGO_URI = REAL_MONGO_URI != null
+            ? REAL_MONGO_URI
+            : new MongoServer(new TestMongoBackend()).bindAndGetConnectionString();
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", () -> MONGO_URI + "/inventory_test");
+    }
+}
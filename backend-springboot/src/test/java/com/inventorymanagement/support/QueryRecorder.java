@@ -0,0 +1,52 @@
+package com.inventorymanagement.support;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Captures the commands the app sends to Mongo while a block runs, so tests can check
+// the query shapes the repositories really produce rather than what they are meant to produce
+@TestConfiguration
+public class QueryRecorder implements CommandListener {
+
+    public static final Set<String> QUERIES = Set.of("find", "aggregate", "count", "distinct", "update",
+            "delete", "findAndModify");
+
+    private final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+    private volatile boolean recording;
+
+    public interface Work {
+        void run() throws Exception;
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer queryRecorderCustomizer() {
+        return builder -> builder.addCommandListener(this);
+    }
+
+    public synchronized List<BsonDocument> record(Work work) throws Exception {
+        commands.clear();
+        recording = true;
+        try {
+            work.run();
+        } finally {
+            recording = false;
+        }
+        return new ArrayList<>(commands);
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (recording && QUERIES.contains(event.getCommandName())) {
+            commands.add(event.getCommand().clone());
+        }
+    }
+}
@@ -0,0 +1,496 @@
+package com.inventorymanagement.support;
+
+import de.bwaldvogel.mongo.backend.DefaultQueryMatcher;
+import de.bwaldvogel.mongo.backend.aggregation.Expression;
+import de.bwaldvogel.mongo.backend.aggregation.stage.AddFieldsStage;
+import de.bwaldvogel.mongo.backend.aggregation.stage.AggregationStage;
+import de.bwaldvogel.mongo.backend.aggregation.stage.ProjectStage;
+import de.bwaldvogel.mongo.backend.aggregation.stage.ReplaceRootStage;
+import de.bwaldvogel.mongo.backend.aggregation.stage.UnsetStage;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import de.bwaldvogel.mongo.bson.BsonTimestamp;
+import de.bwaldvogel.mongo.bson.Document;
+import de.bwaldvogel.mongo.exception.MongoServerError;
+import io.netty.channel.Channel;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// The in-memory backend plus the pieces of MongoDB the app relies on that it lacks:
+// pipeline-style updates (findAndModify and update, including bulk) with $set evaluating every
+// field against its input, the $set aggregation stage and single-document write atomicity.
+// Writes are serialized, which is stricter than MongoDB but never weaker.
+//
+// With withChangeStreams() it also records every write for change streams, as a replica set
+// would: database and collection watches with resumeAfter, updateLookup, updateDescription and
+// pre-images for collections that enabled them with collMod. The last MAX_CHANGES are kept, and
+// tests can take the streams down or drop the history to exercise resuming.
+public class TestMongoBackend extends MemoryBackend {
+
+    private static final Set<String> WRITES = Set.of("insert", "update", "delete", "findandmodify");
+
+    private static final int MAX_CHANGES = 10000;
+
+    // A getMore holds its netty thread while it waits, so the wait is kept short
+    private static final long MAX_AWAIT_MS = 100;
+
+    private final Object writeLock = new Object();
+
+    private volatile boolean changeStreams;
+    private volatile boolean changeStreamsDown;
+    private final Set<String> preImageCollections = ConcurrentHashMap.newKeySet();
+    // Guarded by itself; sequence numbers are the resume tokens
+    private final Deque<Change> changes = new ArrayDeque<>();
+    private long nextSequence = 1;
+    private long firstRetained = 1;
+    private final Map<Long, ChangeCursor> changeCursors = new ConcurrentHashMap<>();
+    // Clear of the ids the backend's own cursors use
+    private final AtomicLong cursorIds = new AtomicLong(1L << 40);
+
+    public TestMongoBackend withChangeStreams() {
+        changeStreams = true;
+        return this;
+    }
+
+    // While down, open change streams fail their next getMore and new ones are refused
+    public void setChangeStreamsDown(boolean down) {
+        changeStreamsDown = down;
+    }
+
+    // As if the oplog rolled over: streams cannot resume from before this point
+    public void forgetChanges() {
+        synchronized (changes) {
+            changes.clear();
+            firstRetained = nextSequence;
+        }
+    }
+
+    @Override
+    public Document handleCommand(Channel channel, String database, String command, Document query) {
+        if (command.equalsIgnoreCase("aggregate")) {
+            List<?> stages = (List<?>) query.get("pipeline");
+            if (!stages.isEmpty() && ((Document) stages.get(0)).containsKey("$changeStream")) {
+                return openChangeStream(database, query);
+            }
+            return super.handleCommand(channel, database, command, aggregation(query));
+        }
+        if (command.equalsIgnoreCase("getMore") && changeCursors.containsKey(((Number) query.get("getMore")).longValue())) {
+            return nextChanges(channel, query);
+        }
+        if (command.equalsIgnoreCase("killCursors")) {
+            List<Object> others = new ArrayList<>();
+            for (Object id : (List<?>) query.get("cursors")) {
+                if (changeCursors.remove(((Number) id).longValue()) == null) {
+                    others.add(id);
+                }
+            }
+            Document rest = query.clone();
+            rest.put("cursors", others);
+            return super.handleCommand(channel, database, command, rest);
+        }
+        if (command.equalsIgnoreCase("collMod") && query.get("changeStreamPreAndPostImages") instanceof Document images) {
+            String namespace = database + "." + query.get(command);
+            if (Boolean.TRUE.equals(images.get("enabled"))) {
+                preImageCollections.add(namespace);
+            } else {
+                preImageCollections.remove(namespace);
+            }
+            return new Document("ok", 1.0);
+        }
+        if (!WRITES.contains(command.toLowerCase())) {
+            return super.handleCommand(channel, database, command, query);
+        }
+        synchronized (writeLock) {
+            if (!changeStreams) {
+                return write(channel, database, command, query);
+            }
+            // The command's first field names the collection
+            String collection = (String) query.values().iterator().next();
+            Map<Object, Document> before = snapshot(channel, database, collection, command, query);
+            Document result = write(channel, database, command, query);
+            recordChanges(channel, database, collection, command, query, before, result);
+            return result;
+        }
+    }
+
+    private Document write(Channel channel, String database, String command, Document query) {
+        if (command.equalsIgnoreCase("findAndModify") && query.get("update") instanceof List<?> pipeline) {
+            return findAndModify(channel, database, query, pipeline);
+        }
+        if (command.equalsIgnoreCase("update")) {
+            List<?> updates = (List<?>) query.get("updates");
+            if (updates.stream().anyMatch(update -> ((Document) update).get("u") instanceof List)) {
+                return update(channel, database, query, updates);
+            }
+        }
+        return super.handleCommand(channel, database, command, query);
+    }
+
+    // The documents the write can touch, copied before it runs
+    private Map<Object, Document> snapshot(Channel channel, String database, String collection, String command,
+                                           Document query) {
+        List<Object> filters = new ArrayList<>();
+        switch (command.toLowerCase()) {
+            case "insert" -> {
+                List<Object> ids = new ArrayList<>();
+                ((List<?>) query.get("documents")).forEach(document -> ids.add(((Document) document).get("_id")));
+                filters.add(new Document("_id", new Document("$in", ids)));
+            }
+            case "update" -> ((List<?>) query.get("updates")).forEach(update -> filters.add(((Document) update).get("q")));
+            case "delete" -> ((List<?>) query.get("deletes")).forEach(delete -> filters.add(((Document) delete).get("q")));
+            default -> filters.add(query.get("query"));
+        }
+        Map<Object, Document> documents = new LinkedHashMap<>();
+        for (Object filter : filters) {
+            for (Document document : find(channel, database, collection, filter, null, 0)) {
+                documents.putIfAbsent(document.get("_id"), document.cloneDeeply());
+            }
+        }
+        return documents;
+    }
+
+    private void recordChanges(Channel channel, String database, String collection, String command, Document query,
+                               Map<Object, Document> before, Document result) {
+        Set<Object> ids = new LinkedHashSet<>(before.keySet());
+        if (command.equalsIgnoreCase("insert")) {
+            ((List<?>) query.get("documents")).forEach(document -> ids.add(((Document) document).get("_id")));
+        }
+        if (result.get("upserted") instanceof List<?> upserted) {
+            upserted.forEach(entry -> ids.add(((Document) entry).get("_id")));
+        }
+        if (result.get("lastErrorObject") instanceof Document lastError && lastError.containsKey("upserted")) {
+            ids.add(lastError.get("upserted"));
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<Object, Document> after = new LinkedHashMap<>();
+        for (Document document : find(channel, database, collection,
+                new Document("_id", new Document("$in", new ArrayList<>(ids))), null, 0)) {
+            after.put(document.get("_id"), document.cloneDeeply());
+        }
+
+        boolean preImages = preImageCollections.contains(database + "." + collection);
+        for (Object id : ids) {
+            Document old = before.get(id);
+            Document current = after.get(id);
+            if (Objects.equals(old, current)) {
+                continue;
+            }
+            Document event = new Document("operationType", old == null ? "insert"
+                    : current == null ? "delete"
+                    : replacement(command, query, old) ? "replace" : "update");
+            event.append("ns", new Document("db", database).append("coll", collection))
+                    .append("documentKey", new Document("_id", id));
+            if (old != null && current != null && event.get("operationType").equals("update")) {
+                Document updated = new Document();
+                current.forEach((field, value) -> {
+                    if (!Objects.equals(old.get(field), value)) {
+                        updated.append(field, value);
+                    }
+                });
+                List<String> removed = old.keySet().stream().filter(field -> !current.containsKey(field)).toList();
+                event.append("updateDescription", new Document("updatedFields", updated)
+                        .append("removedFields", removed)
+                        .append("truncatedArrays", List.of()));
+            }
+            synchronized (changes) {
+                long sequence = nextSequence++;
+                event.put("_id", token(sequence));
+                event.append("clusterTime", new BsonTimestamp(Instant.now(), (int) sequence));
+                changes.addLast(new Change(sequence, database, event, current, preImages ? old : null));
+                if (changes.size() > MAX_CHANGES) {
+                    changes.removeFirst();
+                    firstRetained = changes.getFirst().sequence();
+                }
+                changes.notifyAll();
+            }
+        }
+    }
+
+    // Which statement of the write changed the document decides between an update and a replace
+    private static boolean replacement(String command, Document query, Document old) {
+        Object update = query.get("update");
+        if (command.equalsIgnoreCase("update")) {
+            update = null;
+            for (Object entry : (List<?>) query.get("updates")) {
+                Document statement = (Document) entry;
+                if (new DefaultQueryMatcher().matches(old, (Document) statement.get("q"))) {
+                    update = statement.get("u");
+                    break;
+                }
+            }
+        }
+        return update instanceof Document document
+                && document.keySet().stream().noneMatch(field -> field.startsWith("$"));
+    }
+
+    private Document openChangeStream(String database, Document query) {
+        if (!changeStreams) {
+            throw new MongoServerError(40573, "The $changeStream stage is only supported on replica sets");
+        }
+        if (changeStreamsDown) {
+            throw new MongoServerError(2, "Change streams are down in this test");
+        }
+        List<?> stages = (List<?>) query.get("pipeline");
+        Document options = (Document) ((Document) stages.get(0)).get("$changeStream");
+        List<Document> matches = new ArrayList<>();
+        for (Object stage : stages.subList(1, stages.size())) {
+            Document match = (Document) ((Document) stage).get("$match");
+            if (match == null) {
+                throw new IllegalArgumentException("Unsupported change stream stage " + stage);
+            }
+            matches.add(match);
+        }
+
+        Object resumeToken = options.containsKey("resumeAfter") ? options.get("resumeAfter") : options.get("startAfter");
+        long position;
+        synchronized (changes) {
+            if (resumeToken == null) {
+                position = nextSequence - 1;
+            } else {
+                position = Long.parseLong((String) ((Document) resumeToken).get("_data"), 16);
+                if (position + 1 < firstRetained) {
+                    throw new MongoServerError(286, "ChangeStreamHistoryLost",
+                            "Resume of change stream was not possible, as the resume point may no longer be in the oplog");
+                }
+            }
+        }
+        Object collection = query.get("aggregate");
+        ChangeCursor cursor = new ChangeCursor(cursorIds.incrementAndGet(), database,
+                collection instanceof String name ? name : null, matches,
+                "updateLookup".equals(options.get("fullDocument")),
+                options.get("fullDocumentBeforeChange") != null
+                        && !"off".equals(options.get("fullDocumentBeforeChange")));
+        cursor.position = position;
+        changeCursors.put(cursor.id, cursor);
+        return cursorReply(cursor, "firstBatch", List.of());
+    }
+
+    private Document nextChanges(Channel channel, Document query) {
+        ChangeCursor cursor = changeCursors.get(((Number) query.get("getMore")).longValue());
+        if (changeStreamsDown) {
+            changeCursors.remove(cursor.id);
+            throw new MongoServerError(2, "Change streams are down in this test");
+        }
+        long await = Math.min(MAX_AWAIT_MS, ((Number) query.getOrDefault("maxTimeMS", MAX_AWAIT_MS)).longValue());
+        List<Change> pending = new ArrayList<>();
+        synchronized (changes) {
+            if (cursor.position + 1 < firstRetained) {
+                changeCursors.remove(cursor.id);
+                throw new MongoServerError(286, "ChangeStreamHistoryLost", "The change stream fell off the oplog");
+            }
+            if (nextSequence - 1 == cursor.position && await > 0) {
+                try {
+                    changes.wait(await);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (Change change : changes) {
+                if (change.sequence() > cursor.position) {
+                    pending.add(change);
+                }
+            }
+            cursor.position = nextSequence - 1;
+        }
+
+        List<Document> batch = new ArrayList<>();
+        for (Change change : pending) {
+            Document event = change.event().cloneDeeply();
+            Document ns = (Document) event.get("ns");
+            if (!ns.get("db").equals(cursor.database)
+                    || (cursor.collection != null && !ns.get("coll").equals(cursor.collection))) {
+                continue;
+            }
+            String operation = (String) event.get("operationType");
+            if (operation.equals("insert") || operation.equals("replace")) {
+                event.append("fullDocument", change.after());
+            } else if (operation.equals("update") && cursor.updateLookup) {
+                List<Document> found = find(channel, cursor.database, (String) ns.get("coll"),
+                        event.get("documentKey"), null, 1);
+                event.append("fullDocument", found.isEmpty() ? null : found.get(0));
+            }
+            if (cursor.preImages && change.before() != null && !operation.equals("insert")) {
+                event.append("fullDocumentBeforeChange", change.before());
+            }
+            if (cursor.matches.stream().allMatch(match -> new DefaultQueryMatcher().matches(event, match))) {
+                batch.add(event);
+            }
+        }
+        return cursorReply(cursor, "nextBatch", batch);
+    }
+
+    private static Document cursorReply(ChangeCursor cursor, String batchName, List<Document> batch) {
+        String namespace = cursor.database + "." + (cursor.collection != null ? cursor.collection : "$cmd.aggregate");
+        return new Document("cursor", new Document("id", cursor.id)
+                .append("ns", namespace)
+                .append(batchName, batch)
+                .append("postBatchResumeToken", token(cursor.position)))
+                .append("ok", 1.0);
+    }
+
+    private static Document token(long sequence) {
+        return new Document("_data", String.format("%016x", sequence));
+    }
+
+    private Document findAndModify(Channel channel, String database, Document query, List<?> pipeline) {
+        String collection = (String) (query.containsKey("findAndModify")
+                ? query.get("findAndModify") : query.get("findandmodify"));
+        List<Document> found = find(channel, database, collection, query.get("query"), query.get("sort"), 1);
+        if (found.isEmpty()) {
+            return new Document("lastErrorObject", new Document("n", 0).append("updatedExisting", false))
+                    .append("value", null)
+                    .append("ok", 1.0);
+        }
+        Document before = found.get(0);
+        Document after = apply(before.clone(), pipeline);
+        replace(channel, database, collection, after);
+        boolean returnNew = Boolean.TRUE.equals(query.get("new"));
+        return new Document("lastErrorObject", new Document("n", 1).append("updatedExisting", true))
+                .append("value", returnNew ? after : before)
+                .append("ok", 1.0);
+    }
+
+    private Document update(Channel channel, String database, Document query, List<?> updates) {
+        String collection = (String) query.get("update");
+        int matched = 0;
+        int modified = 0;
+        for (Object entry : updates) {
+            Document update = (Document) entry;
+            if (!(update.get("u") instanceof List<?> pipeline)) {
+                Document result = super.handleCommand(channel, database, "update",
+                        new Document("update", collection).append("updates", List.of(update)));
+                matched += ((Number) result.get("n")).intValue();
+                modified += ((Number) result.getOrDefault("nModified", 0)).intValue();
+                continue;
+            }
+            boolean multi = Boolean.TRUE.equals(update.get("multi"));
+            for (Document before : find(channel, database, collection, update.get("q"), null, multi ? 0 : 1)) {
+                Document after = apply(before.clone(), pipeline);
+                replace(channel, database, collection, after);
+                matched++;
+                if (!after.equals(before)) {
+                    modified++;
+                }
+            }
+        }
+        return new Document("n", matched).append("nModified", modified).append("ok", 1.0);
+    }
+
+    // $set is the newer name of $addFields, which is all the backend knows
+    private Document aggregation(Document query) {
+        Document copy = query.clone();
+        List<Object> pipeline = new ArrayList<>();
+        for (Object entry : (List<?>) withoutToDecimal(query.get("pipeline"))) {
+            Document stage = (Document) entry;
+            pipeline.add(stage.containsKey("$set") ? new Document("$addFields", stage.get("$set")) : stage);
+        }
+        copy.put("pipeline", pipeline);
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Document> find(Channel channel, String database, String collection, Object filter,
+                                Object sort, int limit) {
+        Document find = new Document("find", collection).append("filter", filter == null ? new Document() : filter);
+        if (sort != null) {
+            find.append("sort", sort);
+        }
+        if (limit > 0) {
+            find.append("limit", limit);
+        }
+        Document result = super.handleCommand(channel, database, "find", find);
+        return (List<Document>) ((Document) result.get("cursor")).get("firstBatch");
+    }
+
+    private void replace(Channel channel, String database, String collection, Document document) {
+        Document update = new Document("q", new Document("_id", document.get("_id"))).append("u", document);
+        super.handleCommand(channel, database, "update",
+                new Document("update", collection).append("updates", List.of(update)));
+    }
+
+    private Document apply(Document document, List<?> pipeline) {
+        for (Object entry : pipeline) {
+            Document stage = (Document) withoutToDecimal(entry);
+            String name = stage.keySet().iterator().next();
+            Object spec = stage.get(name);
+            AggregationStage step = switch (name) {
+                case "$set", "$addFields" -> new AddFieldsStage(evaluated((Document) spec, document));
+                case "$unset" -> new UnsetStage(spec);
+                case "$project" -> new ProjectStage((Document) spec);
+                case "$replaceRoot" -> new ReplaceRootStage((Document) spec);
+                case "$replaceWith" -> new ReplaceRootStage(new Document("newRoot", spec));
+                default -> throw new IllegalArgumentException("Unsupported update stage " + name);
+            };
+            document = step.apply(Stream.of(document)).findFirst().orElseThrow();
+        }
+        return document;
+    }
+
+    // MongoDB evaluates every field of a $set against the document as it entered the stage; the
+    // backend's stage sees the fields it has already set, so the values are computed up front
+    private static Document evaluated(Document spec, Document document) {
+        Document literals = new Document();
+        for (Map.Entry<String, Object> field : spec.entrySet()) {
+            literals.append(field.getKey(),
+                    new Document("$literal", Expression.evaluateDocument(field.getValue(), document)));
+        }
+        return literals;
+    }
+
+    private record Change(long sequence, String database, Document event, Document after, Document before) {
+    }
+
+    private static class ChangeCursor {
+        private final long id;
+        private final String database;
+        private final String collection;
+        private final List<Document> matches;
+        private final boolean updateLookup;
+        private final boolean preImages;
+        // Sequence number of the last change this cursor has moved past
+        private long position;
+
+        ChangeCursor(long id, String database, String collection, List<Document> matches, boolean updateLookup,
+                     boolean preImages) {
+            this.id = id;
+            this.database = database;
+            this.collection = collection;
+            this.matches = matches;
+            this.updateLookup = updateLookup;
+            this.preImages = preImages;
+        }
+    }
+
+    // $toDecimal is not implemented; numbers are already stored as Decimal128 in tests, so it is the identity
+    private static Object withoutToDecimal(Object value) {
+        if (value instanceof Document document) {
+            if (document.size() == 1 && document.containsKey("$toDecimal")) {
+                return withoutToDecimal(document.get("$toDecimal"));
+            }
+            Document copy = new Document();
+            for (Map.Entry<String, Object> field : document.entrySet()) {
+                copy.append(field.getKey(), withoutToDecimal(field.getValue()));
+            }
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(element -> copy.add(withoutToDecimal(element)));
+            return copy;
+        }
+        return value;
+    }
+}
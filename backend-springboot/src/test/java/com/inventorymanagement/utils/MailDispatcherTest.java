@@ -0,0 +1,112 @@
+package com.inventorymanagement.utils;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetup;
+import com.inventorymanagement.models.OutboxMail;
+import com.inventorymanagement.repositories.MailOutboxRepository;
+import com.inventorymanagement.support.MongoIntegrationTest;
+import jakarta.mail.internet.MimeMessage;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MailDispatcherTest extends MongoIntegrationTest {
+
+    // Same port as spring.mail.port in the test profile
+    @RegisterExtension
+    static GreenMailExtension smtp = new GreenMailExtension(new ServerSetup(2525, null, ServerSetup.PROTOCOL_SMTP));
+
+    @Autowired
+    private EmailSender emailSender;
+
+    @Autowired
+    private MailOutboxRepository outboxRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @AfterEach
+    void clearOutbox() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void queuedMailIsDeliveredAndItsBodyDropped() throws Exception {
+        String to = new ObjectId() + "@example.com";
+        emailSender.queueHtmlEmail(to, "Password Reset", "<a href=\"https://example.com/reset/secret-token\">Reset</a>");
+
+        assertTrue(smtp.waitForIncomingEmail(10000, 1));
+        MimeMessage received = smtp.getReceivedMessages()[0];
+        assertEquals("Password Reset", received.getSubject());
+        assertEquals(to, received.getAllRecipients()[0].toString());
+
+        OutboxMail sent = awaitMail(to, mail -> OutboxMail.SENT.equals(mail.getStatus()));
+        assertNotNull(sent.getSentAt());
+        assertNull(sent.getHtmlContent());
+        assertNull(sent.getLockedUntil());
+
+        IndexInfo ttl = mongoTemplate.indexOps(OutboxMail.class).getIndexInfo().stream()
+                .filter(index -> index.getIndexFields().get(0).getKey().equals("sentAt"))
+                .findFirst().orElseThrow();
+        assertEquals(Duration.ofDays(7), ttl.getExpireAfter().orElseThrow());
+    }
+
+    @Test
+    void unreachableServerSchedulesARetry() throws Exception {
+        smtp.stop();
+        String to = new ObjectId() + "@example.com";
+        emailSender.queueHtmlEmail(to, "Password Reset", "<p>body</p>");
+
+        OutboxMail pending = awaitMail(to, mail -> mail.getLastError() != null);
+        assertEquals(OutboxMail.PENDING, pending.getStatus());
+        assertEquals(1, pending.getAttempts());
+        assertTrue(pending.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals("<p>body</p>", pending.getHtmlContent());
+    }
+
+    @Test
+    void workerWhoseLeaseRanOutCannotOverwriteTheNextClaim() throws Exception {
+        outboxRepository.save(new OutboxMail(new ObjectId() + "@example.com", "Subject", "<p>body</p>"));
+
+        OutboxMail first = outboxRepository.claimNext(Duration.ofMillis(1));
+        Thread.sleep(20);
+        OutboxMail second = outboxRepository.claimNext(Duration.ofMinutes(1));
+        assertEquals(first.getId(), second.getId());
+
+        assertFalse(outboxRepository.markSent(first));
+        assertFalse(outboxRepository.markFailed(first, "timed out", null));
+        OutboxMail stored = outboxRepository.findById(first.getId()).orElseThrow();
+        assertEquals(OutboxMail.SENDING, stored.getStatus());
+        assertEquals(second.getLockedUntil(), stored.getLockedUntil());
+
+        assertTrue(outboxRepository.markSent(second));
+        assertEquals(OutboxMail.SENT, outboxRepository.findById(first.getId()).orElseThrow().getStatus());
+    }
+
+    private OutboxMail awaitMail(String to, Predicate<OutboxMail> done) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (System.currentTimeMillis() < deadline) {
+            for (OutboxMail mail : outboxRepository.findAll()) {
+                if (mail.getTo().equals(to) && done.test(mail)) {
+                    return mail;
+                }
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Outbox mail to " + to + " never reached the expected state");
+    }
+}